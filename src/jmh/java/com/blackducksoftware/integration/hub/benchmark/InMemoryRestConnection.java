@@ -0,0 +1,87 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+import com.blackducksoftware.integration.log.LogLevel;
+import com.blackducksoftware.integration.log.PrintStreamIntLogger;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Serves canned JSON by URL path so the real request services, Gson mapping and MetaService run without any network.
+ */
+public class InMemoryRestConnection extends RestConnection {
+    public static final String HUB_URL = "http://benchmark.hub";
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final Map<String, byte[]> responses = new HashMap<>();
+
+    public InMemoryRestConnection() throws MalformedURLException {
+        super(new PrintStreamIntLogger(System.out, LogLevel.OFF), new URL(HUB_URL), 120);
+    }
+
+    public void addResponse(final String url, final String json) {
+        final String path = url.startsWith(HUB_URL) ? url.substring(HUB_URL.length()) : url;
+        responses.put(path, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void connect() throws IntegrationException {
+        // nothing to connect to
+    }
+
+    @Override
+    public void addBuilderAuthentication() throws IntegrationException {
+        // nothing to authenticate
+    }
+
+    @Override
+    public void clientAuthenticate() throws IntegrationException {
+        // nothing to authenticate
+    }
+
+    @Override
+    public Response handleExecuteClientCall(final Request request) throws IntegrationException {
+        final byte[] body = responses.get(request.url().encodedPath());
+        if (body == null) {
+            throw new IntegrationRestException(404, "Not Found", "No synthetic response for : " + request.url());
+        }
+        return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(200).message("OK").body(ResponseBody.create(JSON, body)).build();
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.hub.notification.processor.ItemTypeEnum;
+import com.blackducksoftware.integration.hub.notification.processor.MapProcessorCache;
+import com.blackducksoftware.integration.hub.notification.processor.NotificationCategoryEnum;
+import com.blackducksoftware.integration.hub.notification.processor.event.NotificationEvent;
+
+/**
+ * MapProcessorCache.addEvent with four events per key, so three quarters of the adds take the merge path.
+ *
+ * Merging writes into the data set of the first event stored for a key. Those maps reach their merged size during
+ * the first warmup invocation and stay there, so later invocations all do the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapProcessorCacheBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int scale;
+
+    private List<NotificationEvent> events;
+
+    @Setup
+    public void setup() {
+        final int keyCount = Math.max(1, scale / 4);
+        events = new ArrayList<>(scale);
+        for (int index = 0; index < scale; index++) {
+            final Map<String, Object> dataSet = new HashMap<>();
+            dataSet.put(ItemTypeEnum.COMPONENT.name(), "component" + (index % keyCount));
+            dataSet.put(ItemTypeEnum.VERSION.name(), "1." + (index % keyCount));
+            dataSet.put(ItemTypeEnum.RULE.name() + (index / keyCount), "Rule " + (index / keyCount));
+            events.add(new NotificationEvent("key" + (index % keyCount), NotificationCategoryEnum.POLICY_VIOLATION, dataSet));
+        }
+    }
+
+    @Benchmark
+    public MapProcessorCache addEvents() {
+        final MapProcessorCache cache = new MapProcessorCache();
+        for (final NotificationEvent event : events) {
+            cache.addEvent(event);
+        }
+        return cache;
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.notification.NotificationRequestService;
+import com.blackducksoftware.integration.hub.model.view.NotificationView;
+import com.blackducksoftware.integration.hub.request.HubRequestFactory;
+import com.blackducksoftware.integration.hub.service.HubServicesFactory;
+import com.google.gson.JsonObject;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NotificationDecodingBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int scale;
+
+    private NotificationRequestService notificationRequestService;
+
+    private HubRequestFactory hubRequestFactory;
+
+    private JsonObject page;
+
+    @Setup
+    public void setup() throws Exception {
+        final InMemoryRestConnection restConnection = new InMemoryRestConnection();
+        final String pageJson = new SyntheticNotificationData().createNotificationPage(scale);
+        restConnection.addResponse(SyntheticNotificationData.NOTIFICATIONS_PATH, pageJson);
+        notificationRequestService = new HubServicesFactory(restConnection).createNotificationRequestService(restConnection.logger);
+        hubRequestFactory = new HubRequestFactory(restConnection);
+        page = restConnection.jsonParser.parse(pageJson).getAsJsonObject();
+    }
+
+    /**
+     * Response body to views: string decoding, parsing and Gson mapping of one page holding every notification.
+     */
+    @Benchmark
+    public List<NotificationView> decodePage() throws IntegrationException {
+        return notificationRequestService.getItems(hubRequestFactory.createPagedRequest(scale, Arrays.asList("api", "notifications")));
+    }
+
+    /**
+     * Only the per item type lookup and Gson mapping of an already parsed page.
+     */
+    @Benchmark
+    public List<NotificationView> mapItems() throws IntegrationException {
+        return notificationRequestService.getItems(page);
+    }
+
+}
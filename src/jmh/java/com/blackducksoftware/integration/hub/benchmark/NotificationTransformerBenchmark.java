@@ -0,0 +1,119 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.notification.NotificationRequestService;
+import com.blackducksoftware.integration.hub.api.policy.PolicyRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.AbstractNotificationTransformer;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationClearedTransformer;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationOverrideTransformer;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationTransformer;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.VulnerabilityTransformer;
+import com.blackducksoftware.integration.hub.exception.HubItemTransformException;
+import com.blackducksoftware.integration.hub.model.view.NotificationView;
+import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.service.HubServicesFactory;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Runs one transformer over a page of its own notification type. The Hub items it fetches come from an
+ * InMemoryRestConnection, so the numbers cover the transformer, the request services, Gson and MetaService but no I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NotificationTransformerBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int scale;
+
+    @Param({ SyntheticNotificationData.RULE_VIOLATION, SyntheticNotificationData.POLICY_OVERRIDE, SyntheticNotificationData.RULE_VIOLATION_CLEARED,
+            SyntheticNotificationData.VULNERABILITY })
+    public String type;
+
+    private List<NotificationView> notifications;
+
+    private AbstractNotificationTransformer transformer;
+
+    @Setup
+    public void setup() throws Exception {
+        final InMemoryRestConnection restConnection = new InMemoryRestConnection();
+        final SyntheticNotificationData data = new SyntheticNotificationData();
+        data.registerHubItems(restConnection);
+
+        final HubServicesFactory hubServicesFactory = new HubServicesFactory(restConnection);
+        final IntLogger logger = restConnection.logger;
+        final NotificationRequestService notificationRequestService = hubServicesFactory.createNotificationRequestService(logger);
+        notifications = notificationRequestService.getItems(restConnection.jsonParser.parse(data.createNotificationPage(scale, type)).getAsJsonObject());
+        transformer = createTransformer(hubServicesFactory, notificationRequestService, logger);
+    }
+
+    @Benchmark
+    public void transform(final Blackhole blackhole) throws HubItemTransformException {
+        for (final NotificationView notification : notifications) {
+            blackhole.consume(transformer.transform(notification));
+        }
+    }
+
+    private AbstractNotificationTransformer createTransformer(final HubServicesFactory hubServicesFactory,
+            final NotificationRequestService notificationRequestService, final IntLogger logger) {
+        final HubResponseService hubResponseService = hubServicesFactory.createHubResponseService();
+        final ProjectVersionRequestService projectVersionRequestService = hubServicesFactory.createProjectVersionRequestService(logger);
+        final PolicyRequestService policyRequestService = hubServicesFactory.createPolicyRequestService();
+        final MetaService metaService = hubServicesFactory.createMetaService(logger);
+        if (SyntheticNotificationData.RULE_VIOLATION.equals(type)) {
+            return new PolicyViolationTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService,
+                    policyRequestService, null, metaService);
+        } else if (SyntheticNotificationData.POLICY_OVERRIDE.equals(type)) {
+            return new PolicyViolationOverrideTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService,
+                    policyRequestService, null, metaService);
+        } else if (SyntheticNotificationData.RULE_VIOLATION_CLEARED.equals(type)) {
+            return new PolicyViolationClearedTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService,
+                    policyRequestService, null, metaService);
+        }
+        return new VulnerabilityTransformer(hubResponseService, notificationRequestService, projectVersionRequestService, policyRequestService,
+                metaService, logger);
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.hub.ScannerSplitStream;
+import com.blackducksoftware.integration.log.LogLevel;
+import com.blackducksoftware.integration.log.PrintStreamIntLogger;
+
+/**
+ * Splits a CLI log into messages. A captured log can be used with -Dscanner.log=&lt;file&gt;, otherwise a synthetic log
+ * of sizeMb megabytes with the CLI's mix of DEBUG lines, INFO lines and stack traces is generated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScannerSplitStreamBenchmark {
+    @Param({ "8" })
+    public int sizeMb;
+
+    @Param({ "8192" })
+    public int writeSize;
+
+    private final PrintStreamIntLogger logger = new PrintStreamIntLogger(System.out, LogLevel.OFF);
+
+    private byte[] log;
+
+    @Setup
+    public void setup() throws IOException {
+        final String capturedLog = System.getProperty("scanner.log");
+        if (capturedLog != null) {
+            log = Files.readAllBytes(new File(capturedLog).toPath());
+        } else {
+            log = createLog(sizeMb * 1024 * 1024);
+        }
+    }
+
+    /**
+     * The output as StreamRedirectThread copies it, in blocks of writeSize bytes.
+     */
+    @Benchmark
+    public String splitBlocks() throws IOException {
+        final ScannerSplitStream splitStream = new ScannerSplitStream(logger, new NullOutputStream());
+        for (int offset = 0; offset < log.length; offset += writeSize) {
+            splitStream.write(log, offset, Math.min(writeSize, log.length - offset));
+        }
+        splitStream.flush();
+        return splitStream.getOutput();
+    }
+
+    @Benchmark
+    public String splitBytes() throws IOException {
+        final ScannerSplitStream splitStream = new ScannerSplitStream(logger, new NullOutputStream());
+        for (final byte logByte : log) {
+            splitStream.write(logByte);
+        }
+        splitStream.flush();
+        return splitStream.getOutput();
+    }
+
+    private byte[] createLog(final int size) {
+        final StringBuilder log = new StringBuilder(size + 1024);
+        int line = 0;
+        while (log.length() < size) {
+            final String time = String.format("2018-01-01 12:%02d:%02d", line / 60 % 60, line % 60);
+            if (line % 500 == 0) {
+                log.append(time).append(" INFO: Scanning /var/lib/jenkins/workspace/projekt-größe/module-").append(line).append("\n");
+            } else if (line % 997 == 0) {
+                log.append(time).append(" ERROR: Could not upload the scan\r\n");
+                log.append("java.io.IOException: Connection reset\r\n");
+                for (int frame = 0; frame < 12; frame++) {
+                    log.append("\tat com.blackducksoftware.scan.Upload.send(Upload.java:").append(frame + 100).append(")\r\n");
+                }
+            } else if (line % 211 == 0) {
+                log.append(time).append(" WARN: Skipping a file that could not be read: ./lib/ライブラリ-").append(line).append(".jar\n");
+            } else {
+                log.append(time).append(" DEBUG: Signature for ./src/main/java/com/example/module").append(line % 40).append("/File").append(line)
+                        .append(".java : 1f3870be274f6c49b3e31a0c6728957f\n");
+            }
+            line++;
+        }
+        log.append("Finished in ").append(line / 100).append(" seconds\n");
+        return log.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,296 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.net.URISyntaxException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
+import com.blackducksoftware.integration.hub.model.enumeration.VersionBomPolicyStatusOverallStatusEnum;
+import com.blackducksoftware.integration.hub.model.view.components.VulnerabilitySourceQualifiedId;
+import com.blackducksoftware.integration.hub.notification.processor.EventTestUtil;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Generates deterministic notification pages, the Hub items the transformers fetch for them, and content items for
+ * the sorting and processing benchmarks. Notification types rotate with the index so every scale has the same mix.
+ */
+public class SyntheticNotificationData {
+    public static final String RULE_VIOLATION = "RULE_VIOLATION";
+
+    public static final String POLICY_OVERRIDE = "POLICY_OVERRIDE";
+
+    public static final String RULE_VIOLATION_CLEARED = "RULE_VIOLATION_CLEARED";
+
+    public static final String VULNERABILITY = "VULNERABILITY";
+
+    public static final List<String> TYPES = Arrays.asList(RULE_VIOLATION, POLICY_OVERRIDE, RULE_VIOLATION_CLEARED, VULNERABILITY);
+
+    public static final String NOTIFICATIONS_PATH = "/api/notifications";
+
+    private static final int PROJECT_COUNT = 50;
+
+    private static final int COMPONENT_COUNT = 500;
+
+    private static final int RULE_COUNT = 10;
+
+    private static final long START_TIME = 1490000000000L;
+
+    private final EventTestUtil eventTestUtil = new EventTestUtil();
+
+    public void registerHubItems(final InMemoryRestConnection restConnection) {
+        for (int project = 0; project < PROJECT_COUNT; project++) {
+            restConnection.addResponse(projectVersionUrl(project), createProjectVersion(project).toString());
+        }
+        for (int component = 0; component < COMPONENT_COUNT; component++) {
+            restConnection.addResponse(componentVersionUrl(component), createComponentVersion(component).toString());
+        }
+        for (int rule = 0; rule < RULE_COUNT; rule++) {
+            final JsonObject json = new JsonObject();
+            json.addProperty("name", "Rule " + rule);
+            json.addProperty("enabled", true);
+            json.add("_meta", createMeta(ruleUrl(rule)));
+            restConnection.addResponse(ruleUrl(rule), json.toString());
+        }
+        for (final VersionBomPolicyStatusOverallStatusEnum status : VersionBomPolicyStatusOverallStatusEnum.values()) {
+            final JsonObject json = new JsonObject();
+            json.addProperty("approvalStatus", status.name());
+            restConnection.addResponse(policyStatusUrl(status), json.toString());
+        }
+    }
+
+    public String createNotificationPage(final int count) {
+        return createNotificationPage(count, null);
+    }
+
+    /**
+     * A null type mixes all four notification types.
+     */
+    public String createNotificationPage(final int count, final String type) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(RestConnection.JSON_DATE_FORMAT);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final JsonArray items = new JsonArray();
+        for (int index = 0; index < count; index++) {
+            final String itemType = type == null ? TYPES.get(index % TYPES.size()) : type;
+            items.add(createNotification(index, itemType, dateFormat));
+        }
+        final JsonObject page = new JsonObject();
+        page.addProperty("totalCount", count);
+        page.add("items", items);
+        return page.toString();
+    }
+
+    public List<NotificationContentItem> createContentItems(final int count) throws URISyntaxException {
+        final List<NotificationContentItem> contentItems = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            // four items share each timestamp so the project version tie break is exercised too
+            final Date createdAt = new Date(START_TIME + (index / 4) * 1000L);
+            final String projectName = "project" + (index % PROJECT_COUNT);
+            final String versionName = "version" + (index % PROJECT_COUNT);
+            final String componentName = "component" + (index % COMPONENT_COUNT);
+            final String componentVersion = "1." + (index % COMPONENT_COUNT);
+            switch (index % 4) {
+            case 0:
+                contentItems.add(eventTestUtil.createPolicyViolation(createdAt, projectName, versionName, componentName, componentVersion));
+                break;
+            case 1:
+                contentItems.add(eventTestUtil.createPolicyOverride(createdAt, projectName, versionName, componentName, componentVersion));
+                break;
+            case 2:
+                contentItems.add(eventTestUtil.createPolicyCleared(createdAt, projectName, versionName, componentName, componentVersion));
+                break;
+            default:
+                final List<VulnerabilitySourceQualifiedId> added = Collections.singletonList(createVulnerabilityId(EventTestUtil.HIGH_VULN_ID + index));
+                final List<VulnerabilitySourceQualifiedId> none = Collections.emptyList();
+                contentItems.add(eventTestUtil.createVulnerability(createdAt, projectName, versionName, componentName, componentVersion, added, none,
+                        none));
+            }
+        }
+        return contentItems;
+    }
+
+    public List<NotificationContentItem> createShuffledContentItems(final int count, final long seed) throws URISyntaxException {
+        final List<NotificationContentItem> contentItems = createContentItems(count);
+        Collections.shuffle(contentItems, new Random(seed));
+        return contentItems;
+    }
+
+    private JsonObject createNotification(final int index, final String type, final SimpleDateFormat dateFormat) {
+        final int project = index % PROJECT_COUNT;
+        final int component = index % COMPONENT_COUNT;
+        final JsonObject content = new JsonObject();
+        if (VULNERABILITY.equals(type)) {
+            final JsonArray newIds = new JsonArray();
+            newIds.add(createVulnerabilityIdJson("CVE-2017-" + index));
+            content.addProperty("newVulnerabilityCount", 1);
+            content.add("newVulnerabilityIds", newIds);
+            content.addProperty("updatedVulnerabilityCount", 0);
+            content.add("updatedVulnerabilityIds", new JsonArray());
+            content.addProperty("deletedVulnerabilityCount", 0);
+            content.add("deletedVulnerabilityIds", new JsonArray());
+            content.addProperty("componentName", "component" + component);
+            content.addProperty("versionName", "1." + component);
+            content.addProperty("componentVersion", componentVersionUrl(component));
+            final JsonArray affectedProjectVersions = new JsonArray();
+            for (int affected = 0; affected < 2; affected++) {
+                final int affectedProject = (project + affected) % PROJECT_COUNT;
+                final JsonObject affectedProjectVersion = new JsonObject();
+                affectedProjectVersion.addProperty("projectName", "project" + affectedProject);
+                affectedProjectVersion.addProperty("projectVersionName", "version" + affectedProject);
+                affectedProjectVersion.addProperty("projectVersion", projectVersionUrl(affectedProject));
+                affectedProjectVersions.add(affectedProjectVersion);
+            }
+            content.add("affectedProjectVersions", affectedProjectVersions);
+        } else {
+            content.addProperty("projectName", "project" + project);
+            content.addProperty("projectVersionName", "version" + project);
+            content.addProperty("projectVersion", projectVersionUrl(project));
+            final JsonArray policies = new JsonArray();
+            policies.add(ruleUrl(index % RULE_COUNT));
+            policies.add(ruleUrl((index + 1) % RULE_COUNT));
+            if (POLICY_OVERRIDE.equals(type)) {
+                content.addProperty("componentName", "component" + component);
+                content.addProperty("componentVersionName", "1." + component);
+                content.addProperty("firstName", "First");
+                content.addProperty("lastName", "Last");
+                content.addProperty("component", componentUrl(component));
+                content.addProperty("componentVersion", componentVersionUrl(component));
+                content.addProperty("bomComponentVersionPolicyStatus", policyStatusUrl(VersionBomPolicyStatusOverallStatusEnum.IN_VIOLATION_OVERRIDDEN));
+                content.add("policies", policies);
+            } else {
+                final JsonObject componentVersionStatus = new JsonObject();
+                componentVersionStatus.addProperty("componentName", "component" + component);
+                componentVersionStatus.addProperty("component", componentUrl(component));
+                componentVersionStatus.addProperty("componentVersion", componentVersionUrl(component));
+                componentVersionStatus.addProperty("bomComponentVersionPolicyStatus", policyStatusUrl(VersionBomPolicyStatusOverallStatusEnum.IN_VIOLATION));
+                componentVersionStatus.add("policies", policies);
+                final JsonArray componentVersionStatuses = new JsonArray();
+                componentVersionStatuses.add(componentVersionStatus);
+                content.addProperty("componentVersionsInViolation", 1);
+                content.add("componentVersionStatuses", componentVersionStatuses);
+            }
+        }
+
+        final JsonObject notification = new JsonObject();
+        notification.addProperty("type", type);
+        notification.addProperty("contentType", "application/json");
+        notification.addProperty("createdAt", dateFormat.format(new Date(START_TIME + index * 1000L)));
+        notification.add("content", content);
+        notification.add("_meta", createMeta(InMemoryRestConnection.HUB_URL + NOTIFICATIONS_PATH + "/" + index));
+        return notification;
+    }
+
+    private JsonObject createProjectVersion(final int project) {
+        final String href = projectVersionUrl(project);
+        final JsonObject meta = createMeta(href);
+        final JsonArray links = new JsonArray();
+        links.add(createLink("codelocations", href + "/codelocations"));
+        links.add(createLink("components", href + "/components"));
+        links.add(createLink("policy-status", href + "/policy-status"));
+        links.add(createLink("project", InMemoryRestConnection.HUB_URL + "/api/projects/p" + project));
+        links.add(createLink("riskProfile", href + "/risk-profile"));
+        links.add(createLink("versionReport", href + "/reports"));
+        links.add(createLink("vulnerable-components", href + "/vulnerable-bom-components"));
+        meta.add("links", links);
+        final JsonObject json = new JsonObject();
+        json.addProperty("versionName", "version" + project);
+        json.addProperty("nickname", "nickname" + project);
+        json.addProperty("releaseComments", "");
+        json.add("_meta", meta);
+        return json;
+    }
+
+    private JsonObject createComponentVersion(final int component) {
+        final String href = componentVersionUrl(component);
+        final JsonObject meta = createMeta(href);
+        final JsonArray links = new JsonArray();
+        links.add(createLink("vulnerabilities", href + "/vulnerabilities"));
+        meta.add("links", links);
+        final JsonObject json = new JsonObject();
+        json.addProperty("versionName", "1." + component);
+        json.add("_meta", meta);
+        return json;
+    }
+
+    private JsonObject createMeta(final String href) {
+        final JsonArray allow = new JsonArray();
+        allow.add("GET");
+        final JsonObject meta = new JsonObject();
+        meta.add("allow", allow);
+        meta.addProperty("href", href);
+        meta.add("links", new JsonArray());
+        return meta;
+    }
+
+    private JsonObject createLink(final String rel, final String href) {
+        final JsonObject link = new JsonObject();
+        link.addProperty("rel", rel);
+        link.addProperty("href", href);
+        return link;
+    }
+
+    private JsonObject createVulnerabilityIdJson(final String vulnerabilityId) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("source", "NVD");
+        json.addProperty("vulnerabilityId", vulnerabilityId);
+        return json;
+    }
+
+    private VulnerabilitySourceQualifiedId createVulnerabilityId(final String vulnerabilityId) {
+        final VulnerabilitySourceQualifiedId id = new VulnerabilitySourceQualifiedId();
+        id.setSource(EventTestUtil.VULN_SOURCE);
+        id.setVulnerabilityId(vulnerabilityId);
+        return id;
+    }
+
+    private String projectVersionUrl(final int project) {
+        return InMemoryRestConnection.HUB_URL + "/api/projects/p" + project + "/versions/v" + project;
+    }
+
+    private String componentUrl(final int component) {
+        return InMemoryRestConnection.HUB_URL + "/api/components/c" + component;
+    }
+
+    private String componentVersionUrl(final int component) {
+        return componentUrl(component) + "/versions/cv" + component;
+    }
+
+    private String ruleUrl(final int rule) {
+        return InMemoryRestConnection.HUB_URL + "/api/policy-rules/r" + rule;
+    }
+
+    private String policyStatusUrl(final VersionBomPolicyStatusOverallStatusEnum status) {
+        return InMemoryRestConnection.HUB_URL + "/api/policy-status/" + status.name();
+    }
+
+}
@@ -26,12 +26,21 @@ package com.blackducksoftware.integration.hub;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.blackducksoftware.integration.log.IntLogger;
 
+/**
+ * Copies the CLI output to the log file and splits it into log messages for the logger. A message is a line with a log
+ * level, or one of the other markers, and the lines without one that follow it.
+ *
+ * The output is split into lines as bytes and each line is decoded as UTF-8 once it is complete, since the bytes of a
+ * line break never occur inside a multi-byte character. The markers of a line are found in the same single pass over
+ * its bytes, and the lines of messages that are not logged, such as DEBUG and TRACE messages, are never decoded.
+ */
 public class ScannerSplitStream extends OutputStream {
     // https://www.cs.cmu.edu/~pattis/15-1XX/common/handouts/ascii.html
     private static final int EOF = -1; // End of file
@@ -44,31 +53,58 @@ public class ScannerSplitStream extends OutputStream {
 
     private static final int CR = 13; // Carriage return
 
-    private static final String EXCEPTION = "Exception:";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private static final int EXCEPTION = 1;
+
+    private static final int FINISHED = 1 << 1;
+
+    private static final int ERROR = 1 << 2;
+
+    private static final int WARN = 1 << 3;
+
+    private static final int INFO = 1 << 4;
 
-    private static final String FINISHED = "Finished in";
+    private static final int DEBUG = 1 << 5;
 
-    private static final String ERROR = "ERROR:";
+    private static final int TRACE = 1 << 6;
 
-    private static final String WARN = "WARN:";
+    private static final int LOGGED_MARKERS = EXCEPTION | FINISHED | ERROR | WARN | INFO;
 
-    private static final String INFO = "INFO:";
+    private static final int HIDDEN_MARKERS = DEBUG | TRACE;
 
-    private static final String DEBUG = "DEBUG:";
+    // the markers ending in a colon, in lower case, indexed by their flag's bit
+    private static final byte[][] COLON_MARKERS = new byte[7][];
 
-    private static final String TRACE = "TRACE:";
+    private static final byte[] FINISHED_MARKER = bytes("finished in");
+
+    static {
+        COLON_MARKERS[0] = bytes("exception:");
+        COLON_MARKERS[2] = bytes("error:");
+        COLON_MARKERS[3] = bytes("warn:");
+        COLON_MARKERS[4] = bytes("info:");
+        COLON_MARKERS[5] = bytes("debug:");
+        COLON_MARKERS[6] = bytes("trace:");
+    }
 
     private final OutputStream outputFileStream;
 
     private final IntLogger logger;
 
-    private String output = "";
+    private final StringBuilder output = new StringBuilder();
+
+    // the message being collected, only kept when it will be logged
+    private final StringBuilder lineBuffer = new StringBuilder();
+
+    private boolean lineBufferEmpty = true;
 
-    private String lineBuffer = "";
+    private int lineBufferMarkers;
 
-    private String currentLine = "";
+    private byte[] currentLine = new byte[8192];
 
-    private int previousCodePoint = -1;
+    private int currentLineLength;
+
+    private int previousByte = -1;
 
     public ScannerSplitStream(final IntLogger logger, final OutputStream outputFileStream) {
         this.outputFileStream = outputFileStream;
@@ -76,7 +112,7 @@ public class ScannerSplitStream extends OutputStream {
     }
 
     public String getOutput() {
-        return output;
+        return output.toString();
     }
 
     public Boolean hasOutput() {
@@ -90,110 +126,69 @@ public class ScannerSplitStream extends OutputStream {
         if (EOF == codePoint) {
             throw new EOFException();
         }
-
-        boolean atLineEnd = false;
-        if (ETX == codePoint || EOT == codePoint) {
-            atLineEnd = true;
-        } else if (LF == codePoint && CR != previousCodePoint) {
-            atLineEnd = true;
-        } else if (LF == codePoint && CR == previousCodePoint) {
-            atLineEnd = true;
-            // also need to remove the previously consumed CR
-            currentLine = currentLine.substring(0, currentLine.length() - 1);
-        } else if (LF != codePoint && CR == previousCodePoint) {
-            processLine(currentLine);
-            currentLine = "";
-        }
-        previousCodePoint = codePoint;
-
-        if (atLineEnd) {
-            processLine(currentLine);
-            currentLine = "";
-        } else {
-            final String stringAscii = new String(Character.toChars(codePoint));
-            currentLine += stringAscii;
-        }
+        split(codePoint & 0xff);
     }
 
-    private Boolean isLoggableLine(final String line) {
-        if (StringUtils.containsIgnoreCase(line, ERROR)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, WARN)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, INFO)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, DEBUG)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, TRACE)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, EXCEPTION)) {
-            return true;
-        }
-        if (StringUtils.containsIgnoreCase(line, FINISHED)) {
-            return true;
-        }
-        return false;
+    @Override
+    public void write(final byte[] byteArray) throws IOException {
+        write(byteArray, 0, byteArray.length);
     }
 
-    private void processLine(final String line) throws UnsupportedEncodingException {
-        if (lineBuffer.length() == 0) {
-            // First log line found, put it in the buffer
-            lineBuffer = line;
-        } else if (isLoggableLine(line)) {
-            // next real log message came in, print the log in the buffer
-            // print stored lines
-            writeToConsole(lineBuffer);
+    @Override
+    public void write(final byte[] byteArray, final int offset, final int length) throws IOException {
+        outputFileStream.write(byteArray, offset, length);
 
-            // replace with the current line
-            lineBuffer = line;
-        } else {
-            // We assume that each new log starts with the log level, if this
-            // line does not contain a log level it
-            // must only be a piece of a log
-            // needs to be added into the buffer
-            final StringBuilder builder = new StringBuilder();
-            builder.append(lineBuffer);
-
-            builder.append(System.getProperty("line.separator"));
-            builder.append(line);
-            lineBuffer = builder.toString();
+        final int end = offset + length;
+        for (int index = offset; index < end; index++) {
+            split(byteArray[index] & 0xff);
         }
     }
 
-    @Override
-    public void write(final byte[] byteArray) throws IOException {
-        outputFileStream.write(byteArray);
-
-        final String currentLine = new String(byteArray, "UTF-8");
-        if (currentLine.contains(System.getProperty("line.separator"))) {
-            final String[] splitLines = currentLine.split(System.getProperty("line.separator"));
-
-            for (final String line : splitLines) {
-                processLine(line);
+    private void split(final int currentByte) {
+        if (LF == currentByte) {
+            if (CR != previousByte) {
+                endLine();
             }
+            // otherwise the line already ended at the CR
+        } else if (CR == currentByte || ETX == currentByte || EOT == currentByte) {
+            endLine();
         } else {
-            processLine(currentLine);
+            if (currentLineLength == currentLine.length) {
+                currentLine = Arrays.copyOf(currentLine, currentLine.length * 2);
+            }
+            currentLine[currentLineLength++] = (byte) currentByte;
         }
+        previousByte = currentByte;
     }
 
-    @Override
-    public void write(final byte[] byteArray, final int offset, final int length) throws IOException {
-        outputFileStream.write(byteArray, offset, length);
+    private void endLine() {
+        processLine(currentLine, currentLineLength);
+        currentLineLength = 0;
+    }
 
-        final String currentLine = new String(byteArray, offset, length, "UTF-8");
-        if (currentLine.contains(System.getProperty("line.separator"))) {
-            final String[] splitLines = currentLine.split(System.getProperty("line.separator"));
+    private void processLine(final byte[] line, final int length) {
+        final int markers = findMarkers(line, length);
+        if (lineBufferEmpty) {
+            // First log line found, put it in the buffer
+            startMessage(line, length, markers);
+        } else if (markers != 0) {
+            // next real log message came in, print the log in the buffer
+            writeToConsole(lineBuffer, lineBufferMarkers);
+            startMessage(line, length, markers);
+        } else if (isLogged(lineBufferMarkers)) {
+            // We assume that each new log starts with the log level, if this line does not contain a log level it must
+            // only be a piece of a log and is added to the buffer
+            lineBuffer.append(LINE_SEPARATOR);
+            lineBuffer.append(decode(line, length));
+        }
+    }
 
-            for (final String line : splitLines) {
-                processLine(line);
-            }
-        } else {
-            processLine(currentLine);
+    private void startMessage(final byte[] line, final int length, final int markers) {
+        lineBuffer.setLength(0);
+        lineBufferEmpty = length == 0;
+        lineBufferMarkers = markers;
+        if (isLogged(markers)) {
+            lineBuffer.append(decode(line, length));
         }
     }
 
@@ -202,12 +197,20 @@ public class ScannerSplitStream extends OutputStream {
         outputFileStream.flush();
 
         // Print whatever is left in the buffer
-        writeToConsole(lineBuffer);
-        lineBuffer = "";
+        writeToConsole(lineBuffer, lineBufferMarkers);
+        lineBuffer.setLength(0);
+        lineBufferEmpty = true;
+        lineBufferMarkers = 0;
         // Print whatever is left in the buffer
-        if (StringUtils.isNotBlank(currentLine)) {
-            writeToConsole(currentLine);
-            currentLine = "";
+        if (currentLineLength > 0) {
+            final int markers = findMarkers(currentLine, currentLineLength);
+            if (isLogged(markers)) {
+                final String line = decode(currentLine, currentLineLength);
+                if (StringUtils.isNotBlank(line)) {
+                    writeToConsole(line, markers);
+                }
+            }
+            currentLineLength = 0;
         }
     }
 
@@ -219,37 +222,73 @@ public class ScannerSplitStream extends OutputStream {
         // if you do
     }
 
-    private void writeToConsole(final String line) {
-        if (StringUtils.containsIgnoreCase(line, DEBUG) || StringUtils.containsIgnoreCase(line, TRACE)) {
+    private void writeToConsole(final CharSequence message, final int markers) {
+        if (!isLogged(markers)) {
             // We dont want to print Debug or Trace logs to the logger
             return;
         }
-        final StringBuilder outputBuilder = new StringBuilder();
-        outputBuilder.append(output);
-        if (StringUtils.containsIgnoreCase(line, EXCEPTION)) {
+        final String line = message.toString();
+        output.append(line);
+        output.append(LINE_SEPARATOR);
+        if ((markers & EXCEPTION) != 0) {
             // looking for 'Exception in thread' type messages
-            outputBuilder.append(line);
-            outputBuilder.append(System.getProperty("line.separator"));
             logger.error(line);
-        } else if (StringUtils.containsIgnoreCase(line, FINISHED)) {
-            outputBuilder.append(line);
-            outputBuilder.append(System.getProperty("line.separator"));
+        } else if ((markers & FINISHED) != 0) {
             logger.info(line);
-        } else if (StringUtils.containsIgnoreCase(line, ERROR)) {
-            outputBuilder.append(line);
-            outputBuilder.append(System.getProperty("line.separator"));
+        } else if ((markers & ERROR) != 0) {
             logger.error(line);
-        } else if (StringUtils.containsIgnoreCase(line, WARN)) {
-            outputBuilder.append(line);
-            outputBuilder.append(System.getProperty("line.separator"));
+        } else if ((markers & WARN) != 0) {
             logger.warn(line);
-        } else if (StringUtils.containsIgnoreCase(line, INFO)) {
-            outputBuilder.append(line);
-            outputBuilder.append(System.getProperty("line.separator"));
+        } else {
             logger.info(line);
         }
+    }
+
+    private boolean isLogged(final int markers) {
+        return (markers & HIDDEN_MARKERS) == 0 && (markers & LOGGED_MARKERS) != 0;
+    }
+
+    private String decode(final byte[] line, final int length) {
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds every marker in the line, ignoring ASCII case, by checking for the markers ending in a colon only at the
+     * colons of the line and for 'Finished in' only where an f is.
+     */
+    static int findMarkers(final byte[] line, final int length) {
+        int markers = 0;
+        for (int index = 0; index < length; index++) {
+            final byte current = line[index];
+            if (':' == current) {
+                for (int bit = 0; bit < COLON_MARKERS.length; bit++) {
+                    final byte[] marker = COLON_MARKERS[bit];
+                    if (marker != null && index + 1 >= marker.length && matches(line, index + 1 - marker.length, marker)) {
+                        markers |= 1 << bit;
+                    }
+                }
+            } else if (('f' == current || 'F' == current) && index + FINISHED_MARKER.length <= length && matches(line, index, FINISHED_MARKER)) {
+                markers |= FINISHED;
+            }
+        }
+        return markers;
+    }
+
+    private static boolean matches(final byte[] line, final int offset, final byte[] lowerCaseMarker) {
+        for (int index = 0; index < lowerCaseMarker.length; index++) {
+            int current = line[offset + index];
+            if (current >= 'A' && current <= 'Z') {
+                current += 'a' - 'A';
+            }
+            if (current != lowerCaseMarker[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        output = outputBuilder.toString();
+    private static byte[] bytes(final String marker) {
+        return marker.getBytes(StandardCharsets.US_ASCII);
     }
 
 }
@@ -44,12 +44,11 @@ public class StreamRedirectThread extends Thread {
     @Override
     public void run() {
         try {
-            int i;
-            while ((i = in.read()) >= 0) {
-                if (i == -1) {
-                    break;
-                }
-                out.write(i);
+            // copied in blocks of whatever is available rather than a byte at a time
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
             }
         } catch (final IOException e) {
             // Ignore
@@ -32,6 +32,7 @@ import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
 import com.blackducksoftware.integration.hub.request.HubPagedRequest;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.service.PageListener;
 
 public class AggregateBomRequestService extends HubResponseService {
     private final MetaService metaService;
@@ -52,4 +53,22 @@ public class AggregateBomRequestService extends HubResponseService {
         return allComponentItems;
     }
 
+    public int getBomEntryCount(final ProjectVersionView projectVersion) throws IntegrationException {
+        final String componentURL = metaService.getFirstLink(projectVersion, MetaService.COMPONENTS_LINK);
+        return getTotalCount(componentURL);
+    }
+
+    /**
+     * Pages through the BOM like getBomEntries, handing each page to the listener as soon as it arrives.
+     */
+    public void getBomEntries(final ProjectVersionView projectVersion, final PageListener<VersionBomComponentView> listener) throws IntegrationException {
+        final String componentURL = metaService.getFirstLink(projectVersion, MetaService.COMPONENTS_LINK);
+        getBomEntries(componentURL, listener);
+    }
+
+    public void getBomEntries(final String componentsUrl, final PageListener<VersionBomComponentView> listener) throws IntegrationException {
+        final HubPagedRequest hubPagedRequest = getHubRequestFactory().createPagedRequest(componentsUrl);
+        getAllItems(hubPagedRequest, VersionBomComponentView.class, listener);
+    }
+
 }
@@ -24,23 +24,113 @@
 package com.blackducksoftware.integration.hub.api.item;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.meta.MetaAllowEnum;
 import com.blackducksoftware.integration.hub.model.HubView;
 
 public class HubViewFilter<T extends HubView> {
+    /**
+     * An item is accessible when it allows both GET and PUT.
+     */
+    public static final Set<MetaAllowEnum> ACCESSIBLE_METHODS = Collections.unmodifiableSet(EnumSet.of(MetaAllowEnum.GET, MetaAllowEnum.PUT));
+
+    private static final EnumSet<MetaAllowEnum> ACCESSIBLE_METHOD_SET = EnumSet.copyOf(ACCESSIBLE_METHODS);
+
     public List<T> getAccessibleItems(final MetaService metaService, final List<T> hubItems) throws HubIntegrationException {
         final List<T> accessibleItems = new ArrayList<>();
         for (final T hubItem : hubItems) {
-            final List<MetaAllowEnum> allow = metaService.getAllowedMethods(hubItem);
-            if (allow != null && !allow.isEmpty() && allow.contains(MetaAllowEnum.GET)
-                    && allow.contains(MetaAllowEnum.PUT)) {
+            if (metaService.getAllowedMethodSet(hubItem).containsAll(ACCESSIBLE_METHOD_SET)) {
                 accessibleItems.add(hubItem);
             }
         }
         return accessibleItems;
     }
 
+    /**
+     * Lazily filters the items by their allowed methods: nothing is copied, and an item is only evaluated when the
+     * iteration reaches it, so each iteration evaluates the items again. Items without allow information never match.
+     */
+    public Iterable<T> filterByAllowedMethods(final MetaService metaService, final List<T> hubItems, final AllowPredicate allowPredicate) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new FilteringIterator(metaService, hubItems.iterator(), allowPredicate);
+            }
+        };
+    }
+
+    public Iterable<T> filterAccessibleItems(final MetaService metaService, final List<T> hubItems) {
+        return filterByAllowedMethods(metaService, hubItems, allowing(ACCESSIBLE_METHODS));
+    }
+
+    /**
+     * A predicate matching allow sets that contain every one of the required methods.
+     */
+    public static AllowPredicate allowing(final Set<MetaAllowEnum> requiredMethods) {
+        final Set<MetaAllowEnum> required = requiredMethods.isEmpty() ? EnumSet.noneOf(MetaAllowEnum.class) : EnumSet.copyOf(requiredMethods);
+        return new AllowPredicate() {
+            @Override
+            public boolean test(final Set<MetaAllowEnum> allowSet) {
+                return allowSet.containsAll(required);
+            }
+        };
+    }
+
+    /**
+     * A condition on the set of methods an item allows.
+     */
+    public interface AllowPredicate {
+        public boolean test(Set<MetaAllowEnum> allowSet);
+    }
+
+    private class FilteringIterator implements Iterator<T> {
+        private final MetaService metaService;
+
+        private final Iterator<T> hubItems;
+
+        private final AllowPredicate allowPredicate;
+
+        private T next;
+
+        public FilteringIterator(final MetaService metaService, final Iterator<T> hubItems, final AllowPredicate allowPredicate) {
+            this.metaService = metaService;
+            this.hubItems = hubItems;
+            this.allowPredicate = allowPredicate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && hubItems.hasNext()) {
+                final T hubItem = hubItems.next();
+                final Set<MetaAllowEnum> allowSet = metaService.getAllowedMethodSetSafely(hubItem);
+                if (allowSet != null && allowPredicate.test(allowSet)) {
+                    next = hubItem;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T hubItem = next;
+            next = null;
+            return hubItem;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
 }
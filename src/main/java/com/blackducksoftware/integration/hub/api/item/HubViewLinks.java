@@ -0,0 +1,156 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.item;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.blackducksoftware.integration.hub.meta.MetaAllowEnum;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * The _meta section of one HubView's json, parsed once: the href, the raw allow values and the recognized ones as an
+ * EnumSet, and the links as a map from rel to hrefs in document order. A null field means the json had no such element.
+ */
+class HubViewLinks {
+    // weak, so an entry that outlives its view does not keep the view's json alive
+    private final WeakReference<String> json;
+
+    private final boolean hasMeta;
+
+    private final String href;
+
+    private final List<String> allow;
+
+    private final Set<MetaAllowEnum> allowSet;
+
+    private final Map<String, List<String>> links;
+
+    private HubViewLinks(final String json, final boolean hasMeta, final String href, final List<String> allow, final Set<MetaAllowEnum> allowSet,
+            final Map<String, List<String>> links) {
+        this.json = new WeakReference<>(json);
+        this.hasMeta = hasMeta;
+        this.href = href;
+        this.allow = allow;
+        this.allowSet = allowSet;
+        this.links = links;
+    }
+
+    public static HubViewLinks parse(final JsonParser jsonParser, final String json) {
+        final JsonObject jsonObject = jsonParser.parse(json).getAsJsonObject();
+        final JsonElement metaElement = jsonObject.get("_meta");
+        if (metaElement == null) {
+            return new HubViewLinks(json, false, null, null, null, null);
+        }
+        final JsonObject metaJson = metaElement.getAsJsonObject();
+
+        final JsonElement hrefElement = metaJson.get("href");
+        final String href = hrefElement == null ? null : hrefElement.getAsString();
+
+        List<String> allow = null;
+        Set<MetaAllowEnum> allowSet = null;
+        final JsonElement allowElement = metaJson.get("allow");
+        if (allowElement != null) {
+            allow = new ArrayList<>();
+            final EnumSet<MetaAllowEnum> recognized = EnumSet.noneOf(MetaAllowEnum.class);
+            for (final JsonElement allowValue : allowElement.getAsJsonArray()) {
+                final String value = allowValue.getAsString();
+                allow.add(value);
+                final MetaAllowEnum method = toMetaAllow(value);
+                if (method != null) {
+                    recognized.add(method);
+                }
+            }
+            allow = Collections.unmodifiableList(allow);
+            allowSet = Collections.unmodifiableSet(recognized);
+        }
+
+        Map<String, List<String>> links = null;
+        final JsonElement linksElement = metaJson.get("links");
+        if (linksElement != null) {
+            links = new LinkedHashMap<>();
+            for (final JsonElement linkElement : linksElement.getAsJsonArray()) {
+                final JsonObject linkObject = linkElement.getAsJsonObject();
+                final String rel = linkObject.get("rel").getAsString();
+                final String linkHref = linkObject.get("href").getAsString();
+                List<String> hrefs = links.get(rel);
+                if (hrefs == null) {
+                    hrefs = new ArrayList<>(1);
+                    links.put(rel, hrefs);
+                }
+                hrefs.add(linkHref);
+            }
+            for (final Map.Entry<String, List<String>> entry : links.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            links = Collections.unmodifiableMap(links);
+        }
+        return new HubViewLinks(json, true, href, allow, allowSet, links);
+    }
+
+    private static MetaAllowEnum toMetaAllow(final String value) {
+        for (final MetaAllowEnum method : MetaAllowEnum.values()) {
+            if (method.name().equals(value)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True if this index was built from exactly this json instance, so a view whose json was replaced is re-parsed.
+     */
+    public boolean isFor(final String json) {
+        return this.json.get() == json;
+    }
+
+    public boolean hasMeta() {
+        return hasMeta;
+    }
+
+    public String getHref() {
+        return href;
+    }
+
+    public List<String> getAllow() {
+        return allow;
+    }
+
+    public Set<MetaAllowEnum> getAllowSet() {
+        return allowSet;
+    }
+
+    public Map<String, List<String>> getLinks() {
+        return links;
+    }
+
+}
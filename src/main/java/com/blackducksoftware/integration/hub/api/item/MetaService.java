@@ -25,14 +25,13 @@ package com.blackducksoftware.integration.hub.api.item;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.meta.MetaAllowEnum;
 import com.blackducksoftware.integration.hub.model.HubView;
 import com.blackducksoftware.integration.log.IntLogger;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 public class MetaService {
@@ -82,6 +81,8 @@ public class MetaService {
 
     public static final String TEXT_LINK = "text";
 
+    private static final WeakIdentityCache<HubView, HubViewLinks> LINK_INDEX_CACHE = new WeakIdentityCache<>();
+
     private final IntLogger logger;
 
     private final JsonParser jsonParser;
@@ -92,139 +93,144 @@ public class MetaService {
     }
 
     public boolean hasLink(final HubView item, final String linkKey) throws HubIntegrationException {
-        final JsonArray linksArray = getLinks(item);
-        if (linksArray == null) {
-            return false;
-        }
-        for (final JsonElement linkElement : linksArray) {
-            final JsonObject linkObject = linkElement.getAsJsonObject();
-            final String rel = linkObject.get("rel").getAsString();
-            if (rel.equals(linkKey)) {
-                return true;
-            }
-        }
-        return false;
+        return getLinks(item).containsKey(linkKey);
     }
 
     public String getFirstLink(final HubView item, final String linkKey) throws HubIntegrationException {
-        final JsonArray linksArray = getLinks(item);
-        if (linksArray == null) {
-            throw new HubIntegrationException("Could not find any links for this item : " + item.getJson());
+        final Map<String, List<String>> links = getLinks(item);
+        final List<String> hrefs = links.get(linkKey);
+        if (hrefs != null) {
+            return hrefs.get(0);
         }
-
-        final StringBuilder linksAvailable = new StringBuilder();
-        linksAvailable.append("Could not find the link '" + linkKey + "', these are the available links : ");
-        int i = 0;
-        for (final JsonElement linkElement : linksArray) {
-            final JsonObject linkObject = linkElement.getAsJsonObject();
-            final String rel = linkObject.get("rel").getAsString();
-            if (rel.equals(linkKey)) {
-                return linkObject.get("href").getAsString();
-            }
-            if (i > 0) {
-                linksAvailable.append(", ");
-            }
-            linksAvailable.append("'" + rel + "'");
-            i++;
-        }
-        linksAvailable.append(". For Item : " + getHref(item));
-        throw new HubIntegrationException(linksAvailable.toString());
+        throw new HubIntegrationException(createMissingLinkMessage(item, linkKey, links));
     }
 
+    /**
+     * For optional links: returns null when the item has no such link, or no links at all, without creating an
+     * exception or a message. Use getFirstLink when the link is required and the failure should be explained.
+     */
     public String getFirstLinkSafely(final HubView item, final String linkKey) {
-        try {
-            final String link = getFirstLink(item, linkKey);
-            return link;
-        } catch (final HubIntegrationException e) {
-            logger.debug("Link '" + linkKey + "' not found on item");
+        final HubViewLinks viewLinks = getViewLinks(item);
+        if (!viewLinks.hasMeta() || viewLinks.getLinks() == null) {
+            return null;
+        }
+        final List<String> hrefs = viewLinks.getLinks().get(linkKey);
+        if (hrefs == null) {
             return null;
         }
+        return hrefs.get(0);
     }
 
     public List<String> getLinks(final HubView item, final String linkKey) throws HubIntegrationException {
-        final JsonArray linksArray = getLinks(item);
-        if (linksArray == null) {
-            throw new HubIntegrationException("Could not find any links for this item : " + item.getJson());
+        final Map<String, List<String>> links = getLinks(item);
+        final List<String> hrefs = links.get(linkKey);
+        if (hrefs != null) {
+            return new ArrayList<>(hrefs);
         }
+        throw new HubIntegrationException(createMissingLinkMessage(item, linkKey, links));
+    }
 
-        final List<String> links = new ArrayList<>();
+    private String createMissingLinkMessage(final HubView item, final String linkKey, final Map<String, List<String>> links) throws HubIntegrationException {
         final StringBuilder linksAvailable = new StringBuilder();
         linksAvailable.append("Could not find the link '" + linkKey + "', these are the available links : ");
         int i = 0;
-        for (final JsonElement linkElement : linksArray) {
-            final JsonObject linkObject = linkElement.getAsJsonObject();
-            final String rel = linkObject.get("rel").getAsString();
-            final String linkValue = linkObject.get("href").getAsString();
-            if (rel.equals(linkKey)) {
-                links.add(linkValue);
-            }
+        for (final String rel : links.keySet()) {
             if (i > 0) {
                 linksAvailable.append(", ");
             }
             linksAvailable.append("'" + rel + "'");
             i++;
         }
-        if (!links.isEmpty()) {
-            return links;
-        }
         linksAvailable.append(". For Item : " + getHref(item));
-        throw new HubIntegrationException(linksAvailable.toString());
+        return linksAvailable.toString();
     }
 
-    private JsonArray getLinks(final HubView item) throws HubIntegrationException {
-        final JsonObject metaJson = getMeta(item);
-        final JsonElement linksElement = metaJson.get("links");
-        if (linksElement == null) {
+    private Map<String, List<String>> getLinks(final HubView item) throws HubIntegrationException {
+        final Map<String, List<String>> links = getMeta(item).getLinks();
+        if (links == null) {
             if (logger != null) {
                 logger.error("Hub Item has no links : " + item.getJson());
             }
             throw new HubIntegrationException("This Hub item does not have any link information.");
         }
-        return linksElement.getAsJsonArray();
+        return links;
     }
 
     public List<MetaAllowEnum> getAllowedMethods(final HubView item) throws HubIntegrationException {
         final List<MetaAllowEnum> allows = new ArrayList<>();
-        final JsonObject metaJson = getMeta(item);
-        final JsonElement allowElement = metaJson.get("allow");
-        if (allowElement == null) {
+        final List<String> allowValues = getMeta(item).getAllow();
+        if (allowValues == null) {
             if (logger != null) {
                 logger.error("Hub Item has no allow : " + item.getJson());
             }
             throw new HubIntegrationException("This Hub item does not have any allow information.");
         }
-        final JsonArray allowArray = allowElement.getAsJsonArray();
-        for (final JsonElement allow : allowArray) {
-            allows.add(MetaAllowEnum.valueOf(allow.getAsString()));
+        for (final String allow : allowValues) {
+            allows.add(MetaAllowEnum.valueOf(allow));
         }
 
         return allows;
     }
 
+    /**
+     * The allowed methods as an EnumSet computed once per item, so membership tests are bit tests. Values this version
+     * of MetaAllowEnum does not know are left out.
+     */
+    public Set<MetaAllowEnum> getAllowedMethodSet(final HubView item) throws HubIntegrationException {
+        final Set<MetaAllowEnum> allowSet = getMeta(item).getAllowSet();
+        if (allowSet == null) {
+            if (logger != null) {
+                logger.error("Hub Item has no allow : " + item.getJson());
+            }
+            throw new HubIntegrationException("This Hub item does not have any allow information.");
+        }
+        return allowSet;
+    }
+
+    /**
+     * Like getAllowedMethodSet, but returns null without logging when the item has no allow information.
+     */
+    Set<MetaAllowEnum> getAllowedMethodSetSafely(final HubView item) {
+        final HubViewLinks viewLinks = getViewLinks(item);
+        if (!viewLinks.hasMeta()) {
+            return null;
+        }
+        return viewLinks.getAllowSet();
+    }
+
     public String getHref(final HubView item) throws HubIntegrationException {
-        final JsonObject metaJson = getMeta(item);
-        final JsonElement hrefElement = metaJson.get("href");
-        if (hrefElement == null) {
+        final String href = getMeta(item).getHref();
+        if (href == null) {
             if (logger != null) {
                 logger.error("Hub Item has no href : " + item.getJson());
             }
             throw new HubIntegrationException("This Hub item does not have any href information.");
         }
-        return hrefElement.getAsString();
+        return href;
     }
 
-    private JsonObject getMeta(final HubView item) throws HubIntegrationException {
-        final String json = item.getJson();
-        final JsonElement element = jsonParser.parse(json);
-        final JsonObject jsonObject = element.getAsJsonObject();
-        final JsonElement metaElement = jsonObject.get("_meta");
-        if (metaElement == null) {
+    private HubViewLinks getMeta(final HubView item) throws HubIntegrationException {
+        final HubViewLinks viewLinks = getViewLinks(item);
+        if (!viewLinks.hasMeta()) {
             if (logger != null) {
                 logger.error("Hub Item has no meta : " + item.getJson());
             }
             throw new HubIntegrationException("This Hub item does not have meta information.");
         }
-        return metaElement.getAsJsonObject();
+        return viewLinks;
+    }
+
+    /**
+     * The _meta of an item is parsed once and kept for as long as the item is reachable, or until its json is replaced.
+     */
+    private HubViewLinks getViewLinks(final HubView item) {
+        final String json = item.getJson();
+        HubViewLinks viewLinks = LINK_INDEX_CACHE.get(item);
+        if (viewLinks == null || !viewLinks.isFor(json)) {
+            viewLinks = HubViewLinks.parse(jsonParser, json);
+            LINK_INDEX_CACHE.put(item, viewLinks);
+        }
+        return viewLinks;
     }
 
 }
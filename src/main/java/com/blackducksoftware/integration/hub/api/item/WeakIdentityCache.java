@@ -0,0 +1,91 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.item;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent cache keyed on object identity that does not keep its keys alive. HubView inherits a reflective
+ * equals and hashCode from HubComponent, which is both expensive and unstable for a mutable view, so a WeakHashMap
+ * cannot be used.
+ *
+ * Entries whose key was collected are removed on every access, which costs one poll of the reference queue when none
+ * are stale, so a cache that is only read still releases the values of collected keys.
+ */
+class WeakIdentityCache<K, V> {
+    private final ConcurrentHashMap<IdentityWeakReference<K>, V> entries = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    public V get(final K key) {
+        expungeStaleEntries();
+        return entries.get(new IdentityWeakReference<>(key, null));
+    }
+
+    public void put(final K key, final V value) {
+        expungeStaleEntries();
+        entries.put(new IdentityWeakReference<>(key, queue), value);
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    private void expungeStaleEntries() {
+        Object reference;
+        while ((reference = queue.poll()) != null) {
+            entries.remove(reference);
+        }
+    }
+
+    private static class IdentityWeakReference<T> extends WeakReference<T> {
+        private final int hashCode;
+
+        public IdentityWeakReference(final T referent, final ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            hashCode = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityWeakReference)) {
+                return false;
+            }
+            final Object referent = get();
+            return referent != null && referent == ((IdentityWeakReference<?>) obj).get();
+        }
+    }
+
+}
@@ -38,6 +38,7 @@ import java.util.TimeZone;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.dataservice.notification.metrics.NotificationMetricsListener;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.model.view.NotificationView;
 import com.blackducksoftware.integration.hub.model.view.PolicyOverrideNotificationView;
@@ -70,6 +71,8 @@ public class NotificationRequestService {
 
     private final Gson gson;
 
+    private volatile NotificationMetricsListener metricsListener;
+
     public NotificationRequestService(final IntLogger logger, final RestConnection restConnection, final MetaService metaService) {
         this.hubRequestFactory = new HubRequestFactory(restConnection);
         this.jsonParser = restConnection.jsonParser;
@@ -81,6 +84,13 @@ public class NotificationRequestService {
         typeMap.put("RULE_VIOLATION_CLEARED", RuleViolationClearedNotificationView.class);
     }
 
+    /**
+     * A null listener (the default) turns off all timing.
+     */
+    public void setMetricsListener(final NotificationMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     public List<NotificationView> getAllNotifications(final Date startDate, final Date endDate) throws IntegrationException {
         final SimpleDateFormat sdf = new SimpleDateFormat(RestConnection.JSON_DATE_FORMAT);
         sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -136,11 +146,17 @@ public class NotificationRequestService {
      * Will NOT make further paged requests to get the full list of items
      */
     public List<NotificationView> getItems(final HubPagedRequest hubPagedRequest) throws IntegrationException {
+        final NotificationMetricsListener listener = metricsListener;
+        final long startNanos = listener == null ? 0 : System.nanoTime();
         try (Response response = hubPagedRequest.executeGet()) {
             final String jsonResponse = response.body().string();
 
             final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
-            return getItems(jsonObject);
+            final List<NotificationView> items = getItems(jsonObject);
+            if (listener != null) {
+                listener.notificationPageFetched(System.nanoTime() - startNanos, items.size(), getBytesDecoded(response, jsonResponse));
+            }
+            return items;
         } catch (final IOException e) {
             throw new HubIntegrationException(e);
         }
@@ -153,12 +169,18 @@ public class NotificationRequestService {
         final LinkedList<NotificationView> allItems = new LinkedList<>();
         int totalCount = 0;
         int currentOffset = hubPagedRequest.offset;
+        final NotificationMetricsListener listener = metricsListener;
+        final long startNanos = listener == null ? 0 : System.nanoTime();
         try (Response response = hubPagedRequest.executeGet()) {
             final String jsonResponse = response.body().string();
 
             final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
             totalCount = jsonObject.get("totalCount").getAsInt();
-            allItems.addAll(getItems(jsonObject));
+            final List<NotificationView> firstPage = getItems(jsonObject);
+            if (listener != null) {
+                listener.notificationPageFetched(System.nanoTime() - startNanos, firstPage.size(), getBytesDecoded(response, jsonResponse));
+            }
+            allItems.addAll(firstPage);
             while (currentOffset < totalCount) {
                 currentOffset = currentOffset + hubPagedRequest.limit;
                 hubPagedRequest.offset = currentOffset;
@@ -170,4 +192,34 @@ public class NotificationRequestService {
         return allItems;
     }
 
+    private long getBytesDecoded(final Response response, final String jsonResponse) {
+        final long contentLength = response.body().contentLength();
+        if (contentLength >= 0) {
+            return contentLength;
+        }
+        // chunked responses have no length, so count the UTF-8 bytes the page was decoded from
+        return getUtf8Length(jsonResponse);
+    }
+
+    private long getUtf8Length(final String json) {
+        long length = 0;
+        for (int index = 0; index < json.length(); index++) {
+            final char current = json.charAt(index);
+            if (current < 0x80) {
+                length += 1;
+            } else if (current < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(current) && index + 1 < json.length() && Character.isLowSurrogate(json.charAt(index + 1))) {
+                length += 4;
+                index++;
+            } else if (Character.isSurrogate(current)) {
+                // an unpaired surrogate is encoded as '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
 }
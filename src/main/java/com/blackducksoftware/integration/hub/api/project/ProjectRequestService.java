@@ -39,6 +39,7 @@ import com.blackducksoftware.integration.hub.request.HubPagedRequest;
 import com.blackducksoftware.integration.hub.request.HubRequest;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.service.PageListener;
 import com.google.gson.JsonObject;
 
 import okhttp3.Response;
@@ -59,6 +60,14 @@ public class ProjectRequestService extends HubResponseService {
         return allProjectItems;
     }
 
+    /**
+     * Pages through the projects like getAllProjects, handing each page to the listener as soon as it arrives.
+     */
+    public void getAllProjects(final PageListener<ProjectView> listener) throws IntegrationException {
+        final HubPagedRequest hubPagedRequest = getHubRequestFactory().createPagedRequest(PROJECTS_SEGMENTS);
+        getAllItems(hubPagedRequest, ProjectView.class, listener);
+    }
+
     public List<ProjectView> getAllProjectMatches(final String projectName) throws IntegrationException {
         final HubPagedRequest hubPagedRequest = getHubRequestFactory().createPagedRequest(100, PROJECTS_SEGMENTS);
         if (StringUtils.isNotBlank(projectName)) {
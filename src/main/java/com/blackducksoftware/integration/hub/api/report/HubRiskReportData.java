@@ -23,99 +23,47 @@
  */
 package com.blackducksoftware.integration.hub.api.report;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 
-public class HubRiskReportData {
-    private VersionReport report;
-
-    private int totalBomEntries;
-
-    private int vulnerabilityRiskHighCount;
-
-    private int vulnerabilityRiskMediumCount;
-
-    private int vulnerabilityRiskLowCount;
-
-    private int vulnerabilityRiskNoneCount;
+import com.blackducksoftware.integration.hub.api.report.risk.RiskAggregate;
 
-    private int licenseRiskHighCount;
-
-    private int licenseRiskMediumCount;
-
-    private int licenseRiskLowCount;
-
-    private int licenseRiskNoneCount;
-
-    private int operationalRiskHighCount;
-
-    private int operationalRiskMediumCount;
+/**
+ * Risk counts for a version report. Either set a whole VersionReport, or pass a fresh instance to
+ * ReportRequestService.getReportContent as the listener to count the entries as they stream in, in which case only the
+ * counts and the summary are kept and getReport() returns null.
+ */
+public class HubRiskReportData implements VersionReportListener {
+    private VersionReport report;
 
-    private int operationalRiskLowCount;
+    private DetailedReleaseSummary detailedReleaseSummary;
 
-    private int operationalRiskNoneCount;
+    private RiskAggregate riskAggregate = new RiskAggregate();
 
     public void setReport(final VersionReport report) {
         this.report = report;
-
-        vulnerabilityRiskHighCount = 0;
-        vulnerabilityRiskMediumCount = 0;
-        vulnerabilityRiskLowCount = 0;
-
-        licenseRiskHighCount = 0;
-        licenseRiskMediumCount = 0;
-        licenseRiskLowCount = 0;
-
-        operationalRiskHighCount = 0;
-        operationalRiskMediumCount = 0;
-        operationalRiskLowCount = 0;
-
-        final List<AggregateBomViewEntry> bomEntries = report.getAggregateBomViewEntries();
-        for (final AggregateBomViewEntry bomEntry : bomEntries) {
-            if (bomEntry != null) {
-                if (bomEntry.getVulnerabilityRisk() != null) {
-                    if (bomEntry.getVulnerabilityRisk().getHIGH() > 0) {
-                        vulnerabilityRiskHighCount++;
-                    } else if (bomEntry.getVulnerabilityRisk().getMEDIUM() > 0) {
-                        vulnerabilityRiskMediumCount++;
-                    } else if (bomEntry.getVulnerabilityRisk().getLOW() > 0) {
-                        vulnerabilityRiskLowCount++;
-                    }
-                }
-                if (bomEntry.getLicenseRisk() != null) {
-                    if (bomEntry.getLicenseRisk().getHIGH() > 0) {
-                        licenseRiskHighCount++;
-                    } else if (bomEntry.getLicenseRisk().getMEDIUM() > 0) {
-                        licenseRiskMediumCount++;
-                    } else if (bomEntry.getLicenseRisk().getLOW() > 0) {
-                        licenseRiskLowCount++;
-                    }
-                }
-                if (bomEntry.getOperationalRisk() != null) {
-                    if (bomEntry.getOperationalRisk().getHIGH() > 0) {
-                        operationalRiskHighCount++;
-                    } else if (bomEntry.getOperationalRisk().getMEDIUM() > 0) {
-                        operationalRiskMediumCount++;
-                    } else if (bomEntry.getOperationalRisk().getLOW() > 0) {
-                        operationalRiskLowCount++;
-                    }
-                }
-            }
+        this.detailedReleaseSummary = report.getDetailedReleaseSummary();
+        riskAggregate = new RiskAggregate();
+        for (final AggregateBomViewEntry bomEntry : report.getAggregateBomViewEntries()) {
+            riskAggregate.add(bomEntry);
         }
+    }
 
-        totalBomEntries = bomEntries.size();
+    @Override
+    public void detailedReleaseSummaryReceived(final DetailedReleaseSummary detailedReleaseSummary) {
+        this.detailedReleaseSummary = detailedReleaseSummary;
+    }
 
-        vulnerabilityRiskNoneCount = totalBomEntries - vulnerabilityRiskHighCount - vulnerabilityRiskMediumCount
-                - vulnerabilityRiskLowCount;
-        licenseRiskNoneCount = totalBomEntries - licenseRiskHighCount - licenseRiskMediumCount - licenseRiskLowCount;
-        operationalRiskNoneCount = totalBomEntries - operationalRiskHighCount - operationalRiskMediumCount
-                - operationalRiskLowCount;
+    @Override
+    public void bomEntryReceived(final AggregateBomViewEntry bomEntry) {
+        riskAggregate.add(bomEntry);
     }
 
     public double getPercentage(final double count) {
-        final double totalCount = totalBomEntries;
+        final double totalCount = riskAggregate.getTotalComponents();
         double percentage = 0;
         if (totalCount > 0 && count > 0) {
             percentage = (count / totalCount) * 100;
@@ -131,6 +79,9 @@ public class HubRiskReportData {
     }
 
     public List<AggregateBomViewEntry> getBomEntries() {
+        if (report == null) {
+            return Collections.emptyList();
+        }
         return report.getAggregateBomViewEntries();
     }
 
@@ -138,52 +89,64 @@ public class HubRiskReportData {
         return report;
     }
 
+    public DetailedReleaseSummary getDetailedReleaseSummary() {
+        return detailedReleaseSummary;
+    }
+
+    public int getTotalBomEntries() {
+        return riskAggregate.getTotalComponents();
+    }
+
+    public RiskAggregate getRiskAggregate() {
+        return riskAggregate;
+    }
+
     public int getVulnerabilityRiskHighCount() {
-        return vulnerabilityRiskHighCount;
+        return riskAggregate.getVulnerabilityRiskHighCount();
     }
 
     public int getVulnerabilityRiskMediumCount() {
-        return vulnerabilityRiskMediumCount;
+        return riskAggregate.getVulnerabilityRiskMediumCount();
     }
 
     public int getVulnerabilityRiskLowCount() {
-        return vulnerabilityRiskLowCount;
+        return riskAggregate.getVulnerabilityRiskLowCount();
     }
 
     public int getVulnerabilityRiskNoneCount() {
-        return vulnerabilityRiskNoneCount;
+        return riskAggregate.getVulnerabilityRiskNoneCount();
     }
 
     public int getLicenseRiskHighCount() {
-        return licenseRiskHighCount;
+        return riskAggregate.getLicenseRiskHighCount();
     }
 
     public int getLicenseRiskMediumCount() {
-        return licenseRiskMediumCount;
+        return riskAggregate.getLicenseRiskMediumCount();
     }
 
     public int getLicenseRiskLowCount() {
-        return licenseRiskLowCount;
+        return riskAggregate.getLicenseRiskLowCount();
     }
 
     public int getLicenseRiskNoneCount() {
-        return licenseRiskNoneCount;
+        return riskAggregate.getLicenseRiskNoneCount();
     }
 
     public int getOperationalRiskHighCount() {
-        return operationalRiskHighCount;
+        return riskAggregate.getOperationalRiskHighCount();
     }
 
     public int getOperationalRiskMediumCount() {
-        return operationalRiskMediumCount;
+        return riskAggregate.getOperationalRiskMediumCount();
     }
 
     public int getOperationalRiskLowCount() {
-        return operationalRiskLowCount;
+        return riskAggregate.getOperationalRiskLowCount();
     }
 
     public int getOperationalRiskNoneCount() {
-        return operationalRiskNoneCount;
+        return riskAggregate.getOperationalRiskNoneCount();
     }
 
 }
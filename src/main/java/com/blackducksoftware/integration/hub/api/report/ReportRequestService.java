@@ -24,11 +24,19 @@
 package com.blackducksoftware.integration.hub.api.report;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.dataservice.scan.BackoffPollingStrategy;
+import com.blackducksoftware.integration.hub.dataservice.scan.ScanPollingStrategy;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.model.enumeration.ReportFormatEnum;
 import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
@@ -36,22 +44,40 @@ import com.blackducksoftware.integration.hub.model.view.ReportView;
 import com.blackducksoftware.integration.hub.request.HubRequest;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
+import com.blackducksoftware.integration.hub.util.SettableFuture;
 import com.blackducksoftware.integration.log.IntLogger;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 
 import okhttp3.Response;
 
 public class ReportRequestService extends HubResponseService {
     public final static long DEFAULT_TIMEOUT = 1000 * 60 * 5;
 
+    /**
+     * The most report requests the async API makes at the same time.
+     */
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * Shared so that report durations learned by one wait inform the next wait for the same kind of report.
+     */
+    private static final ScanPollingStrategy DEFAULT_POLLING_STRATEGY = new BackoffPollingStrategy();
+
     private final IntLogger logger;
 
     private final MetaService metaService;
 
     private final long timeoutInMilliseconds;
 
+    private ScanPollingStrategy pollingStrategy = DEFAULT_POLLING_STRATEGY;
+
+    private ScheduledThreadPoolExecutor reportScheduler;
+
+    private ThreadPoolExecutor reportExecutor;
+
     public ReportRequestService(final RestConnection restConnection, final IntLogger logger, final MetaService metaService) {
         this(restConnection, logger, metaService, DEFAULT_TIMEOUT);
     }
@@ -106,17 +132,46 @@ public class ReportRequestService extends HubResponseService {
      * @throws HubIntegrationException
      */
     public VersionReport getReportContent(final String reportContentUrl) throws IntegrationException {
+        final List<AggregateBomViewEntry> bomEntries = new ArrayList<>();
+        final DetailedReleaseSummary[] detailedReleaseSummary = new DetailedReleaseSummary[1];
+        getReportContent(reportContentUrl, new VersionReportListener() {
+            @Override
+            public void detailedReleaseSummaryReceived(final DetailedReleaseSummary summary) {
+                detailedReleaseSummary[0] = summary;
+            }
+
+            @Override
+            public void bomEntryReceived(final AggregateBomViewEntry bomEntry) {
+                bomEntries.add(bomEntry);
+            }
+        });
+        return new VersionReport(detailedReleaseSummary[0], bomEntries);
+    }
+
+    /**
+     * Streams the content of the report to the listener, one BOM entry at a time, without reading the whole report
+     * into memory.
+     *
+     * @throws HubIntegrationException
+     */
+    public void getReportContent(final String reportContentUrl, final VersionReportListener listener) throws IntegrationException {
         final HubRequest hubRequest = getHubRequestFactory().createRequest(reportContentUrl);
 
         try (Response response = hubRequest.executeGet()) {
-            final String jsonResponse = response.body().string();
+            final boolean found = new VersionReportReader(getGson()).readReportContent(response.body().charStream(), listener);
+            if (!found) {
+                throw new HubIntegrationException("The report at " + reportContentUrl + " did not have any content");
+            }
+        } catch (final IOException | JsonParseException | IllegalStateException e) {
+            throw new HubIntegrationException(e);
+        }
+    }
 
-            final JsonObject json = getJsonParser().parse(jsonResponse).getAsJsonObject();
-            final JsonElement content = json.get("reportContent");
-            final JsonArray reportConentArray = content.getAsJsonArray();
-            final JsonObject reportFile = reportConentArray.get(0).getAsJsonObject();
-            final VersionReport report = getGson().fromJson(reportFile.get("fileContent"), VersionReport.class);
-            return report;
+    public ReportView getReportView(final String reportUrl) throws IntegrationException {
+        final HubRequest hubRequest = getHubRequestFactory().createRequest(reportUrl);
+        try (Response response = hubRequest.executeGet()) {
+            final String jsonResponse = response.body().string();
+            return getItemAs(jsonResponse, ReportView.class);
         } catch (final IOException e) {
             throw new HubIntegrationException(e);
         }
@@ -136,13 +191,7 @@ public class ReportRequestService extends HubResponseService {
         ReportView reportInfo = null;
 
         while (timeFinished == null) {
-            final HubRequest hubRequest = getHubRequestFactory().createRequest(reportUrl);
-            try (Response response = hubRequest.executeGet()) {
-                final String jsonResponse = response.body().string();
-                reportInfo = getItemAs(jsonResponse, ReportView.class);
-            } catch (final IOException e) {
-                throw new HubIntegrationException(e);
-            }
+            reportInfo = getReportView(reportUrl);
             timeFinished = reportInfo.getFinishedAt();
             if (timeFinished != null) {
                 break;
@@ -190,9 +239,155 @@ public class ReportRequestService extends HubResponseService {
         return report;
     }
 
+    public void setPollingStrategy(final ScanPollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
+
+    /**
+     * Starts the report for every version at once and tracks them all on one scheduler, polling less often the longer
+     * a report takes. The scheduler only times the polls; they run on the report executor, so many reports are polled
+     * concurrently. Each report is downloaded as soon as it finishes and deleted from the server in the background.
+     *
+     * @return one future per version, in the same order as the versions
+     */
+    public List<Future<VersionReport>> generateHubReportsAsync(final List<ProjectVersionView> versions, final ReportFormatEnum reportFormat,
+            final ReportCategoriesEnum[] categories) {
+        final List<Future<VersionReport>> reports = new ArrayList<>(versions.size());
+        for (final ProjectVersionView version : versions) {
+            reports.add(generateHubReportAsync(version, reportFormat, categories));
+        }
+        return reports;
+    }
+
+    /**
+     * Like generateHubReport, without blocking the calling thread. Cancelling the future stops the polling and deletes
+     * the report from the server.
+     */
+    public Future<VersionReport> generateHubReportAsync(final ProjectVersionView version, final ReportFormatEnum reportFormat,
+            final ReportCategoriesEnum[] categories) {
+        final SettableFuture<VersionReport> report = new SettableFuture<>();
+        final String waitKey = reportFormat.name() + (categories == null ? "" : Arrays.toString(categories));
+        getReportExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final String reportUrl = startGeneratingHubReport(version, reportFormat, categories);
+                    new ReportWait(reportUrl, waitKey, report).scheduleNextPoll();
+                } catch (final Exception e) {
+                    report.completeExceptionally(e);
+                }
+            }
+        });
+        return report;
+    }
+
+    private void deleteHubReportInBackground(final String reportUrl) {
+        getReportExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deleteHubReport(reportUrl);
+                } catch (final Exception e) {
+                    logger.debug("Could not clean up the Report at " + reportUrl + " : " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private synchronized ScheduledThreadPoolExecutor getReportScheduler() {
+        if (reportScheduler == null) {
+            reportScheduler = DaemonExecutors.createScheduler();
+        }
+        return reportScheduler;
+    }
+
+    private synchronized ThreadPoolExecutor getReportExecutor() {
+        if (reportExecutor == null) {
+            reportExecutor = DaemonExecutors.createPool(DEFAULT_MAXIMUM_CONCURRENT_REQUESTS);
+        }
+        return reportExecutor;
+    }
+
     private String getVersionReportLink(final ProjectVersionView version) throws HubIntegrationException {
         final String versionLink = metaService.getFirstLink(version, MetaService.VERSION_REPORT_LINK);
         return versionLink;
     }
 
+    /**
+     * Waits for one report. The scheduler runs it when the next poll is due, and it hands the poll, and the download
+     * once the report is finished, to the executor.
+     */
+    private class ReportWait implements Runnable {
+        private final String reportUrl;
+
+        private final String waitKey;
+
+        private final SettableFuture<VersionReport> report;
+
+        private final long startTime = System.currentTimeMillis();
+
+        public ReportWait(final String reportUrl, final String waitKey, final SettableFuture<VersionReport> report) {
+            this.reportUrl = reportUrl;
+            this.waitKey = waitKey;
+            this.report = report;
+        }
+
+        public void scheduleNextPoll() {
+            final long elapsedTime = System.currentTimeMillis() - startTime;
+            // never sleep much past the timeout, so the last poll happens when the wait times out
+            final long remaining = Math.max(1, timeoutInMilliseconds - elapsedTime + 1);
+            final long delay = Math.min(pollingStrategy.getDelayBeforeNextPoll(waitKey, elapsedTime), remaining);
+            getReportScheduler().schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            getReportExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    poll();
+                }
+            });
+        }
+
+        private void poll() {
+            if (report.isDone()) {
+                // cancelled by the caller
+                deleteHubReportInBackground(reportUrl);
+                return;
+            }
+            try {
+                final ReportView reportInfo = getReportView(reportUrl);
+                final long elapsedTime = System.currentTimeMillis() - startTime;
+                if (reportInfo.getFinishedAt() != null) {
+                    pollingStrategy.waitCompleted(waitKey, elapsedTime);
+                    downloadReport(reportInfo);
+                } else if (elapsedTime >= timeoutInMilliseconds) {
+                    final String formattedTime = String.format("%d minutes", TimeUnit.MILLISECONDS.toMinutes(timeoutInMilliseconds));
+                    deleteHubReportInBackground(reportUrl);
+                    report.completeExceptionally(new HubIntegrationException("The Report has not finished generating in : " + formattedTime));
+                } else {
+                    scheduleNextPoll();
+                }
+            } catch (final Exception e) {
+                deleteHubReportInBackground(reportUrl);
+                report.completeExceptionally(e);
+            }
+        }
+
+        private void downloadReport(final ReportView reportInfo) {
+            try {
+                final String contentLink = metaService.getFirstLink(reportInfo, MetaService.CONTENT_LINK);
+                if (contentLink == null) {
+                    throw new HubIntegrationException("Could not find content link for the report at : " + reportUrl);
+                }
+                report.complete(getReportContent(contentLink));
+            } catch (final Exception e) {
+                report.completeExceptionally(e);
+            } finally {
+                deleteHubReportInBackground(reportUrl);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,42 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report;
+
+/**
+ * Receives the parts of a version report as VersionReportReader walks through it, so the report never has to be held
+ * in memory as a whole.
+ */
+public interface VersionReportListener {
+    /**
+     * Called once, when the summary is reached. The Hub writes the summary before the BOM entries, but that order is
+     * not guaranteed by the format, so implementations that need it first must allow for it arriving last.
+     */
+    public void detailedReleaseSummaryReceived(DetailedReleaseSummary detailedReleaseSummary);
+
+    /**
+     * Called for each BOM entry, in report order.
+     */
+    public void bomEntryReceived(AggregateBomViewEntry bomEntry);
+
+}
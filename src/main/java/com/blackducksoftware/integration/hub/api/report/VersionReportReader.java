@@ -0,0 +1,118 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Walks a report content response with a JsonReader, binding one BOM entry at a time, so the memory used does not
+ * grow with the size of the report. Only the first file of the report content is read, as getReportContent always
+ * has.
+ */
+public class VersionReportReader {
+    private final Gson gson;
+
+    public VersionReportReader(final Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Reads a report content response: {"reportContent":[{"fileContent":{...}}]}.
+     *
+     * @return false if the response held no report file
+     */
+    public boolean readReportContent(final Reader reader, final VersionReportListener listener) throws IOException {
+        final JsonReader jsonReader = new JsonReader(reader);
+        boolean found = false;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if ("reportContent".equals(jsonReader.nextName()) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                if (jsonReader.hasNext()) {
+                    found = readReportFile(jsonReader, listener);
+                }
+                while (jsonReader.hasNext()) {
+                    jsonReader.skipValue();
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return found;
+    }
+
+    /**
+     * Reads the report itself: {"detailedReleaseSummary":{...},"aggregateBomViewEntries":[...]}.
+     */
+    public void readVersionReport(final Reader reader, final VersionReportListener listener) throws IOException {
+        readVersionReport(new JsonReader(reader), listener);
+    }
+
+    private boolean readReportFile(final JsonReader jsonReader, final VersionReportListener listener) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+            jsonReader.skipValue();
+            return false;
+        }
+        boolean found = false;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if ("fileContent".equals(name) && jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+                readVersionReport(jsonReader, listener);
+                found = true;
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return found;
+    }
+
+    private void readVersionReport(final JsonReader jsonReader, final VersionReportListener listener) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if ("detailedReleaseSummary".equals(name)) {
+                listener.detailedReleaseSummaryReceived(gson.<DetailedReleaseSummary> fromJson(jsonReader, DetailedReleaseSummary.class));
+            } else if ("aggregateBomViewEntries".equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    listener.bomEntryReceived(gson.<AggregateBomViewEntry> fromJson(jsonReader, AggregateBomViewEntry.class));
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+}
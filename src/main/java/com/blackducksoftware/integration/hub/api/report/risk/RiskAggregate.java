@@ -0,0 +1,242 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report.risk;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+import com.blackducksoftware.integration.hub.api.report.AggregateBomViewEntry;
+import com.blackducksoftware.integration.hub.model.enumeration.RiskCountEnum;
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskCountView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskProfileView;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+
+/**
+ * Counts components by their highest vulnerability, license and operational risk, the way HubRiskReportData always has:
+ * a component with any high risk counts as high, otherwise any medium as medium, otherwise any low as low, and
+ * otherwise as none.
+ *
+ * Aggregates are mergeable, so one can be built per version or per thread and then combined. They are not thread
+ * safe: give each thread its own and merge them.
+ */
+public class RiskAggregate {
+    private static final int VULNERABILITY = 0;
+
+    private static final int LICENSE = 3;
+
+    private static final int OPERATIONAL = 6;
+
+    private static final int HIGH = 0;
+
+    private static final int MEDIUM = 1;
+
+    private static final int LOW = 2;
+
+    private static final int NONE = -1;
+
+    private int totalComponents;
+
+    private final int[] counts = new int[9];
+
+    public RiskAggregate add(final AggregateBomViewEntry bomEntry) {
+        totalComponents++;
+        if (bomEntry != null) {
+            count(VULNERABILITY, getHighestRisk(bomEntry.getVulnerabilityRisk()));
+            count(LICENSE, getHighestRisk(bomEntry.getLicenseRisk()));
+            count(OPERATIONAL, getHighestRisk(bomEntry.getOperationalRisk()));
+        }
+        return this;
+    }
+
+    public RiskAggregate add(final VersionBomComponentView bomComponent) {
+        totalComponents++;
+        if (bomComponent != null) {
+            count(VULNERABILITY, getHighestRisk(bomComponent.getSecurityRiskProfile()));
+            count(LICENSE, getHighestRisk(bomComponent.getLicenseRiskProfile()));
+            count(OPERATIONAL, getHighestRisk(bomComponent.getOperationalRiskProfile()));
+        }
+        return this;
+    }
+
+    public RiskAggregate add(final BomComponent component) {
+        totalComponents++;
+        if (component != null) {
+            count(VULNERABILITY, getHighestRisk(component.getSecurityRiskHighCount(), component.getSecurityRiskMediumCount(),
+                    component.getSecurityRiskLowCount()));
+            count(LICENSE, getHighestRisk(component.getLicenseRiskHighCount(), component.getLicenseRiskMediumCount(),
+                    component.getLicenseRiskLowCount()));
+            count(OPERATIONAL, getHighestRisk(component.getOperationalRiskHighCount(), component.getOperationalRiskMediumCount(),
+                    component.getOperationalRiskLowCount()));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the counts of the other aggregate to this one.
+     */
+    public RiskAggregate merge(final RiskAggregate other) {
+        totalComponents += other.totalComponents;
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] += other.counts[index];
+        }
+        return this;
+    }
+
+    /**
+     * Recreates an aggregate from its total and the counts returned by getHighMediumLowCounts.
+     */
+    public static RiskAggregate fromCounts(final int totalComponents, final int[] highMediumLowCounts) {
+        final RiskAggregate aggregate = new RiskAggregate();
+        aggregate.totalComponents = totalComponents;
+        System.arraycopy(highMediumLowCounts, 0, aggregate.counts, 0, aggregate.counts.length);
+        return aggregate;
+    }
+
+    /**
+     * The high, medium and low counts for vulnerability, license and operational risk, in that order.
+     */
+    public int[] getHighMediumLowCounts() {
+        return counts.clone();
+    }
+
+    /**
+     * A new aggregate holding the counts of all the given aggregates, such as the per version aggregates of a
+     * portfolio.
+     */
+    public static RiskAggregate combine(final Iterable<RiskAggregate> aggregates) {
+        final RiskAggregate combined = new RiskAggregate();
+        for (final RiskAggregate aggregate : aggregates) {
+            combined.merge(aggregate);
+        }
+        return combined;
+    }
+
+    private void count(final int category, final int highestRisk) {
+        if (highestRisk != NONE) {
+            counts[category + highestRisk]++;
+        }
+    }
+
+    private int getHighestRisk(final RiskCounts riskCounts) {
+        if (riskCounts == null) {
+            return NONE;
+        }
+        return getHighestRisk(riskCounts.getHIGH(), riskCounts.getMEDIUM(), riskCounts.getLOW());
+    }
+
+    private int getHighestRisk(final RiskProfileView riskProfile) {
+        if (riskProfile == null || riskProfile.getCounts() == null) {
+            return NONE;
+        }
+        int highCount = 0;
+        int mediumCount = 0;
+        int lowCount = 0;
+        for (final RiskCountView count : riskProfile.getCounts()) {
+            if (count.getCount() == null) {
+                continue;
+            } else if (count.getCountType() == RiskCountEnum.HIGH) {
+                highCount += count.getCount();
+            } else if (count.getCountType() == RiskCountEnum.MEDIUM) {
+                mediumCount += count.getCount();
+            } else if (count.getCountType() == RiskCountEnum.LOW) {
+                lowCount += count.getCount();
+            }
+        }
+        return getHighestRisk(highCount, mediumCount, lowCount);
+    }
+
+    private int getHighestRisk(final int highCount, final int mediumCount, final int lowCount) {
+        if (highCount > 0) {
+            return HIGH;
+        } else if (mediumCount > 0) {
+            return MEDIUM;
+        } else if (lowCount > 0) {
+            return LOW;
+        }
+        return NONE;
+    }
+
+    private int getNoneCount(final int category) {
+        return totalComponents - counts[category + HIGH] - counts[category + MEDIUM] - counts[category + LOW];
+    }
+
+    public int getTotalComponents() {
+        return totalComponents;
+    }
+
+    public int getVulnerabilityRiskHighCount() {
+        return counts[VULNERABILITY + HIGH];
+    }
+
+    public int getVulnerabilityRiskMediumCount() {
+        return counts[VULNERABILITY + MEDIUM];
+    }
+
+    public int getVulnerabilityRiskLowCount() {
+        return counts[VULNERABILITY + LOW];
+    }
+
+    public int getVulnerabilityRiskNoneCount() {
+        return getNoneCount(VULNERABILITY);
+    }
+
+    public int getLicenseRiskHighCount() {
+        return counts[LICENSE + HIGH];
+    }
+
+    public int getLicenseRiskMediumCount() {
+        return counts[LICENSE + MEDIUM];
+    }
+
+    public int getLicenseRiskLowCount() {
+        return counts[LICENSE + LOW];
+    }
+
+    public int getLicenseRiskNoneCount() {
+        return getNoneCount(LICENSE);
+    }
+
+    public int getOperationalRiskHighCount() {
+        return counts[OPERATIONAL + HIGH];
+    }
+
+    public int getOperationalRiskMediumCount() {
+        return counts[OPERATIONAL + MEDIUM];
+    }
+
+    public int getOperationalRiskLowCount() {
+        return counts[OPERATIONAL + LOW];
+    }
+
+    public int getOperationalRiskNoneCount() {
+        return getNoneCount(OPERATIONAL);
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+}
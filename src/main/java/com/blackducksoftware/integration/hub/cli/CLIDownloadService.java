@@ -24,19 +24,17 @@
 package com.blackducksoftware.integration.hub.cli;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -56,15 +54,45 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 public class CLIDownloadService {
+    public static final String ARCHIVE_FILE_NAME = "scan.cli.zip";
+
     private final IntLogger logger;
 
     private final RestConnection restConnection;
 
+    private boolean resumableDownload;
+
+    private int concurrentRanges = ResumableDownloader.DEFAULT_CONCURRENT_RANGES;
+
+    private String expectedArchiveSha256;
+
     public CLIDownloadService(final IntLogger logger, final RestConnection restConnection) {
         this.logger = logger;
         this.restConnection = restConnection;
     }
 
+    /**
+     * Download the archive to a file that a failed or interrupted download resumes from, instead of extracting it as it
+     * streams in, and check it before it is extracted.
+     */
+    public void setResumableDownload(final boolean resumableDownload) {
+        this.resumableDownload = resumableDownload;
+    }
+
+    /**
+     * The number of ranges of the archive downloaded at the same time by a resumable download.
+     */
+    public void setConcurrentRanges(final int concurrentRanges) {
+        this.concurrentRanges = concurrentRanges;
+    }
+
+    /**
+     * The SHA-256 a resumable download of the archive must have, or null to only check its size.
+     */
+    public void setExpectedArchiveSha256(final String expectedArchiveSha256) {
+        this.expectedArchiveSha256 = expectedArchiveSha256;
+    }
+
     public void performInstallation(final File directoryToInstallTo, final CIEnvironmentVariables ciEnvironmentVariables,
             final String hubUrl, final String hubVersion, final String localHostName) throws HubIntegrationException, EncryptionException {
         if (StringUtils.isBlank(localHostName)) {
@@ -84,6 +112,71 @@ public class CLIDownloadService {
         }
     }
 
+    /**
+     * Installs the CLI like performInstallation, but into the host level cache in cacheDirectory, so every workspace on
+     * the host shares one download and one installation. A workspace that needs its own cacerts in the CLI JRE gets a
+     * private installation instead, since changing the shared JRE would change it for every workspace.
+     */
+    public void performSharedInstallation(final File directoryToInstallTo, final File cacheDirectory, final CIEnvironmentVariables ciEnvironmentVariables,
+            final String hubUrl, final String hubVersion, final String localHostName) throws HubIntegrationException, EncryptionException {
+        if (ciEnvironmentVariables.containsKey(CIEnvironmentVariables.BDS_CACERTS_OVERRIDE)) {
+            logger.debug("Installing a private CLI because " + CIEnvironmentVariables.BDS_CACERTS_OVERRIDE + " is set.");
+            performInstallation(directoryToInstallTo, ciEnvironmentVariables, hubUrl, hubVersion, localHostName);
+            return;
+        }
+        if (StringUtils.isBlank(localHostName)) {
+            throw new IllegalArgumentException("You must provided the hostName of the machine this is running on.");
+        }
+
+        final CLILocation cliLocation = new CLILocation(logger, directoryToInstallTo);
+        final String cliDownloadUrl = cliLocation.getCLIDownloadUrl(logger, hubUrl);
+        if (StringUtils.isBlank(cliDownloadUrl)) {
+            logger.error("Could not find the correct Hub CLI download URL.");
+            return;
+        }
+        try {
+            final URL archive = new URL(cliDownloadUrl);
+            final HttpUrl httpUrl = restConnection.createHttpUrl(archive);
+            String lastModified = null;
+            try (Response response = restConnection.handleExecuteClientCall(restConnection.createGetRequest(httpUrl).newBuilder().head().build())) {
+                lastModified = response.header("Last-Modified");
+            }
+            final String archiveValidator = lastModified;
+            final String archiveVersion = StringUtils.isBlank(lastModified) ? hubVersion : lastModified;
+
+            final CLIInstallationCache cache = new CLIInstallationCache(logger, cacheDirectory);
+            final String key = CLIInstallationCache.createKey(cliDownloadUrl, archiveVersion);
+            File installation = cache.getInstallation(key);
+            if (installation == null) {
+                installation = cache.install(key, new CLIInstallationCache.Installer() {
+                    @Override
+                    public void install(final File stagingDirectory) throws IOException {
+                        logger.info("Unpacking " + archive.toString() + " to " + stagingDirectory.getAbsolutePath() + " on " + localHostName);
+                        if (resumableDownload) {
+                            downloadAndUnzip(archive, new File(cache.getCacheDirectory(), key + "-" + ARCHIVE_FILE_NAME), stagingDirectory, archiveValidator);
+                            return;
+                        }
+                        try (Response response = restConnection.handleExecuteClientCall(restConnection.createGetRequest(httpUrl))) {
+                            unzip(stagingDirectory, response.body().byteStream(), logger);
+                        } catch (final IntegrationException e) {
+                            throw new IOException("Could not download " + archive + " : " + e.getMessage(), e);
+                        }
+                    }
+                });
+            } else {
+                logger.debug("The current Hub CLI is up to date.");
+            }
+            final File hubVersionFile = cliLocation.createHubVersionFile();
+            cache.link(installation, cliLocation.getCLIInstallDir());
+            cache.prune();
+            FileUtils.writeStringToFile(hubVersionFile, hubVersion, StandardCharsets.UTF_8);
+        } catch (final IntegrationException e) {
+            logger.error("Skipping installation of " + cliDownloadUrl + " to " + directoryToInstallTo + ": " + e.toString());
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Failed to install " + cliDownloadUrl + " to " + directoryToInstallTo, e);
+        }
+    }
+
     public void customInstall(final CLILocation cliLocation, final CIEnvironmentVariables ciEnvironmentVariables, final URL archive,
             final String hubVersion, final String localHostName) throws HubIntegrationException, EncryptionException {
         String directoryToInstallTo;
@@ -106,6 +199,10 @@ public class CLIDownloadService {
                 }
             }
             final File cliInstallDirectory = cliLocation.getCLIInstallDir();
+            if (Files.isSymbolicLink(cliInstallDirectory.toPath())) {
+                // a link to a shared installation, which must not be changed in place
+                Files.delete(cliInstallDirectory.toPath());
+            }
             if (!cliInstallDirectory.exists()) {
                 cliMismatch = true;
             }
@@ -126,7 +223,11 @@ public class CLIDownloadService {
                     final HttpUrl httpUrl = restConnection.createHttpUrl(archive);
                     final Map<String, String> headers = new HashMap<>();
                     headers.put("If-Modified-Since", String.valueOf(cliTimestamp));
-                    final Request request = restConnection.createGetRequest(httpUrl, headers);
+                    Request request = restConnection.createGetRequest(httpUrl, headers);
+                    if (resumableDownload) {
+                        // only the status and Last-Modified are needed, the archive is downloaded with range requests
+                        request = request.newBuilder().head().build();
+                    }
                     response = restConnection.handleExecuteClientCall(request);
                 } catch (final IntegrationException e) {
                     logger.error("Skipping installation of " + archive + " to " + directoryToInstallTo + ": "
@@ -163,6 +264,11 @@ public class CLIDownloadService {
                 logger.info("Unpacking " + archive.toString() + " to " + directoryToInstallTo + " on "
                         + localHostName);
 
+                if (resumableDownload) {
+                    downloadAndUnzip(archive, new File(directoryToInstallTo, ARCHIVE_FILE_NAME), cliInstallDirectory, lastModified);
+                    updateJreSecurity(logger, cliLocation, ciEnvironmentVariables);
+                    return;
+                }
                 final ResponseBody responseBody = response.body();
                 cliStream = responseBody.byteStream();
                 final CountingInputStream cis = new CountingInputStream(cliStream);
@@ -223,55 +329,20 @@ public class CLIDownloadService {
         }
     }
 
-    private void unzip(final File dir, final InputStream in, final IntLogger logger) throws IOException {
-        // uses java.io.tmpdir
-        final File tmpFile = File.createTempFile("tmpzip", null);
-
-        try {
-            copyInputStreamToFile(in, tmpFile);
-            unzip(dir, tmpFile, logger);
-        } finally {
-            tmpFile.delete();
-        }
-    }
-
-    private void unzip(File dir, final File zipFile, final IntLogger logger) throws IOException {
-        // without getAbsoluteFile, getParentFile below seems to fail
-        dir = dir.getAbsoluteFile();
-        final ZipFile zip = new ZipFile(zipFile);
-        final Enumeration<? extends ZipEntry> entries = zip.entries();
+    private void downloadAndUnzip(final URL archive, final File archiveFile, final File dir, final String lastModified) throws IOException {
+        final ResumableDownloader downloader = new ResumableDownloader(logger, restConnection);
+        downloader.setConcurrentRanges(concurrentRanges);
+        downloader.download(archive, archiveFile, StringUtils.trimToNull(lastModified), expectedArchiveSha256);
         try {
-            while (entries.hasMoreElements()) {
-                final ZipEntry e = entries.nextElement();
-                final File f = new File(dir, e.getName());
-                if (e.isDirectory()) {
-                    f.mkdirs();
-                } else {
-                    final File p = f.getParentFile();
-                    if (p != null) {
-                        p.mkdirs();
-                    }
-                    final InputStream input = zip.getInputStream(e);
-                    try {
-                        copyInputStreamToFile(input, f);
-                    } finally {
-                        input.close();
-                    }
-                    f.setLastModified(e.getTime());
-                }
-            }
+            new ZipArchiveExtractor(logger).extract(archiveFile, dir.getAbsoluteFile(), Runtime.getRuntime().availableProcessors());
         } finally {
-            zip.close();
+            Files.deleteIfExists(archiveFile.toPath());
         }
     }
 
-    private void copyInputStreamToFile(final InputStream in, final File f) throws IOException {
-        final FileOutputStream fos = new FileOutputStream(f);
-        try {
-            org.apache.commons.io.IOUtils.copy(in, fos);
-        } finally {
-            org.apache.commons.io.IOUtils.closeQuietly(fos);
-        }
+    private void unzip(final File dir, final InputStream in, final IntLogger logger) throws IOException {
+        // extracted as the archive streams in, with no temporary copy of it
+        new ZipArchiveExtractor(logger).extract(in, dir.getAbsoluteFile());
     }
 
 }
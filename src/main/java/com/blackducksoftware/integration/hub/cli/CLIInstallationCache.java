@@ -0,0 +1,335 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * A host level cache of CLI installations shared by every workspace on the host. Each installation is kept in a
+ * directory named for the key of the archive it was extracted from, and a workspace's Hub_Scan_Installation becomes a
+ * symbolic link to it.
+ *
+ * A file lock per key makes sure only one process, and one thread within it, installs a given archive; the others wait
+ * and then use its installation. Installations are extracted into a staging directory and renamed into place once
+ * complete, so an installation directory that exists is always complete.
+ *
+ * Every workspace linked to the cache is recorded in it, so prune can delete the installations that no workspace links
+ * to any more, such as the ones superseded by a newer CLI.
+ */
+public class CLIInstallationCache {
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    private static final String STAGING_DIRECTORY_SUFFIX = ".staging-";
+
+    private static final String WORKSPACES_DIRECTORY_NAME = "workspaces";
+
+    private static final String COPIED_INSTALLATION_SUFFIX = ".installation";
+
+    /**
+     * How long prune keeps an installation that no workspace links to after it was last installed or looked up, so
+     * that one is not deleted between being returned and being linked.
+     */
+    public static final long PRUNE_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    // a FileLock is held by the whole JVM, so threads of the same process have to be kept apart as well
+    private static final ConcurrentMap<String, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+    private final IntLogger logger;
+
+    private final File cacheDirectory;
+
+    public CLIInstallationCache(final IntLogger logger, final File cacheDirectory) {
+        this.logger = logger;
+        this.cacheDirectory = cacheDirectory.getAbsoluteFile();
+    }
+
+    /**
+     * A key for an archive: its url and the version of it, such as its Last-Modified header.
+     */
+    public static String createKey(final String archiveUrl, final String archiveVersion) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] hash = digest.digest((archiveUrl + "\n" + archiveVersion).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder key = new StringBuilder(hash.length * 2);
+            for (final byte hashByte : hash) {
+                key.append(String.format("%02x", hashByte & 0xff));
+            }
+            return key.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the complete installation for the key, or null if there is none yet. An installation returned is kept by
+     *         prune for at least PRUNE_GRACE_PERIOD.
+     */
+    public File getInstallation(final String key) {
+        final File installation = new File(cacheDirectory, key);
+        if (installation.isDirectory()) {
+            installation.setLastModified(System.currentTimeMillis());
+            return installation;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the installation for the key, calling the installer to create it only if no other process or thread has
+     * by the time the lock for the key is held.
+     */
+    public File install(final String key, final Installer installer) throws IOException {
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs() && !cacheDirectory.isDirectory()) {
+            throw new IOException("Could not create the CLI cache directory : " + cacheDirectory.getAbsolutePath());
+        }
+        final ReentrantLock processLock = getProcessLock(key);
+        processLock.lock();
+        try (FileChannel lockChannel = FileChannel.open(new File(cacheDirectory, key + LOCK_FILE_SUFFIX).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock fileLock = lockChannel.lock()) {
+            final File existingInstallation = getInstallation(key);
+            if (existingInstallation != null) {
+                logger.debug("The CLI was installed to the cache by another process : " + existingInstallation.getAbsolutePath());
+                return existingInstallation;
+            }
+            deleteAbandonedStagingDirectories(key);
+
+            final File stagingDirectory = new File(cacheDirectory, key + STAGING_DIRECTORY_SUFFIX + UUID.randomUUID());
+            try {
+                if (!stagingDirectory.mkdirs()) {
+                    throw new IOException("Could not create the CLI staging directory : " + stagingDirectory.getAbsolutePath());
+                }
+                installer.install(stagingDirectory);
+                final File installation = new File(cacheDirectory, key);
+                Files.move(stagingDirectory.toPath(), installation.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Installed the CLI to the cache : " + installation.getAbsolutePath());
+                return installation;
+            } finally {
+                if (stagingDirectory.exists()) {
+                    FileUtils.deleteQuietly(stagingDirectory);
+                }
+            }
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * Points the workspace's installation directory at the cached installation, swapping a previous link atomically so
+     * a scan starting at the same time sees either the old or the new installation. Where symbolic links can not be
+     * created the installation is copied instead.
+     */
+    public void link(final File installation, final File workspaceInstallDirectory) throws IOException {
+        final Path workspaceInstallPath = workspaceInstallDirectory.getAbsoluteFile().toPath();
+        // names the installation a copied workspace installation came from; it can not go inside the copy, where the
+        // CLI home is found as the only entry
+        final Path copiedInstallationFile = workspaceInstallPath.resolveSibling(workspaceInstallPath.getFileName() + COPIED_INSTALLATION_SUFFIX);
+        if (Files.isSymbolicLink(workspaceInstallPath) && Files.readSymbolicLink(workspaceInstallPath).equals(installation.toPath())) {
+            registerWorkspace(workspaceInstallPath);
+            return;
+        }
+        if (Files.isDirectory(workspaceInstallPath, LinkOption.NOFOLLOW_LINKS) && Files.isRegularFile(copiedInstallationFile)
+                && installation.getName().equals(new String(Files.readAllBytes(copiedInstallationFile), StandardCharsets.UTF_8))) {
+            return;
+        }
+        Files.deleteIfExists(copiedInstallationFile);
+        if (Files.exists(workspaceInstallPath, LinkOption.NOFOLLOW_LINKS) && !Files.isSymbolicLink(workspaceInstallPath)) {
+            // a private installation from before the cache was used
+            FileUtils.deleteDirectory(workspaceInstallDirectory);
+        }
+        final Path temporaryLink = workspaceInstallPath.resolveSibling(workspaceInstallPath.getFileName() + ".link-" + UUID.randomUUID());
+        try {
+            Files.createSymbolicLink(temporaryLink, installation.toPath());
+        } catch (final UnsupportedOperationException | IOException e) {
+            logger.debug("Could not link to the cached CLI, copying it instead : " + e.getMessage());
+            Files.deleteIfExists(workspaceInstallPath);
+            FileUtils.copyDirectory(installation, workspaceInstallDirectory, true);
+            // written last, so an interrupted copy is copied again
+            Files.write(copiedInstallationFile, installation.getName().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        Files.move(temporaryLink, workspaceInstallPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        registerWorkspace(workspaceInstallPath);
+    }
+
+    /**
+     * Deletes the installations, and the partial downloads of their archives, that no recorded workspace links to and
+     * that have not been installed or looked up for PRUNE_GRACE_PERIOD. Installations that can not be deleted are left
+     * for the next prune.
+     */
+    public void prune() {
+        final File[] files = cacheDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final Set<String> linkedKeys = getLinkedKeys();
+        for (final File file : files) {
+            final String key = file.getName();
+            if (file.isDirectory() && KEY_PATTERN.matcher(key).matches() && !linkedKeys.contains(key) && isPastGracePeriod(file)) {
+                try {
+                    pruneInstallation(key);
+                } catch (final IOException e) {
+                    logger.debug("Could not delete the unused CLI installation " + file.getAbsolutePath() + " : " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    private ReentrantLock getProcessLock(final String key) {
+        ReentrantLock processLock = PROCESS_LOCKS.get(key);
+        if (processLock == null) {
+            final ReentrantLock newProcessLock = new ReentrantLock();
+            processLock = PROCESS_LOCKS.putIfAbsent(key, newProcessLock);
+            if (processLock == null) {
+                processLock = newProcessLock;
+            }
+        }
+        return processLock;
+    }
+
+    private void pruneInstallation(final String key) throws IOException {
+        final ReentrantLock processLock = getProcessLock(key);
+        processLock.lock();
+        try (FileChannel lockChannel = FileChannel.open(new File(cacheDirectory, key + LOCK_FILE_SUFFIX).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock fileLock = lockChannel.lock()) {
+            final File installation = new File(cacheDirectory, key);
+            // looked up again while waiting for the lock
+            if (!installation.isDirectory() || !isPastGracePeriod(installation)) {
+                return;
+            }
+            logger.info("Deleting the CLI installation no workspace uses any more : " + installation.getAbsolutePath());
+            FileUtils.deleteDirectory(installation);
+            final File[] files = cacheDirectory.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    if (file.getName().startsWith(key + "-")) {
+                        FileUtils.deleteQuietly(file);
+                    }
+                }
+            }
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    private boolean isPastGracePeriod(final File installation) {
+        return installation.lastModified() < System.currentTimeMillis() - PRUNE_GRACE_PERIOD;
+    }
+
+    /**
+     * Records the workspace under the workspaces directory, replacing its record atomically so that prune never reads
+     * a partial one.
+     */
+    private void registerWorkspace(final Path workspaceInstallPath) throws IOException {
+        final File workspacesDirectory = new File(cacheDirectory, WORKSPACES_DIRECTORY_NAME);
+        if (!workspacesDirectory.isDirectory() && !workspacesDirectory.mkdirs() && !workspacesDirectory.isDirectory()) {
+            throw new IOException("Could not create the CLI cache workspaces directory : " + workspacesDirectory.getAbsolutePath());
+        }
+        final String workspace = workspaceInstallPath.toString();
+        final Path record = new File(workspacesDirectory, createKey(workspace, WORKSPACES_DIRECTORY_NAME)).toPath();
+        final Path temporaryRecord = record.resolveSibling(record.getFileName() + STAGING_DIRECTORY_SUFFIX + UUID.randomUUID());
+        Files.write(temporaryRecord, workspace.getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryRecord, record, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The keys the recorded workspaces link to. The records of workspaces that were deleted, or that no longer link
+     * into the cache, are dropped.
+     */
+    private Set<String> getLinkedKeys() {
+        final Set<String> linkedKeys = new HashSet<>();
+        final File[] records = new File(cacheDirectory, WORKSPACES_DIRECTORY_NAME).listFiles();
+        if (records == null) {
+            return linkedKeys;
+        }
+        for (final File record : records) {
+            if (record.getName().contains(STAGING_DIRECTORY_SUFFIX)) {
+                continue;
+            }
+            try {
+                final Path workspaceInstallPath = Paths.get(new String(Files.readAllBytes(record.toPath()), StandardCharsets.UTF_8));
+                if (Files.isSymbolicLink(workspaceInstallPath)) {
+                    final Path target = Files.readSymbolicLink(workspaceInstallPath);
+                    if (cacheDirectory.toPath().equals(target.getParent())) {
+                        linkedKeys.add(target.getFileName().toString());
+                        continue;
+                    }
+                }
+                Files.deleteIfExists(record.toPath());
+            } catch (final IOException e) {
+                logger.debug("Could not read the CLI cache workspace record " + record.getAbsolutePath() + " : " + e.getMessage());
+            }
+        }
+        return linkedKeys;
+    }
+
+    private void deleteAbandonedStagingDirectories(final String key) {
+        final File[] files = cacheDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (file.getName().startsWith(key + STAGING_DIRECTORY_SUFFIX)) {
+                logger.debug("Deleting the staging directory of an interrupted CLI installation : " + file.getAbsolutePath());
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Creates an installation in the staging directory it is given.
+     */
+    public interface Installer {
+        public void install(File stagingDirectory) throws IOException;
+    }
+
+}
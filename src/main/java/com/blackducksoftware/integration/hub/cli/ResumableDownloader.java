@@ -0,0 +1,320 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
+import com.blackducksoftware.integration.log.IntLogger;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads a file into partial files next to it, so a download that is cut off resumes with Range requests where it
+ * stopped, on the next attempt or the next run, instead of starting over. When the server accepts ranges the file is
+ * split into concurrentRanges ranges downloaded at the same time, each into its own partial file, which are joined
+ * once all are complete.
+ *
+ * Partial files are only resumed if the file on the server is unchanged: the validator, such as the Last-Modified
+ * value, is sent as If-Range, and a server that answers with the whole file instead of the range has a new one. The
+ * joined file is checked against the size the server reported and, when one is given, a SHA-256 checksum before it is
+ * moved to the target file.
+ */
+public class ResumableDownloader {
+    public static final int DEFAULT_MAXIMUM_ATTEMPTS = 5;
+
+    public static final int DEFAULT_CONCURRENT_RANGES = 1;
+
+    private static final String PART_FILE_INFIX = ".part-";
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    private final IntLogger logger;
+
+    private final RestConnection restConnection;
+
+    private int maximumAttempts = DEFAULT_MAXIMUM_ATTEMPTS;
+
+    private int concurrentRanges = DEFAULT_CONCURRENT_RANGES;
+
+    public ResumableDownloader(final IntLogger logger, final RestConnection restConnection) {
+        this.logger = logger;
+        this.restConnection = restConnection;
+    }
+
+    public void setMaximumAttempts(final int maximumAttempts) {
+        this.maximumAttempts = Math.max(1, maximumAttempts);
+    }
+
+    public void setConcurrentRanges(final int concurrentRanges) {
+        this.concurrentRanges = Math.max(1, concurrentRanges);
+    }
+
+    /**
+     * @param validator
+     *            the Last-Modified or ETag value of the file, or null to never resume partial files from an earlier
+     *            run. The attempts of this call still resume each other's partial files.
+     * @param expectedSha256
+     *            the hex SHA-256 of the file, or null to only check its size
+     */
+    public File download(final URL url, final File targetFile, final String validator, final String expectedSha256) throws IOException {
+        final HttpUrl httpUrl = restConnection.createHttpUrl(url);
+        // the part files are matched against the listing of the absolute directory
+        final File absoluteTargetFile = targetFile.getAbsoluteFile();
+        IOException lastFailure = null;
+        for (int attempt = 1; attempt <= maximumAttempts; attempt++) {
+            try {
+                downloadParts(httpUrl, absoluteTargetFile, validator, expectedSha256, attempt == 1);
+                return targetFile;
+            } catch (final IOException e) {
+                lastFailure = e;
+                logger.info(String.format("Download attempt %d of %d for %s failed: %s", attempt, maximumAttempts, url, e.getMessage()));
+            } catch (final IntegrationException e) {
+                lastFailure = new IOException(e.getMessage(), e);
+                logger.info(String.format("Download attempt %d of %d for %s failed: %s", attempt, maximumAttempts, url, e.getMessage()));
+            }
+        }
+        throw lastFailure;
+    }
+
+    private void downloadParts(final HttpUrl httpUrl, final File targetFile, final String validator, final String expectedSha256,
+            final boolean firstAttempt) throws IOException, IntegrationException {
+        long totalSize = -1;
+        boolean acceptsRanges = false;
+        try (Response response = restConnection.handleExecuteClientCall(restConnection.createGetRequest(httpUrl).newBuilder().head().build())) {
+            final String contentLength = response.header("Content-Length");
+            if (StringUtils.isNumeric(contentLength)) {
+                totalSize = Long.parseLong(contentLength);
+            }
+            acceptsRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+        }
+
+        final int partCount = acceptsRanges && totalSize > 0 ? (int) Math.min(concurrentRanges, Math.max(1, totalSize / COPY_BUFFER_SIZE)) : 1;
+        final List<File> partFiles = new ArrayList<>();
+        for (int index = 0; index < partCount; index++) {
+            partFiles.add(getPartFile(targetFile, partCount, index));
+        }
+        deleteOtherPartFiles(targetFile, partFiles);
+        if (validator == null && firstAttempt) {
+            for (final File partFile : partFiles) {
+                Files.deleteIfExists(partFile.toPath());
+            }
+        }
+
+        if (partCount == 1) {
+            downloadPart(httpUrl, partFiles.get(0), 0, totalSize - 1, validator, acceptsRanges, true);
+        } else {
+            downloadPartsConcurrently(httpUrl, partFiles, totalSize, validator);
+        }
+
+        final File joinedFile = partCount == 1 ? partFiles.get(0) : joinParts(targetFile, partFiles);
+        verify(joinedFile, totalSize, expectedSha256);
+        Files.move(joinedFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (final File partFile : partFiles) {
+            Files.deleteIfExists(partFile.toPath());
+        }
+    }
+
+    private void downloadPartsConcurrently(final HttpUrl httpUrl, final List<File> partFiles, final long totalSize, final String validator)
+            throws IOException, IntegrationException {
+        final ExecutorService executorService = DaemonExecutors.createPool(partFiles.size());
+        final List<Future<Void>> partDownloads = new ArrayList<>();
+        try {
+            final long partSize = (totalSize + partFiles.size() - 1) / partFiles.size();
+            for (int index = 0; index < partFiles.size(); index++) {
+                final File partFile = partFiles.get(index);
+                final long firstByte = index * partSize;
+                final long lastByte = Math.min(totalSize, firstByte + partSize) - 1;
+                partDownloads.add(executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException, IntegrationException {
+                        downloadPart(httpUrl, partFile, firstByte, lastByte, validator, true, false);
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> partDownload : partDownloads) {
+                partDownload.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The thread waiting for the download was interrupted: " + e.getMessage(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            throw DaemonExecutors.getIOException(e);
+        } finally {
+            for (final Future<Void> partDownload : partDownloads) {
+                partDownload.cancel(true);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends the rest of the range to the part file. lastByte is negative when the size is unknown, which reads to the
+     * end. Only a part that is the whole file may be restarted with the whole file when the server ignores the range.
+     */
+    private void downloadPart(final HttpUrl httpUrl, final File partFile, final long firstByte, final long lastByte, final String validator,
+            final boolean acceptsRanges, final boolean wholeFile) throws IOException, IntegrationException {
+        final long downloadedSize = partFile.exists() ? partFile.length() : 0;
+        if (lastByte >= 0 && downloadedSize == lastByte - firstByte + 1) {
+            return;
+        }
+        if (lastByte >= 0 && downloadedSize > lastByte - firstByte + 1) {
+            Files.delete(partFile.toPath());
+            throw new IOException("The partial file " + partFile.getName() + " is larger than its range");
+        }
+
+        final long resumeFrom = firstByte + downloadedSize;
+        final Map<String, String> headers = new HashMap<>();
+        if (acceptsRanges) {
+            headers.put("Range", "bytes=" + resumeFrom + "-" + (lastByte >= 0 ? String.valueOf(lastByte) : ""));
+            if (validator != null) {
+                headers.put("If-Range", validator);
+            }
+        }
+        final Request request = restConnection.createGetRequest(httpUrl, headers);
+        try (Response response = restConnection.handleExecuteClientCall(request)) {
+            final boolean append = response.code() == 206;
+            if (!append && !wholeFile) {
+                // the server answers If-Range with the whole file when it has a new one
+                Files.deleteIfExists(partFile.toPath());
+                throw new IOException("The file changed on the server while it was being downloaded");
+            }
+            if (!append && downloadedSize > 0) {
+                logger.debug("Restarting the download of " + partFile.getName() + " because the server sent the whole file");
+            }
+            try (InputStream inputStream = response.body().byteStream();
+                    FileChannel channel = append
+                            ? FileChannel.open(partFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                            : FileChannel.open(partFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(copyBuffer);
+                int read;
+                while ((read = inputStream.read(copyBuffer)) != -1) {
+                    byteBuffer.clear();
+                    byteBuffer.limit(read);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                }
+            }
+        }
+    }
+
+    private File joinParts(final File targetFile, final List<File> partFiles) throws IOException {
+        final File joinedFile = new File(targetFile.getParentFile(), targetFile.getName() + PART_FILE_INFIX + "joined");
+        try (FileChannel joinedChannel = FileChannel.open(joinedFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (final File partFile : partFiles) {
+                try (FileChannel partChannel = FileChannel.open(partFile.toPath(), StandardOpenOption.READ)) {
+                    long position = 0;
+                    final long size = partChannel.size();
+                    while (position < size) {
+                        position += partChannel.transferTo(position, size - position, joinedChannel);
+                    }
+                }
+            }
+        }
+        return joinedFile;
+    }
+
+    private void verify(final File file, final long expectedSize, final String expectedSha256) throws IOException {
+        if (expectedSize >= 0 && file.length() != expectedSize) {
+            Files.delete(file.toPath());
+            throw new IOException(String.format("The download is %d bytes instead of %d", file.length(), expectedSize));
+        }
+        if (StringUtils.isNotBlank(expectedSha256)) {
+            final String sha256 = getSha256(file);
+            if (!expectedSha256.equalsIgnoreCase(sha256)) {
+                Files.delete(file.toPath());
+                throw new IOException("The download has SHA-256 " + sha256 + " instead of " + expectedSha256);
+            }
+        }
+    }
+
+    private String getSha256(final File file) throws IOException {
+        try (DigestInputStream inputStream = new DigestInputStream(Files.newInputStream(file.toPath()), MessageDigest.getInstance("SHA-256"))) {
+            final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            while (inputStream.read(buffer) != -1) {
+                // the digest is updated as the file is read
+            }
+            final StringBuilder sha256 = new StringBuilder();
+            for (final byte hashByte : inputStream.getMessageDigest().digest()) {
+                sha256.append(String.format("%02x", hashByte & 0xff));
+            }
+            return sha256.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Part files are named for how many parts the file was split into, so parts from a run with a different split are
+     * never mistaken for these.
+     */
+    private File getPartFile(final File targetFile, final int partCount, final int index) {
+        return new File(targetFile.getParentFile(), targetFile.getName() + PART_FILE_INFIX + partCount + "-" + index);
+    }
+
+    private void deleteOtherPartFiles(final File targetFile, final List<File> partFiles) throws IOException {
+        final File[] files = targetFile.getParentFile().listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (file.getName().startsWith(targetFile.getName() + PART_FILE_INFIX) && !partFiles.contains(file)) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+}
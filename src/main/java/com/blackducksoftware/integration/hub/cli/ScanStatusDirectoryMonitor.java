@@ -0,0 +1,215 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.log.IntLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Watches the directory the CLI writes its scan status files to, so scan summaries are known while the scan is still
+ * running rather than after the process exits. The status directory is created by the CLI, so its parent is watched
+ * until it appears.
+ *
+ * A status file caught half written does not parse and is picked up again on its next modification, and stop() reads
+ * the directory one last time so a missed or overflowed event never loses a status file.
+ */
+public class ScanStatusDirectoryMonitor {
+    private final IntLogger logger;
+
+    private final Gson gson;
+
+    private final File statusDirectory;
+
+    private final ScanStatusListener listener;
+
+    private final Map<String, String> statusFileContents = new HashMap<>();
+
+    private final Map<String, ScanSummaryView> scanSummaries = new TreeMap<>();
+
+    private WatchService watchService;
+
+    private WatchKey statusDirectoryKey;
+
+    private Thread monitorThread;
+
+    private boolean stopped;
+
+    public ScanStatusDirectoryMonitor(final IntLogger logger, final Gson gson, final File statusDirectory, final ScanStatusListener listener) {
+        this.logger = logger;
+        this.gson = gson;
+        this.statusDirectory = statusDirectory;
+        this.listener = listener;
+    }
+
+    public synchronized void start() throws IOException {
+        if (monitorThread != null) {
+            return;
+        }
+        final File parentDirectory = statusDirectory.getParentFile();
+        if (!parentDirectory.exists() && !parentDirectory.mkdirs()) {
+            throw new IOException("Could not create the directory for the scan status files: " + parentDirectory.getAbsolutePath());
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        parentDirectory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+        // registered after the parent so the directory can not be created unnoticed in between
+        if (statusDirectory.isDirectory()) {
+            watchStatusDirectory();
+        }
+
+        monitorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "hub-scan-status-monitor");
+        monitorThread.setDaemon(true);
+        monitorThread.start();
+    }
+
+    /**
+     * Stops watching, then reads any status file whose last change has not been reported yet.
+     */
+    public void stop() {
+        final Thread thread;
+        synchronized (this) {
+            thread = monitorThread;
+            if (thread == null || stopped) {
+                return;
+            }
+            stopped = true;
+            try {
+                watchService.close();
+            } catch (final IOException e) {
+                logger.debug("Could not close the scan status watch service: " + e.getMessage());
+            }
+        }
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        readStatusDirectory();
+    }
+
+    /**
+     * The latest scan summary from every status file seen so far, ordered by file name.
+     */
+    public synchronized List<ScanSummaryView> getScanSummaryItems() {
+        return new ArrayList<>(scanSummaries.values());
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    if (StandardWatchEventKinds.OVERFLOW == event.kind()) {
+                        readStatusDirectory();
+                    } else if (key == statusDirectoryKey) {
+                        readStatusFile(new File(statusDirectory, ((Path) event.context()).toString()));
+                    } else if (statusDirectory.getName().equals(((Path) event.context()).toString())) {
+                        watchStatusDirectory();
+                    }
+                }
+                key.reset();
+            }
+        } catch (final ClosedWatchServiceException e) {
+            // stopped
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final IOException e) {
+            logger.error("Could not watch the scan status directory: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void watchStatusDirectory() throws IOException {
+        if (statusDirectoryKey == null) {
+            statusDirectoryKey = statusDirectory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            // files written before the registration raise no events
+            readStatusDirectory();
+        }
+    }
+
+    private synchronized void readStatusDirectory() {
+        final File[] statusFiles = statusDirectory.listFiles();
+        if (statusFiles != null) {
+            for (final File statusFile : statusFiles) {
+                readStatusFile(statusFile);
+            }
+        }
+    }
+
+    private synchronized void readStatusFile(final File statusFile) {
+        if (!statusFile.isFile()) {
+            return;
+        }
+        final String fileContent;
+        try {
+            fileContent = FileUtils.readFileToString(statusFile, "UTF8");
+        } catch (final IOException e) {
+            logger.debug(String.format("Could not read the status file %s yet: %s", statusFile.getName(), e.getMessage()));
+            return;
+        }
+        if (StringUtils.isBlank(fileContent) || fileContent.equals(statusFileContents.get(statusFile.getName()))) {
+            return;
+        }
+
+        final ScanSummaryView scanSummaryItem;
+        try {
+            scanSummaryItem = gson.fromJson(fileContent, ScanSummaryView.class);
+        } catch (final JsonParseException e) {
+            // still being written, the next modification event brings the rest
+            return;
+        }
+        if (scanSummaryItem == null) {
+            return;
+        }
+        scanSummaryItem.setJson(fileContent);
+        statusFileContents.put(statusFile.getName(), fileContent);
+        scanSummaries.put(statusFile.getName(), scanSummaryItem);
+        listener.scanStatusChanged(statusFile, scanSummaryItem);
+    }
+
+}
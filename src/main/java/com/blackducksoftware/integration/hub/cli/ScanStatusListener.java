@@ -0,0 +1,41 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+
+/**
+ * Receives the scan status files the CLI writes while a scan is running. Callbacks are made from the monitor thread,
+ * so implementations must be thread safe and should not block.
+ */
+public interface ScanStatusListener {
+    /**
+     * Called when a status file is created or its content changes, with the scan summary it now holds. The scan
+     * summary's json is set, so its links can be read through the MetaService.
+     */
+    public void scanStatusChanged(File statusFile, ScanSummaryView scanSummary);
+
+}
@@ -78,6 +78,8 @@ public class SimpleScanService {
 
     private File logDirectory;
 
+    private volatile ScanStatusListener scanStatusListener;
+
     public SimpleScanService(final IntLogger logger, final Gson gson, final HubServerConfig hubServerConfig,
             final HubSupportHelper hubSupportHelper, final CIEnvironmentVariables ciEnvironmentVariables, final HubScanConfig hubScanConfig) {
         this.gson = gson;
@@ -104,6 +106,14 @@ public class SimpleScanService {
 
     }
 
+    /**
+     * Reports the status files the CLI writes while the scan runs, so the scan summaries can be acted on before the CLI
+     * exits. Only Hubs that support the statusWriteDir option produce status files.
+     */
+    public void setScanStatusListener(final ScanStatusListener scanStatusListener) {
+        this.scanStatusListener = scanStatusListener;
+    }
+
     /**
      * This will setup the command-line invocation of the Hub scanner. The workingDirectoryPath is the parent folder of
      * the scan logs and other scan artifacts.
@@ -264,14 +274,21 @@ public class SimpleScanService {
                 processBuilder.environment().put("BD_HUB_DECLARED_COMPONENTS", bdioEnvVar);
             }
 
-            final Process hubCliProcess = processBuilder.start();
-
-            // The cli logs go the error stream for some reason
-            final StreamRedirectThread redirectThread = new StreamRedirectThread(hubCliProcess.getErrorStream(), splitOutputStream);
-            redirectThread.start();
+            ScanStatusDirectoryMonitor scanStatusMonitor = null;
+            if (scanStatusListener != null) {
+                scanStatusMonitor = new ScanStatusDirectoryMonitor(logger, gson, getStatusDirectory(), scanStatusListener);
+                scanStatusMonitor.start();
+            }
 
+            final Process hubCliProcess;
             int returnCode = -1;
             try {
+                hubCliProcess = processBuilder.start();
+
+                // The cli logs go the error stream for some reason
+                final StreamRedirectThread redirectThread = new StreamRedirectThread(hubCliProcess.getErrorStream(), splitOutputStream);
+                redirectThread.start();
+
                 returnCode = hubCliProcess.waitFor();
 
                 // the join method on the redirect thread will wait until the thread is dead
@@ -279,6 +296,10 @@ public class SimpleScanService {
                 redirectThread.join();
             } catch (final InterruptedException e) {
                 throw new HubIntegrationException("The thread waiting for the cli to complete was interrupted: " + e.getMessage(), e);
+            } finally {
+                if (scanStatusMonitor != null) {
+                    scanStatusMonitor.stop();
+                }
             }
 
             splitOutputStream.flush();
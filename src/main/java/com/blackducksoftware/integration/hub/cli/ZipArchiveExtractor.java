@@ -0,0 +1,186 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Extracts the CLI archive, either straight from the download stream or, when the archive is already on disk, with
+ * several threads inflating entries at once.
+ *
+ * Neither ZipInputStream nor ZipFile exposes the unix permissions stored in the archive, so files in a bin directory
+ * and shell scripts are made executable, which covers the CLI scripts and its bundled JRE.
+ */
+public class ZipArchiveExtractor {
+    public static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final IntLogger logger;
+
+    public ZipArchiveExtractor(final IntLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Extracts the entries as they are read from the stream, so the archive is never written to disk itself.
+     */
+    public void extract(final InputStream zipStream, final File directory) throws IOException {
+        final File targetDirectory = directory.getCanonicalFile();
+        final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+        int fileCount = 0;
+        try (ZipInputStream zipInputStream = new ZipInputStream(zipStream)) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                final File file = getTargetFile(targetDirectory, entry);
+                if (entry.isDirectory()) {
+                    file.mkdirs();
+                } else {
+                    writeFile(zipInputStream, file, entry, copyBuffer);
+                    fileCount++;
+                }
+                zipInputStream.closeEntry();
+            }
+        }
+        logger.debug(String.format("Extracted %d files to %s", fileCount, targetDirectory.getAbsolutePath()));
+    }
+
+    /**
+     * Extracts the entries of an archive on disk on up to maximumThreads threads, starting with the largest entries.
+     */
+    public void extract(final File zipFile, final File directory, final int maximumThreads) throws IOException {
+        final File targetDirectory = directory.getCanonicalFile();
+        try (final ZipFile zip = new ZipFile(zipFile)) {
+            final List<ZipEntry> fileEntries = new ArrayList<>();
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    getTargetFile(targetDirectory, entry).mkdirs();
+                } else {
+                    fileEntries.add(entry);
+                }
+            }
+            Collections.sort(fileEntries, new Comparator<ZipEntry>() {
+                @Override
+                public int compare(final ZipEntry first, final ZipEntry second) {
+                    return Long.compare(second.getSize(), first.getSize());
+                }
+            });
+
+            final ExecutorService executorService = DaemonExecutors.createPool(Math.max(1, Math.min(maximumThreads, fileEntries.size())));
+            final List<Future<Void>> extractions = new ArrayList<>();
+            try {
+                final ThreadLocal<byte[]> copyBuffers = new ThreadLocal<byte[]>() {
+                    @Override
+                    protected byte[] initialValue() {
+                        return new byte[COPY_BUFFER_SIZE];
+                    }
+                };
+                for (final ZipEntry entry : fileEntries) {
+                    final File file = getTargetFile(targetDirectory, entry);
+                    extractions.add(executorService.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            try (InputStream entryStream = zip.getInputStream(entry)) {
+                                writeFile(entryStream, file, entry, copyBuffers.get());
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (final Future<Void> extraction : extractions) {
+                    extraction.get();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The thread waiting for the archive to be extracted was interrupted: " + e.getMessage(), e);
+            } catch (final ExecutionException e) {
+                throw DaemonExecutors.getIOException(e);
+            } finally {
+                for (final Future<Void> extraction : extractions) {
+                    extraction.cancel(true);
+                }
+                executorService.shutdownNow();
+            }
+            logger.debug(String.format("Extracted %d files to %s", fileEntries.size(), targetDirectory.getAbsolutePath()));
+        }
+    }
+
+    private File getTargetFile(final File targetDirectory, final ZipEntry entry) throws IOException {
+        final File file = new File(targetDirectory, entry.getName()).getCanonicalFile();
+        if (!file.toPath().startsWith(targetDirectory.toPath())) {
+            throw new IOException("The archive entry " + entry.getName() + " is outside of " + targetDirectory.getAbsolutePath());
+        }
+        return file;
+    }
+
+    private void writeFile(final InputStream input, final File file, final ZipEntry entry, final byte[] copyBuffer) throws IOException {
+        final File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(copyBuffer);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = input.read(copyBuffer)) != -1) {
+                byteBuffer.clear();
+                byteBuffer.limit(read);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+            }
+        }
+        if (entry.getTime() != -1) {
+            file.setLastModified(entry.getTime());
+        }
+        if (isExecutable(entry.getName())) {
+            file.setExecutable(true);
+        }
+    }
+
+    private boolean isExecutable(final String entryName) {
+        return entryName.startsWith("bin/") || entryName.contains("/bin/") || entryName.endsWith(".sh");
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.bom;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+import com.blackducksoftware.integration.hub.model.enumeration.RiskCountEnum;
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskCountView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskProfileView;
+
+/**
+ * A component that is in the BOM of both versions, as it was in the first and as it is in the second.
+ */
+public class BomComponentChange {
+    private final VersionBomComponentView fromBomComponent;
+
+    private final VersionBomComponentView toBomComponent;
+
+    private final boolean riskChanged;
+
+    public BomComponentChange(final VersionBomComponentView fromBomComponent, final VersionBomComponentView toBomComponent) {
+        this.fromBomComponent = fromBomComponent;
+        this.toBomComponent = toBomComponent;
+        this.riskChanged = !Arrays.equals(getRiskCounts(fromBomComponent), getRiskCounts(toBomComponent));
+    }
+
+    /**
+     * The high, medium and low counts of the vulnerability, license and operational risk profiles, in that order.
+     */
+    static int[] getRiskCounts(final VersionBomComponentView bomComponent) {
+        final int[] riskCounts = new int[9];
+        addRiskCounts(riskCounts, 0, bomComponent.getSecurityRiskProfile());
+        addRiskCounts(riskCounts, 3, bomComponent.getLicenseRiskProfile());
+        addRiskCounts(riskCounts, 6, bomComponent.getOperationalRiskProfile());
+        return riskCounts;
+    }
+
+    private static void addRiskCounts(final int[] riskCounts, final int offset, final RiskProfileView riskProfile) {
+        if (riskProfile == null || riskProfile.getCounts() == null) {
+            return;
+        }
+        for (final RiskCountView count : riskProfile.getCounts()) {
+            if (count.getCount() == null) {
+                continue;
+            } else if (count.getCountType() == RiskCountEnum.HIGH) {
+                riskCounts[offset] += count.getCount();
+            } else if (count.getCountType() == RiskCountEnum.MEDIUM) {
+                riskCounts[offset + 1] += count.getCount();
+            } else if (count.getCountType() == RiskCountEnum.LOW) {
+                riskCounts[offset + 2] += count.getCount();
+            }
+        }
+    }
+
+    public VersionBomComponentView getFromBomComponent() {
+        return fromBomComponent;
+    }
+
+    public VersionBomComponentView getToBomComponent() {
+        return toBomComponent;
+    }
+
+    public boolean isRiskChanged() {
+        return riskChanged;
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+}
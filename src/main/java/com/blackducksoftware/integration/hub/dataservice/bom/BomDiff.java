@@ -0,0 +1,99 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.bom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+
+/**
+ * The differences between the BOMs of two project versions. A component is upgraded when the second BOM has a
+ * different version of it than the first, and risk changed when both BOMs have the same version of it with different
+ * risk counts. Upgraded components may have changed risk too, see BomComponentChange.isRiskChanged.
+ */
+public class BomDiff {
+    private final List<VersionBomComponentView> addedComponents = new ArrayList<>();
+
+    private final List<VersionBomComponentView> removedComponents = new ArrayList<>();
+
+    private final List<BomComponentChange> upgradedComponents = new ArrayList<>();
+
+    private final List<BomComponentChange> riskChangedComponents = new ArrayList<>();
+
+    private int unchangedComponentCount;
+
+    void addAddedComponent(final VersionBomComponentView bomComponent) {
+        addedComponents.add(bomComponent);
+    }
+
+    void addRemovedComponent(final VersionBomComponentView bomComponent) {
+        removedComponents.add(bomComponent);
+    }
+
+    void addUpgradedComponent(final BomComponentChange componentChange) {
+        upgradedComponents.add(componentChange);
+    }
+
+    void addRiskChangedComponent(final BomComponentChange componentChange) {
+        riskChangedComponents.add(componentChange);
+    }
+
+    void addUnchangedComponent() {
+        unchangedComponentCount++;
+    }
+
+    public List<VersionBomComponentView> getAddedComponents() {
+        return addedComponents;
+    }
+
+    public List<VersionBomComponentView> getRemovedComponents() {
+        return removedComponents;
+    }
+
+    public List<BomComponentChange> getUpgradedComponents() {
+        return upgradedComponents;
+    }
+
+    public List<BomComponentChange> getRiskChangedComponents() {
+        return riskChangedComponents;
+    }
+
+    public int getUnchangedComponentCount() {
+        return unchangedComponentCount;
+    }
+
+    public boolean hasChanges() {
+        return !addedComponents.isEmpty() || !removedComponents.isEmpty() || !upgradedComponents.isEmpty() || !riskChangedComponents.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+}
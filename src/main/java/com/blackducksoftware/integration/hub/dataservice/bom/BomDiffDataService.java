@@ -0,0 +1,150 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.bom;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.aggregate.bom.AggregateBomRequestService;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.service.PageListener;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Compares the BOMs of two project versions, such as a release and the one before it.
+ *
+ * The BOMs are joined as a hash join: the smaller BOM, going by the totalCount of each, is paged first and held by
+ * component version url, then the larger BOM is paged through it. Each of its entries is matched on its component
+ * version url, and both are dropped as soon as they match, so besides the smaller BOM only entries that end up in the
+ * diff are held. The entries left unmatched at the end are paired on their component url into upgrades, and the rest
+ * are the added and removed components.
+ */
+public class BomDiffDataService {
+    private final IntLogger logger;
+
+    private final AggregateBomRequestService bomRequestService;
+
+    public BomDiffDataService(final IntLogger logger, final AggregateBomRequestService bomRequestService) {
+        this.logger = logger;
+        this.bomRequestService = bomRequestService;
+    }
+
+    public BomDiff getBomDiff(final ProjectVersionView fromVersion, final ProjectVersionView toVersion) throws IntegrationException {
+        final BomJoin bomJoin = new BomJoin();
+        if (bomRequestService.getBomEntryCount(fromVersion) <= bomRequestService.getBomEntryCount(toVersion)) {
+            bomRequestService.getBomEntries(fromVersion, bomJoin.fromListener);
+            bomRequestService.getBomEntries(toVersion, bomJoin.toListener);
+        } else {
+            bomRequestService.getBomEntries(toVersion, bomJoin.toListener);
+            bomRequestService.getBomEntries(fromVersion, bomJoin.fromListener);
+        }
+        final BomDiff bomDiff = bomJoin.finish();
+        logger.debug(String.format("BOM diff: %d added, %d removed, %d upgraded, %d risk changed, %d unchanged", bomDiff.getAddedComponents().size(),
+                bomDiff.getRemovedComponents().size(), bomDiff.getUpgradedComponents().size(), bomDiff.getRiskChangedComponents().size(),
+                bomDiff.getUnchangedComponentCount()));
+        return bomDiff;
+    }
+
+    private static String getComponentVersionKey(final VersionBomComponentView bomComponent) {
+        if (StringUtils.isBlank(bomComponent.getComponentVersion())) {
+            return bomComponent.getComponent();
+        }
+        return bomComponent.getComponentVersion();
+    }
+
+    private static class BomJoin {
+        private final BomDiff bomDiff = new BomDiff();
+
+        private final Map<String, VersionBomComponentView> unmatchedFromComponents = new LinkedHashMap<>();
+
+        private final Map<String, VersionBomComponentView> unmatchedToComponents = new LinkedHashMap<>();
+
+        private final PageListener<VersionBomComponentView> fromListener = new PageListener<VersionBomComponentView>() {
+            @Override
+            public void itemsReceived(final List<VersionBomComponentView> bomComponents) {
+                receive(bomComponents, true);
+            }
+        };
+
+        private final PageListener<VersionBomComponentView> toListener = new PageListener<VersionBomComponentView>() {
+            @Override
+            public void itemsReceived(final List<VersionBomComponentView> bomComponents) {
+                receive(bomComponents, false);
+            }
+        };
+
+        private void receive(final List<VersionBomComponentView> bomComponents, final boolean fromBom) {
+            final Map<String, VersionBomComponentView> unmatchedComponents = fromBom ? unmatchedFromComponents : unmatchedToComponents;
+            final Map<String, VersionBomComponentView> otherUnmatchedComponents = fromBom ? unmatchedToComponents : unmatchedFromComponents;
+            for (final VersionBomComponentView bomComponent : bomComponents) {
+                final String key = getComponentVersionKey(bomComponent);
+                final VersionBomComponentView match = otherUnmatchedComponents.remove(key);
+                if (match == null) {
+                    unmatchedComponents.put(key, bomComponent);
+                } else {
+                    final BomComponentChange componentChange = fromBom ? new BomComponentChange(bomComponent, match) : new BomComponentChange(match, bomComponent);
+                    if (componentChange.isRiskChanged()) {
+                        bomDiff.addRiskChangedComponent(componentChange);
+                    } else {
+                        bomDiff.addUnchangedComponent();
+                    }
+                }
+            }
+        }
+
+        private BomDiff finish() {
+            final Map<String, Deque<VersionBomComponentView>> removedByComponent = new LinkedHashMap<>();
+            for (final VersionBomComponentView fromComponent : unmatchedFromComponents.values()) {
+                Deque<VersionBomComponentView> componentVersions = removedByComponent.get(fromComponent.getComponent());
+                if (componentVersions == null) {
+                    componentVersions = new ArrayDeque<>();
+                    removedByComponent.put(fromComponent.getComponent(), componentVersions);
+                }
+                componentVersions.add(fromComponent);
+            }
+            for (final VersionBomComponentView toComponent : unmatchedToComponents.values()) {
+                final Deque<VersionBomComponentView> componentVersions = removedByComponent.get(toComponent.getComponent());
+                if (componentVersions == null || componentVersions.isEmpty()) {
+                    bomDiff.addAddedComponent(toComponent);
+                } else {
+                    bomDiff.addUpgradedComponent(new BomComponentChange(componentVersions.poll(), toComponent));
+                }
+            }
+            for (final Deque<VersionBomComponentView> componentVersions : removedByComponent.values()) {
+                for (final VersionBomComponentView fromComponent : componentVersions) {
+                    bomDiff.addRemovedComponent(fromComponent);
+                }
+            }
+            return bomDiff;
+        }
+    }
+
+}
@@ -23,6 +23,7 @@
  */
 package com.blackducksoftware.integration.hub.dataservice.notification;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.SortedSet;
@@ -33,8 +34,11 @@ import com.blackducksoftware.integration.hub.api.item.MetaService;
 import com.blackducksoftware.integration.hub.api.notification.NotificationRequestService;
 import com.blackducksoftware.integration.hub.api.policy.PolicyRequestService;
 import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.vulnerability.VulnerabilityRequestService;
+import com.blackducksoftware.integration.hub.dataservice.notification.metrics.NotificationMetricsListener;
 import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
 import com.blackducksoftware.integration.hub.dataservice.notification.model.PolicyNotificationFilter;
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.AbstractNotificationTransformer;
 import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationClearedTransformer;
 import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationOverrideTransformer;
 import com.blackducksoftware.integration.hub.dataservice.notification.transformer.PolicyViolationTransformer;
@@ -65,6 +69,14 @@ public class NotificationDataService {
 
     private final MetaService metaService;
 
+    private final List<AbstractNotificationTransformer> transformers = new ArrayList<>();
+
+    private final IntLogger logger;
+
+    private volatile NotificationMetricsListener metricsListener;
+
+    private volatile VulnerabilityContentItemEnricher vulnerabilityEnricher;
+
     public NotificationDataService(final IntLogger logger, final HubResponseService hubResponseService,
             final NotificationRequestService notificationRequestService,
             final ProjectVersionRequestService projectVersionRequestService, final PolicyRequestService policyRequestService,
@@ -84,44 +96,98 @@ public class NotificationDataService {
         this.policyNotificationFilter = policyNotificationFilter;
         this.parallelProcessor = new ParallelResourceProcessor<>(logger);
         this.metaService = metaService;
+        this.logger = logger;
         populateTransformerMap(logger);
     }
 
     private void populateTransformerMap(final IntLogger logger) {
-        parallelProcessor.addTransform(RuleViolationNotificationView.class,
+        addTransformer(RuleViolationNotificationView.class,
                 new PolicyViolationTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService, policyRequestService,
                         policyNotificationFilter, metaService));
-        parallelProcessor.addTransform(PolicyOverrideNotificationView.class,
+        addTransformer(PolicyOverrideNotificationView.class,
                 new PolicyViolationOverrideTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService,
                         policyRequestService,
                         policyNotificationFilter, metaService));
-        parallelProcessor.addTransform(VulnerabilityNotificationView.class,
+        addTransformer(VulnerabilityNotificationView.class,
                 new VulnerabilityTransformer(hubResponseService, notificationRequestService, projectVersionRequestService, policyRequestService,
                         metaService,
-                        logger));
-        parallelProcessor.addTransform(RuleViolationClearedNotificationView.class,
+                        logger, parallelProcessor.getExecutorService()));
+        addTransformer(RuleViolationClearedNotificationView.class,
                 new PolicyViolationClearedTransformer(hubResponseService, logger, notificationRequestService, projectVersionRequestService,
                         policyRequestService,
                         policyNotificationFilter, metaService));
     }
 
+    private void addTransformer(final Class<?> notificationClass, final AbstractNotificationTransformer transformer) {
+        parallelProcessor.addTransform(notificationClass, transformer);
+        transformers.add(transformer);
+    }
+
+    /**
+     * Attaches the listener to every stage of the notification pipeline owned by this service: notification paging,
+     * the transform queue, the transformers and the fetch/transform/sort stages. A null listener (the default) turns
+     * off all instrumentation.
+     */
+    public void setMetricsListener(final NotificationMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        notificationRequestService.setMetricsListener(metricsListener);
+        parallelProcessor.setListener(metricsListener);
+        for (final AbstractNotificationTransformer transformer : transformers) {
+            transformer.setMetricsListener(metricsListener);
+        }
+    }
+
+    /**
+     * When enabled, the VulnerabilityContentItems of every batch are enriched with the full VulnerabilityView of the
+     * vulnerabilities they reference. Passing null disables the enrichment (the default).
+     */
+    public void enableVulnerabilityEnrichment(final VulnerabilityRequestService vulnerabilityRequestService) {
+        if (vulnerabilityRequestService == null) {
+            vulnerabilityEnricher = null;
+        } else {
+            vulnerabilityEnricher = new VulnerabilityContentItemEnricher(logger, vulnerabilityRequestService, metaService,
+                    parallelProcessor.getExecutorService());
+        }
+    }
+
     public NotificationResults getAllNotifications(final Date startDate, final Date endDate) throws IntegrationException {
-        final SortedSet<NotificationContentItem> contentList = new TreeSet<>();
+        final long startNanos = System.nanoTime();
         final List<NotificationView> itemList = notificationRequestService.getAllNotifications(startDate, endDate);
-        final ParallelResourceProcessorResults<NotificationContentItem> processorResults = parallelProcessor.process(itemList);
-        contentList.addAll(processorResults.getResults());
-        final NotificationResults results = new NotificationResults(contentList, processorResults.getExceptions());
-        return results;
+        recordStage(NotificationMetricsListener.STAGE_FETCH, startNanos, itemList.size());
+        return processNotifications(itemList);
     }
 
     public NotificationResults getUserNotifications(final Date startDate, final Date endDate, final UserView user)
             throws IntegrationException {
-        final SortedSet<NotificationContentItem> contentList = new TreeSet<>();
+        final long startNanos = System.nanoTime();
         final List<NotificationView> itemList = notificationRequestService.getUserNotifications(startDate, endDate, user);
+        recordStage(NotificationMetricsListener.STAGE_FETCH, startNanos, itemList.size());
+        return processNotifications(itemList);
+    }
+
+    private NotificationResults processNotifications(final List<NotificationView> itemList) {
+        final SortedSet<NotificationContentItem> contentList = new TreeSet<>();
+        final long transformStartNanos = System.nanoTime();
         final ParallelResourceProcessorResults<NotificationContentItem> processorResults = parallelProcessor.process(itemList);
+        recordStage(NotificationMetricsListener.STAGE_TRANSFORM, transformStartNanos, processorResults.getResults().size());
+        final long sortStartNanos = System.nanoTime();
         contentList.addAll(processorResults.getResults());
+        recordStage(NotificationMetricsListener.STAGE_SORT, sortStartNanos, contentList.size());
+        final VulnerabilityContentItemEnricher enricher = vulnerabilityEnricher;
+        if (enricher != null) {
+            final long enrichStartNanos = System.nanoTime();
+            final int resolvedCount = enricher.enrich(contentList);
+            recordStage(NotificationMetricsListener.STAGE_ENRICH, enrichStartNanos, resolvedCount);
+        }
         final NotificationResults results = new NotificationResults(contentList, processorResults.getExceptions());
         return results;
     }
 
+    private void recordStage(final String stage, final long startNanos, final int itemCount) {
+        final NotificationMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.stageCompleted(stage, System.nanoTime() - startNanos, itemCount);
+        }
+    }
+
 }
@@ -0,0 +1,297 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.vulnerability.VulnerabilityRequestService;
+import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
+import com.blackducksoftware.integration.hub.dataservice.notification.model.VulnerabilityContentItem;
+import com.blackducksoftware.integration.hub.model.view.VulnerabilityView;
+import com.blackducksoftware.integration.hub.model.view.components.VulnerabilitySourceQualifiedId;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Attaches the full VulnerabilityView of every vulnerability referenced by a batch of VulnerabilityContentItems.
+ *
+ * The vulnerabilities are read from the vulnerabilities link of the component versions in the batch. Resolved
+ * vulnerabilities are kept in a bounded cache keyed by source and vulnerability id, so later batches only request
+ * links for vulnerabilities not seen before. Each link is requested at most once per batch, links whose
+ * vulnerabilities are all covered by other links are only requested for the vulnerabilities those links did not
+ * resolve, and the requests run concurrently on the provided executor. Deleted vulnerabilities are usually no longer listed by the component
+ * version, so they may stay unresolved.
+ */
+public class VulnerabilityContentItemEnricher {
+    public static final int DEFAULT_MAXIMUM_CACHED_VULNERABILITIES = 10000;
+
+    private static final String KEY_SEPARATOR = ":";
+
+    private final IntLogger logger;
+
+    private final VulnerabilityRequestService vulnerabilityRequestService;
+
+    private final MetaService metaService;
+
+    private final ExecutorService executorService;
+
+    private final Map<String, VulnerabilityView> cachedVulnerabilities;
+
+    public VulnerabilityContentItemEnricher(final IntLogger logger, final VulnerabilityRequestService vulnerabilityRequestService,
+            final MetaService metaService, final ExecutorService executorService) {
+        this(logger, vulnerabilityRequestService, metaService, executorService, DEFAULT_MAXIMUM_CACHED_VULNERABILITIES);
+    }
+
+    public VulnerabilityContentItemEnricher(final IntLogger logger, final VulnerabilityRequestService vulnerabilityRequestService,
+            final MetaService metaService, final ExecutorService executorService, final int maximumCachedVulnerabilities) {
+        this.logger = logger;
+        this.vulnerabilityRequestService = vulnerabilityRequestService;
+        this.metaService = metaService;
+        this.executorService = executorService;
+        this.cachedVulnerabilities = new LinkedHashMap<String, VulnerabilityView>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, VulnerabilityView> eldest) {
+                return size() > maximumCachedVulnerabilities;
+            }
+        };
+    }
+
+    /**
+     * @return the number of distinct vulnerabilities that were resolved
+     */
+    public int enrich(final Collection<NotificationContentItem> contentItems) {
+        final Map<String, VulnerabilityView> resolvedVulnerabilities = new HashMap<>();
+        final Map<String, Set<String>> vulnerabilityKeysByLink = new LinkedHashMap<>();
+        final Map<VulnerabilityContentItem, String> linksByItem = new HashMap<>();
+        for (final NotificationContentItem contentItem : contentItems) {
+            if (contentItem instanceof VulnerabilityContentItem) {
+                final VulnerabilityContentItem vulnerabilityContentItem = (VulnerabilityContentItem) contentItem;
+                final String vulnerabilitiesLink = getVulnerabilitiesLink(vulnerabilityContentItem);
+                if (vulnerabilitiesLink != null) {
+                    linksByItem.put(vulnerabilityContentItem, vulnerabilitiesLink);
+                    Set<String> vulnerabilityKeys = vulnerabilityKeysByLink.get(vulnerabilitiesLink);
+                    if (vulnerabilityKeys == null) {
+                        vulnerabilityKeys = new HashSet<>();
+                        vulnerabilityKeysByLink.put(vulnerabilitiesLink, vulnerabilityKeys);
+                    }
+                    for (final VulnerabilitySourceQualifiedId id : getVulnerabilityIds(vulnerabilityContentItem)) {
+                        final String key = createKey(id);
+                        final VulnerabilityView cachedVulnerability = getCachedVulnerability(key);
+                        if (cachedVulnerability != null) {
+                            resolvedVulnerabilities.put(key, cachedVulnerability);
+                        } else {
+                            vulnerabilityKeys.add(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        resolveVulnerabilities(vulnerabilityKeysByLink, resolvedVulnerabilities);
+        for (final Map.Entry<VulnerabilityContentItem, String> entry : linksByItem.entrySet()) {
+            final Map<String, VulnerabilityView> itemVulnerabilities = new HashMap<>();
+            for (final VulnerabilitySourceQualifiedId id : getVulnerabilityIds(entry.getKey())) {
+                final VulnerabilityView vulnerability = resolvedVulnerabilities.get(createKey(id));
+                if (vulnerability != null) {
+                    itemVulnerabilities.put(id.getVulnerabilityId(), vulnerability);
+                }
+            }
+            entry.getKey().setVulnerabilities(itemVulnerabilities);
+        }
+        return resolvedVulnerabilities.size();
+    }
+
+    private void resolveVulnerabilities(final Map<String, Set<String>> vulnerabilityKeysByLink, final Map<String, VulnerabilityView> resolvedVulnerabilities) {
+        final Set<String> coveredKeys = new HashSet<>();
+        final List<String> requestedLinks = new ArrayList<>();
+        final List<String> skippedLinks = new ArrayList<>();
+        for (final Map.Entry<String, Set<String>> entry : vulnerabilityKeysByLink.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (coveredKeys.containsAll(entry.getValue())) {
+                skippedLinks.add(entry.getKey());
+            } else {
+                coveredKeys.addAll(entry.getValue());
+                requestedLinks.add(entry.getKey());
+            }
+        }
+        if (!requestVulnerabilities(requestedLinks, vulnerabilityKeysByLink, resolvedVulnerabilities)) {
+            return;
+        }
+
+        // a covering link may have failed, or may no longer list a vulnerability that a skipped link still lists
+        final List<String> fallbackLinks = new ArrayList<>();
+        for (final String skippedLink : skippedLinks) {
+            if (!resolvedVulnerabilities.keySet().containsAll(vulnerabilityKeysByLink.get(skippedLink))) {
+                fallbackLinks.add(skippedLink);
+            }
+        }
+        requestVulnerabilities(fallbackLinks, vulnerabilityKeysByLink, resolvedVulnerabilities);
+    }
+
+    /**
+     * Links that could not be requested are logged and left unresolved.
+     *
+     * @return false if the thread was interrupted, in which case the requests not yet read are cancelled
+     */
+    private boolean requestVulnerabilities(final List<String> links, final Map<String, Set<String>> vulnerabilityKeysByLink,
+            final Map<String, VulnerabilityView> resolvedVulnerabilities) {
+        final List<FutureTask<List<VulnerabilityView>>> tasks = new ArrayList<>();
+        for (final String link : links) {
+            final FutureTask<List<VulnerabilityView>> task = new FutureTask<>(new VulnerabilitiesCallable(link));
+            tasks.add(task);
+            submit(task);
+        }
+
+        for (int index = 0; index < tasks.size(); index++) {
+            final FutureTask<List<VulnerabilityView>> task = tasks.get(index);
+            // does nothing if a worker already started the task
+            task.run();
+            try {
+                final Set<String> wantedKeys = vulnerabilityKeysByLink.get(links.get(index));
+                for (final VulnerabilityView vulnerability : task.get()) {
+                    final String key = findWantedKey(vulnerability, wantedKeys);
+                    if (key != null && !resolvedVulnerabilities.containsKey(key)) {
+                        resolvedVulnerabilities.put(key, vulnerability);
+                        cacheVulnerability(key, vulnerability);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("The thread resolving vulnerabilities was interrupted");
+                for (final FutureTask<List<VulnerabilityView>> submittedTask : tasks) {
+                    submittedTask.cancel(true);
+                }
+                return false;
+            } catch (final ExecutionException e) {
+                logger.warn(String.format("Could not get the vulnerabilities from %s: %s", links.get(index), e.getCause().getMessage()));
+            }
+        }
+        return true;
+    }
+
+    private String findWantedKey(final VulnerabilityView vulnerability, final Set<String> linkKeys) {
+        final String name = vulnerability.getVulnerabilityName();
+        if (name == null) {
+            return null;
+        }
+        if (vulnerability.getSource() != null) {
+            final String key = createKey(vulnerability.getSource(), name);
+            return linkKeys.contains(key) ? key : null;
+        }
+        // without a source the vulnerability matches a wanted id from any source
+        for (final String key : linkKeys) {
+            if (key.endsWith(KEY_SEPARATOR + name)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private VulnerabilityView getCachedVulnerability(final String key) {
+        synchronized (cachedVulnerabilities) {
+            return cachedVulnerabilities.get(key);
+        }
+    }
+
+    private void cacheVulnerability(final String key, final VulnerabilityView vulnerability) {
+        synchronized (cachedVulnerabilities) {
+            cachedVulnerabilities.put(key, vulnerability);
+        }
+    }
+
+    private String createKey(final VulnerabilitySourceQualifiedId id) {
+        return createKey(id.getSource(), id.getVulnerabilityId());
+    }
+
+    private String createKey(final String source, final String vulnerabilityId) {
+        return StringUtils.upperCase(StringUtils.defaultString(source)) + KEY_SEPARATOR + vulnerabilityId;
+    }
+
+    private void submit(final FutureTask<List<VulnerabilityView>> task) {
+        if (executorService != null) {
+            try {
+                executorService.execute(task);
+            } catch (final RejectedExecutionException e) {
+                // the task will be run by the enriching thread
+            }
+        }
+    }
+
+    private String getVulnerabilitiesLink(final VulnerabilityContentItem contentItem) {
+        if (contentItem.getComponentVersion() == null) {
+            return null;
+        }
+        return metaService.getFirstLinkSafely(contentItem.getComponentVersion(), MetaService.VULNERABILITIES_LINK);
+    }
+
+    private List<VulnerabilitySourceQualifiedId> getVulnerabilityIds(final VulnerabilityContentItem contentItem) {
+        final List<VulnerabilitySourceQualifiedId> vulnerabilityIds = new ArrayList<>();
+        addVulnerabilityIds(vulnerabilityIds, contentItem.getAddedVulnList());
+        addVulnerabilityIds(vulnerabilityIds, contentItem.getUpdatedVulnList());
+        addVulnerabilityIds(vulnerabilityIds, contentItem.getDeletedVulnList());
+        return vulnerabilityIds;
+    }
+
+    private void addVulnerabilityIds(final List<VulnerabilitySourceQualifiedId> vulnerabilityIds, final List<VulnerabilitySourceQualifiedId> idList) {
+        if (idList != null) {
+            for (final VulnerabilitySourceQualifiedId id : idList) {
+                if (id.getVulnerabilityId() != null) {
+                    vulnerabilityIds.add(id);
+                }
+            }
+        }
+    }
+
+    private class VulnerabilitiesCallable implements Callable<List<VulnerabilityView>> {
+        private final String vulnerabilitiesLink;
+
+        public VulnerabilitiesCallable(final String vulnerabilitiesLink) {
+            this.vulnerabilitiesLink = vulnerabilitiesLink;
+        }
+
+        @Override
+        public List<VulnerabilityView> call() throws Exception {
+            return vulnerabilityRequestService.getComponentVersionVulnerabilities(vulnerabilitiesLink);
+        }
+    }
+
+}
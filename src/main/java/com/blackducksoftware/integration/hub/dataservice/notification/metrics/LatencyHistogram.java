@@ -0,0 +1,147 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+/**
+ * A lock free latency histogram with power of two nanosecond buckets. Bucket i holds the samples in [2^(i-1), 2^i),
+ * so percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long currentMax = maxNanos.get();
+        while (value > currentMax && !maxNanos.compareAndSet(currentMax, value)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    public Snapshot getSnapshot() {
+        final long[] bucketCounts = new long[BUCKET_COUNT];
+        long sampleCount = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            bucketCounts[index] = buckets.get(index);
+            sampleCount += bucketCounts[index];
+        }
+        return new Snapshot(sampleCount, totalNanos.get(), maxNanos.get(), percentile(bucketCounts, sampleCount, 0.50),
+                percentile(bucketCounts, sampleCount, 0.90), percentile(bucketCounts, sampleCount, 0.99));
+    }
+
+    private int bucketIndex(final long nanos) {
+        return Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private long percentile(final long[] bucketCounts, final long sampleCount, final double percentile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(sampleCount * percentile);
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += bucketCounts[index];
+            if (seen >= rank) {
+                return index == 0 ? 0 : (1L << Math.min(index, 62));
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public static class Snapshot {
+        private final long count;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        private final long p50Nanos;
+
+        private final long p90Nanos;
+
+        private final long p99Nanos;
+
+        public Snapshot(final long count, final long totalNanos, final long maxNanos, final long p50Nanos, final long p90Nanos, final long p99Nanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMeanNanos() {
+            if (count == 0) {
+                return 0;
+            }
+            return totalNanos / count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+        }
+    }
+
+}
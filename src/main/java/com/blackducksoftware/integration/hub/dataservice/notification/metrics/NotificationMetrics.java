@@ -0,0 +1,140 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe NotificationMetricsListener that accumulates everything it is told into counters and latency
+ * histograms. Call getSnapshot() at any time to log or publish the current values.
+ */
+public class NotificationMetrics implements NotificationMetricsListener {
+    private final LatencyHistogram pageLatency = new LatencyHistogram();
+
+    private final AtomicLong notificationsFetched = new AtomicLong();
+
+    private final AtomicLong bytesDecoded = new AtomicLong();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    private final ConcurrentMap<String, LatencyHistogram> transformLatencies = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> contentItemCounts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> transformErrorCounts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> hubRequestCounts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LatencyHistogram> stageLatencies = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> stageItemCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void notificationPageFetched(final long elapsedNanos, final int itemCount, final long bytes) {
+        pageLatency.record(elapsedNanos);
+        notificationsFetched.addAndGet(itemCount);
+        bytesDecoded.addAndGet(bytes);
+    }
+
+    @Override
+    public void itemDequeued(final Class<?> itemClass, final long queueWaitNanos) {
+        queueWait.record(queueWaitNanos);
+    }
+
+    @Override
+    public void itemTransformed(final Class<?> itemClass, final long elapsedNanos, final int resultCount) {
+        final String key = itemClass.getSimpleName();
+        getHistogram(transformLatencies, key).record(elapsedNanos);
+        getCounter(contentItemCounts, key).addAndGet(resultCount);
+    }
+
+    @Override
+    public void itemTransformFailed(final Class<?> itemClass, final long elapsedNanos, final Exception exception) {
+        final String key = itemClass.getSimpleName();
+        getHistogram(transformLatencies, key).record(elapsedNanos);
+        getCounter(transformErrorCounts, key).incrementAndGet();
+    }
+
+    @Override
+    public void hubRequestMade(final Class<?> transformerClass) {
+        getCounter(hubRequestCounts, transformerClass.getSimpleName()).incrementAndGet();
+    }
+
+    @Override
+    public void stageCompleted(final String stage, final long elapsedNanos, final int itemCount) {
+        getHistogram(stageLatencies, stage).record(elapsedNanos);
+        getCounter(stageItemCounts, stage).addAndGet(itemCount);
+    }
+
+    public NotificationMetricsSnapshot getSnapshot() {
+        return new NotificationMetricsSnapshot(pageLatency.getSnapshot(), notificationsFetched.get(), bytesDecoded.get(), queueWait.getSnapshot(),
+                snapshotHistograms(transformLatencies), snapshotCounters(contentItemCounts), snapshotCounters(transformErrorCounts),
+                snapshotCounters(hubRequestCounts), snapshotHistograms(stageLatencies), snapshotCounters(stageItemCounts));
+    }
+
+    private LatencyHistogram getHistogram(final ConcurrentMap<String, LatencyHistogram> histograms, final String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            final LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private AtomicLong getCounter(final ConcurrentMap<String, AtomicLong> counters, final String key) {
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    private Map<String, LatencyHistogram.Snapshot> snapshotHistograms(final Map<String, LatencyHistogram> histograms) {
+        final Map<String, LatencyHistogram.Snapshot> snapshots = new HashMap<>();
+        for (final Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return snapshots;
+    }
+
+    private Map<String, Long> snapshotCounters(final Map<String, AtomicLong> counters) {
+        final Map<String, Long> snapshots = new HashMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshots;
+    }
+
+}
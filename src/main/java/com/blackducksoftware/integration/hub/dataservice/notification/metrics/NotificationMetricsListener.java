@@ -0,0 +1,66 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification.metrics;
+
+import com.blackducksoftware.integration.hub.dataservice.parallel.ParallelResourceProcessorListener;
+
+/**
+ * Receives instrumentation events from the notification pipeline. Register an implementation with
+ * NotificationDataService.setMetricsListener and NotificationProcessor.setMetricsListener; when no listener is
+ * registered the pipeline does not take any timings.
+ *
+ * Callbacks can be made concurrently from the transform worker threads, so implementations must be thread safe.
+ */
+public interface NotificationMetricsListener extends ParallelResourceProcessorListener {
+    public static final String STAGE_FETCH = "fetch";
+
+    public static final String STAGE_TRANSFORM = "transform";
+
+    public static final String STAGE_SORT = "sort";
+
+    public static final String STAGE_ENRICH = "enrich";
+
+    public static final String STAGE_CREATE_EVENTS = "createEvents";
+
+    public static final String STAGE_COLLECT_EVENTS = "collectEvents";
+
+    public static final String STAGE_PROCESS_EVENTS = "processEvents";
+
+    /**
+     * Called once for every page of notifications read from the Hub.
+     */
+    public void notificationPageFetched(long elapsedNanos, int itemCount, long bytesDecoded);
+
+    /**
+     * Called every time a transformer makes a request to the Hub. The transformer class identifies the notification
+     * type, since each transformer handles exactly one type.
+     */
+    public void hubRequestMade(Class<?> transformerClass);
+
+    /**
+     * Called when a stage of NotificationDataService or NotificationProcessor completes.
+     */
+    public void stageCompleted(String stage, long elapsedNanos, int itemCount);
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+/**
+ * An immutable copy of the values accumulated by NotificationMetrics. Transform latencies, content item counts and
+ * error counts are keyed by the simple name of the notification view class, Hub request counts by the simple name of
+ * the transformer and stage values by the stage names in NotificationMetricsListener.
+ */
+public class NotificationMetricsSnapshot {
+    private final LatencyHistogram.Snapshot pageLatency;
+
+    private final long notificationsFetched;
+
+    private final long bytesDecoded;
+
+    private final LatencyHistogram.Snapshot queueWait;
+
+    private final Map<String, LatencyHistogram.Snapshot> transformLatencies;
+
+    private final Map<String, Long> contentItemCounts;
+
+    private final Map<String, Long> transformErrorCounts;
+
+    private final Map<String, Long> hubRequestCounts;
+
+    private final Map<String, LatencyHistogram.Snapshot> stageLatencies;
+
+    private final Map<String, Long> stageItemCounts;
+
+    public NotificationMetricsSnapshot(final LatencyHistogram.Snapshot pageLatency, final long notificationsFetched, final long bytesDecoded,
+            final LatencyHistogram.Snapshot queueWait, final Map<String, LatencyHistogram.Snapshot> transformLatencies,
+            final Map<String, Long> contentItemCounts, final Map<String, Long> transformErrorCounts, final Map<String, Long> hubRequestCounts,
+            final Map<String, LatencyHistogram.Snapshot> stageLatencies, final Map<String, Long> stageItemCounts) {
+        this.pageLatency = pageLatency;
+        this.notificationsFetched = notificationsFetched;
+        this.bytesDecoded = bytesDecoded;
+        this.queueWait = queueWait;
+        this.transformLatencies = Collections.unmodifiableMap(transformLatencies);
+        this.contentItemCounts = Collections.unmodifiableMap(contentItemCounts);
+        this.transformErrorCounts = Collections.unmodifiableMap(transformErrorCounts);
+        this.hubRequestCounts = Collections.unmodifiableMap(hubRequestCounts);
+        this.stageLatencies = Collections.unmodifiableMap(stageLatencies);
+        this.stageItemCounts = Collections.unmodifiableMap(stageItemCounts);
+    }
+
+    public LatencyHistogram.Snapshot getPageLatency() {
+        return pageLatency;
+    }
+
+    public long getPagesFetched() {
+        return pageLatency.getCount();
+    }
+
+    public long getNotificationsFetched() {
+        return notificationsFetched;
+    }
+
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    public LatencyHistogram.Snapshot getQueueWait() {
+        return queueWait;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getTransformLatencies() {
+        return transformLatencies;
+    }
+
+    public Map<String, Long> getContentItemCounts() {
+        return contentItemCounts;
+    }
+
+    public Map<String, Long> getTransformErrorCounts() {
+        return transformErrorCounts;
+    }
+
+    public long getTotalTransformErrors() {
+        long total = 0;
+        for (final Long errorCount : transformErrorCounts.values()) {
+            total += errorCount;
+        }
+        return total;
+    }
+
+    public Map<String, Long> getHubRequestCounts() {
+        return hubRequestCounts;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getStageLatencies() {
+        return stageLatencies;
+    }
+
+    public Map<String, Long> getStageItemCounts() {
+        return stageItemCounts;
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+}
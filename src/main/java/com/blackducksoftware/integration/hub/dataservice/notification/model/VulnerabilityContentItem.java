@@ -24,11 +24,14 @@
 package com.blackducksoftware.integration.hub.dataservice.notification.model;
 
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.blackducksoftware.integration.hub.dataservice.model.ProjectVersionModel;
 import com.blackducksoftware.integration.hub.model.view.ComponentVersionView;
+import com.blackducksoftware.integration.hub.model.view.VulnerabilityView;
 import com.blackducksoftware.integration.hub.model.view.components.VulnerabilitySourceQualifiedId;
 
 public class VulnerabilityContentItem extends NotificationContentItem {
@@ -38,6 +41,8 @@ public class VulnerabilityContentItem extends NotificationContentItem {
 
     private final List<VulnerabilitySourceQualifiedId> deletedVulnList;
 
+    private Map<String, VulnerabilityView> vulnerabilities = Collections.emptyMap();
+
     public VulnerabilityContentItem(final Date createdAt, final ProjectVersionModel projectVersion,
             final String componentName, final ComponentVersionView componentVersion,
             final String componentVersionUrl,
@@ -63,4 +68,20 @@ public class VulnerabilityContentItem extends NotificationContentItem {
         return deletedVulnList;
     }
 
+    /**
+     * The resolved vulnerabilities keyed by vulnerability id. Only populated when vulnerability enrichment is enabled
+     * on the NotificationDataService.
+     */
+    public Map<String, VulnerabilityView> getVulnerabilities() {
+        return vulnerabilities;
+    }
+
+    public void setVulnerabilities(final Map<String, VulnerabilityView> vulnerabilities) {
+        this.vulnerabilities = vulnerabilities;
+    }
+
+    public VulnerabilityView getVulnerability(final VulnerabilitySourceQualifiedId vulnerabilityId) {
+        return vulnerabilities.get(vulnerabilityId.getVulnerabilityId());
+    }
+
 }
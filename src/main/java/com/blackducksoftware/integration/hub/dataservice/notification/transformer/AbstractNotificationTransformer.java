@@ -34,6 +34,7 @@ import com.blackducksoftware.integration.hub.api.policy.PolicyRequestService;
 import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
 import com.blackducksoftware.integration.hub.dataservice.ItemTransform;
 import com.blackducksoftware.integration.hub.dataservice.model.ProjectVersionModel;
+import com.blackducksoftware.integration.hub.dataservice.notification.metrics.NotificationMetricsListener;
 import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.exception.HubItemTransformException;
@@ -58,6 +59,8 @@ public abstract class AbstractNotificationTransformer
 
     private final MetaService metaService;
 
+    private volatile NotificationMetricsListener metricsListener;
+
     public AbstractNotificationTransformer(final HubResponseService hubResponseService, final NotificationRequestService notificationService,
             final ProjectVersionRequestService projectVersionService, final PolicyRequestService policyService,
             final MetaService metaService) {
@@ -101,6 +104,23 @@ public abstract class AbstractNotificationTransformer
         return policyService;
     }
 
+    /**
+     * A null listener (the default) turns off the Hub request counting.
+     */
+    public void setMetricsListener(final NotificationMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Subclasses should call this before every request they make to the Hub.
+     */
+    protected void recordHubRequest() {
+        final NotificationMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.hubRequestMade(getClass());
+        }
+    }
+
     @Override
     public abstract List<NotificationContentItem> transform(NotificationView item) throws HubItemTransformException;
 
@@ -108,6 +128,7 @@ public abstract class AbstractNotificationTransformer
             throws IntegrationException {
         ProjectVersionView item;
         try {
+            recordHubRequest();
             item = hubResponseService.getItem(projectVersionUrl, ProjectVersionView.class);
         } catch (final HubIntegrationException e) {
             final String msg = "Error getting the full ProjectVersion for this affected project version URL: "
@@ -143,6 +164,7 @@ public abstract class AbstractNotificationTransformer
     protected ComponentVersionView getComponentVersion(final String componentVersionLink) throws IntegrationException {
         ComponentVersionView componentVersion = null;
         if (!StringUtils.isBlank(componentVersionLink)) {
+            recordHubRequest();
             componentVersion = hubResponseService.getItem(componentVersionLink, ComponentVersionView.class);
         }
         return componentVersion;
@@ -81,6 +81,7 @@ public abstract class AbstractPolicyTransformer extends AbstractNotificationTran
         }
         final List<PolicyRuleView> rules = new ArrayList<>();
         for (final String ruleUrlViolated : ruleUrlsViolated) {
+            recordHubRequest();
             final PolicyRuleView ruleViolated = getPolicyService().getItem(ruleUrlViolated, PolicyRuleView.class);
             rules.add(ruleViolated);
         }
@@ -111,6 +112,7 @@ public abstract class AbstractPolicyTransformer extends AbstractNotificationTran
     }
 
     protected PolicyRuleView getPolicyRule(final String ruleUrl) throws IntegrationException {
+        recordHubRequest();
         final PolicyRuleView rule = getPolicyService().getItem(ruleUrl, PolicyRuleView.class);
         return rule;
     }
@@ -161,6 +163,7 @@ public abstract class AbstractPolicyTransformer extends AbstractNotificationTran
 
     protected BomComponentPolicyStatusView getBomComponentVersionPolicyStatus(final String policyStatusUrl) throws IntegrationException {
         BomComponentPolicyStatusView bomComponentVersionPolicyStatus;
+        recordHubRequest();
         bomComponentVersionPolicyStatus = getHubResponseService().getItem(policyStatusUrl, BomComponentPolicyStatusView.class);
 
         return bomComponentVersionPolicyStatus;
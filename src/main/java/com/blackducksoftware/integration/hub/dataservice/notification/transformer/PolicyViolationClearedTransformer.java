@@ -129,6 +129,7 @@ public class PolicyViolationClearedTransformer extends AbstractPolicyTransformer
     }
 
     private ProjectVersionView getReleaseItem(final String projectVersionLink) throws IntegrationException {
+        recordHubRequest();
         final ProjectVersionView releaseItem = getProjectVersionService().getItem(projectVersionLink, ProjectVersionView.class);
         return releaseItem;
     }
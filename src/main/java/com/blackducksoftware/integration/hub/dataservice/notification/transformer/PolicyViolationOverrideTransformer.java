@@ -81,6 +81,7 @@ public class PolicyViolationOverrideTransformer extends AbstractPolicyTransforme
         componentVersionList.add(componentStatus);
 
         try {
+            recordHubRequest();
             releaseItem = getProjectVersionService().getItem(policyOverride.getContent().getProjectVersionLink(), ProjectVersionView.class);
         } catch (final IntegrationException e) {
             throw new HubItemTransformException(e);
@@ -136,6 +136,7 @@ public class PolicyViolationTransformer extends AbstractPolicyTransformer {
     }
 
     private ProjectVersionView getReleaseItem(final String projectVersionLink) throws IntegrationException {
+        recordHubRequest();
         final ProjectVersionView releaseItem = getProjectVersionService().getItem(projectVersionLink, ProjectVersionView.class);
         return releaseItem;
     }
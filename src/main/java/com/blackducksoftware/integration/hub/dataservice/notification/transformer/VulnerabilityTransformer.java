@@ -25,7 +25,13 @@ package com.blackducksoftware.integration.hub.dataservice.notification.transform
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.item.MetaService;
 import com.blackducksoftware.integration.hub.api.notification.NotificationRequestService;
 import com.blackducksoftware.integration.hub.api.policy.PolicyRequestService;
@@ -42,18 +48,34 @@ import com.blackducksoftware.integration.hub.model.view.components.AffectedProje
 import com.blackducksoftware.integration.hub.model.view.components.VulnerabilityNotificationContent;
 import com.blackducksoftware.integration.hub.model.view.components.VulnerabilitySourceQualifiedId;
 import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
 import com.blackducksoftware.integration.log.IntLogger;
 
 public class VulnerabilityTransformer extends AbstractNotificationTransformer {
     private final IntLogger logger;
 
+    private final ExecutorService executorService;
+
     public VulnerabilityTransformer(final HubResponseService hubResponseService, final NotificationRequestService notificationService,
             final ProjectVersionRequestService projectVersionService, final PolicyRequestService policyService,
             final MetaService metaService,
             final IntLogger logger) {
+        this(hubResponseService, notificationService, projectVersionService, policyService, metaService, logger, null);
+    }
+
+    /**
+     * When an executorService is provided, the affected project versions of a notification are resolved on it
+     * concurrently. The thread calling transform runs any of those lookups that no worker has started yet, so this is
+     * safe to use with the same executor that runs transform itself.
+     */
+    public VulnerabilityTransformer(final HubResponseService hubResponseService, final NotificationRequestService notificationService,
+            final ProjectVersionRequestService projectVersionService, final PolicyRequestService policyService,
+            final MetaService metaService,
+            final IntLogger logger, final ExecutorService executorService) {
         super(hubResponseService, notificationService, projectVersionService, policyService,
                 metaService);
         this.logger = logger;
+        this.executorService = executorService;
     }
 
     @Override
@@ -86,24 +108,14 @@ public class VulnerabilityTransformer extends AbstractNotificationTransformer {
                                 updatedVulnList,
                                 deletedVulnList, null));
             } else {
-                for (final AffectedProjectVersion affectedProjectVersion : affectedProjectVersionList) {
-                    final ProjectVersionModel fullProjectVersion;
-                    try {
-                        fullProjectVersion = createFullProjectVersion(affectedProjectVersion.getProjectVersion(),
-                                affectedProjectVersion.getProjectName(), affectedProjectVersion.getProjectVersionName());
-                    } catch (final HubIntegrationException e) {
-                        final Throwable originalException = getOriginalException(e);
-                        // Testing the message is awful, but unfortunately the exception type (IOException) does not
-                        // distinguish Forbidden from other errors.
-                        if (originalException.getMessage().contains("Forbidden")) {
-                            logger.warn(String.format("Skipping an affected projectVersion for this vulnerability. ProjectVersion: %s / %s; Reason: %s",
-                                    affectedProjectVersion.getProjectName(), affectedProjectVersion.getProjectVersionName(),
-                                    e.getMessage()));
-                            continue;
-                        } else {
-                            throw e;
-                        }
+                final List<ProjectVersionModel> fullProjectVersions = createFullProjectVersions(affectedProjectVersionList);
+                for (int index = 0; index < affectedProjectVersionList.size(); index++) {
+                    final ProjectVersionModel fullProjectVersion = fullProjectVersions.get(index);
+                    if (fullProjectVersion == null) {
+                        // skipped, the user can not see this project version
+                        continue;
                     }
+                    final AffectedProjectVersion affectedProjectVersion = affectedProjectVersionList.get(index);
                     notificationContentItems
                             .add(new VulnerabilityContentItem(item.getCreatedAt(), fullProjectVersion,
                                     componentName, fullComponentVersion,
@@ -118,6 +130,79 @@ public class VulnerabilityTransformer extends AbstractNotificationTransformer {
         return notificationContentItems;
     }
 
+    /**
+     * Returns the full project versions in the same order as the affected project versions, with null for every
+     * project version that was skipped because it is Forbidden to the current user.
+     */
+    private List<ProjectVersionModel> createFullProjectVersions(final List<AffectedProjectVersion> affectedProjectVersionList)
+            throws IntegrationException {
+        final List<FutureTask<ProjectVersionModel>> tasks = new ArrayList<>(affectedProjectVersionList.size());
+        for (final AffectedProjectVersion affectedProjectVersion : affectedProjectVersionList) {
+            final FutureTask<ProjectVersionModel> task = new FutureTask<>(new FullProjectVersionCallable(affectedProjectVersion));
+            tasks.add(task);
+            if (executorService != null && affectedProjectVersionList.size() > 1) {
+                try {
+                    executorService.execute(task);
+                } catch (final RejectedExecutionException e) {
+                    // the task will be run by this thread below
+                }
+            }
+        }
+
+        final List<ProjectVersionModel> fullProjectVersions = new ArrayList<>(tasks.size());
+        try {
+            for (int index = 0; index < tasks.size(); index++) {
+                final FutureTask<ProjectVersionModel> task = tasks.get(index);
+                // does nothing if a worker already started the task
+                task.run();
+                fullProjectVersions.add(getFullProjectVersion(task, affectedProjectVersionList.get(index)));
+            }
+        } finally {
+            for (final FutureTask<ProjectVersionModel> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return fullProjectVersions;
+    }
+
+    private ProjectVersionModel getFullProjectVersion(final FutureTask<ProjectVersionModel> task, final AffectedProjectVersion affectedProjectVersion)
+            throws IntegrationException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("The thread resolving the affected project versions was interrupted", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof HubIntegrationException) {
+                final Throwable originalException = getOriginalException((HubIntegrationException) cause);
+                // Testing the message is awful, but unfortunately the exception type (IOException) does not
+                // distinguish Forbidden from other errors.
+                if (originalException.getMessage().contains("Forbidden")) {
+                    logger.warn(String.format("Skipping an affected projectVersion for this vulnerability. ProjectVersion: %s / %s; Reason: %s",
+                            affectedProjectVersion.getProjectName(), affectedProjectVersion.getProjectVersionName(),
+                            cause.getMessage()));
+                    return null;
+                }
+            }
+            throw DaemonExecutors.getIntegrationException(e);
+        }
+    }
+
+    private class FullProjectVersionCallable implements Callable<ProjectVersionModel> {
+        private final AffectedProjectVersion affectedProjectVersion;
+
+        public FullProjectVersionCallable(final AffectedProjectVersion affectedProjectVersion) {
+            this.affectedProjectVersion = affectedProjectVersion;
+        }
+
+        @Override
+        public ProjectVersionModel call() throws Exception {
+            return createFullProjectVersion(affectedProjectVersion.getProjectVersion(),
+                    affectedProjectVersion.getProjectName(), affectedProjectVersion.getProjectVersionName());
+        }
+    }
+
     private Throwable getOriginalException(final HubIntegrationException e) {
         Throwable originalException = e;
         while (originalException.getCause() != null) {
@@ -48,6 +48,8 @@ public class ParallelResourceProcessor<R, S> {
 
     private final IntLogger logger;
 
+    private volatile ParallelResourceProcessorListener listener;
+
     public ParallelResourceProcessor(final IntLogger logger) {
         this.logger = logger;
         final ThreadFactory threadFactory = Executors.defaultThreadFactory();
@@ -62,6 +64,10 @@ public class ParallelResourceProcessor<R, S> {
         this.completionService = completionService;
     }
 
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
     public void addTransform(final Class<?> clazz, final ItemTransform<List<R>, S> transform) {
         transformerMap.put(clazz, transform);
     }
@@ -70,6 +76,13 @@ public class ParallelResourceProcessor<R, S> {
         transformerMap.remove(clazz);
     }
 
+    /**
+     * A null listener (the default) turns off all timing.
+     */
+    public void setListener(final ParallelResourceProcessorListener listener) {
+        this.listener = listener;
+    }
+
     public ParallelResourceProcessorResults<R> process(final List<S> itemsToProcess) {
         final int submitted = submitItems(itemsToProcess);
         final ParallelResourceProcessorResults<R> results = processItems(submitted);
@@ -82,7 +95,7 @@ public class ParallelResourceProcessor<R, S> {
             final Class<?> key = item.getClass();
             if (transformerMap.containsKey(key)) {
                 final ItemTransform<List<R>, S> converter = transformerMap.get(key);
-                final TransformCallable callable = new TransformCallable(item, converter);
+                final TransformCallable callable = new TransformCallable(item, converter, listener);
                 completionService.submit(callable);
                 submitted++;
             }
@@ -114,14 +127,32 @@ public class ParallelResourceProcessor<R, S> {
 
         private final ItemTransform<List<R>, S> converter;
 
-        public TransformCallable(final S item, final ItemTransform<List<R>, S> converter) {
+        private final ParallelResourceProcessorListener listener;
+
+        private final long submittedNanos;
+
+        public TransformCallable(final S item, final ItemTransform<List<R>, S> converter, final ParallelResourceProcessorListener listener) {
             this.item = item;
             this.converter = converter;
+            this.listener = listener;
+            this.submittedNanos = listener == null ? 0 : System.nanoTime();
         }
 
         @Override
         public List<R> call() throws Exception {
-            return converter.transform(item);
+            if (listener == null) {
+                return converter.transform(item);
+            }
+            final long startNanos = System.nanoTime();
+            listener.itemDequeued(item.getClass(), startNanos - submittedNanos);
+            try {
+                final List<R> results = converter.transform(item);
+                listener.itemTransformed(item.getClass(), System.nanoTime() - startNanos, results == null ? 0 : results.size());
+                return results;
+            } catch (final Exception e) {
+                listener.itemTransformFailed(item.getClass(), System.nanoTime() - startNanos, e);
+                throw e;
+            }
         }
     }
 }
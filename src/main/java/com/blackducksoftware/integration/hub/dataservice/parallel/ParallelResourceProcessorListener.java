@@ -0,0 +1,46 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.parallel;
+
+/**
+ * Receives timing information from a ParallelResourceProcessor. Callbacks are made from the worker threads, so
+ * implementations must be thread safe.
+ */
+public interface ParallelResourceProcessorListener {
+    /**
+     * Called when a worker picks up an item, with the time the item spent waiting in the executor queue.
+     */
+    public void itemDequeued(Class<?> itemClass, long queueWaitNanos);
+
+    /**
+     * Called when the transform for an item returned normally.
+     */
+    public void itemTransformed(Class<?> itemClass, long elapsedNanos, int resultCount);
+
+    /**
+     * Called when the transform for an item threw an exception.
+     */
+    public void itemTransformFailed(Class<?> itemClass, long elapsedNanos, Exception exception);
+
+}
@@ -0,0 +1,298 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.project.ProjectRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.report.risk.RiskAggregate;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.service.PageListener;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Reports risk for every version of every project on the Hub. The projects are listed one page at a time, and the
+ * versions of each page start reporting while the next page is fetched. Versions are reported concurrently, at most
+ * maximumConcurrentVersions at a time, through RiskReportDataService.getRiskAggregate, and only their risk counts are
+ * kept. With the Aggregate Bom Rest Server each version's BOM is counted a page at a time, so memory does not grow with
+ * the size of the BOMs; the Report Rest Server returns whole reports, so there each running version holds its report.
+ *
+ * Each finished version is appended to the versions file as soon as it is done, and that file is the checkpoint: a run
+ * that was interrupted, or that had versions fail, skips the versions already in it when it is started again with the
+ * same output directory. The summary file is rewritten at the end of every run.
+ */
+public class PortfolioRiskReportService {
+    public static final String VERSIONS_FILE_NAME = "portfolio-versions.tsv";
+
+    public static final String SUMMARY_FILE_NAME = "portfolio-summary.tsv";
+
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_VERSIONS = 4;
+
+    private static final String RISK_COUNT_HEADERS = StringUtils.join(new String[] { "totalComponents",
+            "vulnerabilityHigh", "vulnerabilityMedium", "vulnerabilityLow", "vulnerabilityNone",
+            "licenseHigh", "licenseMedium", "licenseLow", "licenseNone",
+            "operationalHigh", "operationalMedium", "operationalLow", "operationalNone" }, "\t");
+
+    private static final String VERSIONS_HEADER = "versionUrl\tprojectName\tversionName\t" + RISK_COUNT_HEADERS;
+
+    private static final String SUMMARY_HEADER = "versions\tfailedVersions\t" + RISK_COUNT_HEADERS;
+
+    private final IntLogger logger;
+
+    private final ProjectRequestService projectRequestService;
+
+    private final ProjectVersionRequestService projectVersionRequestService;
+
+    private final RiskReportDataService riskReportDataService;
+
+    private final MetaService metaService;
+
+    private final int maximumConcurrentVersions;
+
+    public PortfolioRiskReportService(final IntLogger logger, final ProjectRequestService projectRequestService,
+            final ProjectVersionRequestService projectVersionRequestService, final RiskReportDataService riskReportDataService,
+            final MetaService metaService, final int maximumConcurrentVersions) {
+        this.logger = logger;
+        this.projectRequestService = projectRequestService;
+        this.projectVersionRequestService = projectVersionRequestService;
+        this.riskReportDataService = riskReportDataService;
+        this.metaService = metaService;
+        this.maximumConcurrentVersions = maximumConcurrentVersions > 0 ? maximumConcurrentVersions : DEFAULT_MAXIMUM_CONCURRENT_VERSIONS;
+    }
+
+    /**
+     * Reports every version not already in the output directory's checkpoint, then writes the summary.
+     *
+     * @return the risk across every reported version, including the ones reported by earlier runs
+     * @throws HubIntegrationException
+     *             if any version could not be reported, after the summary of the others is written. Running again
+     *             retries only the failed versions.
+     */
+    public RiskAggregate createPortfolioReport(final File outputDirectory) throws IntegrationException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new HubIntegrationException("Could not create the portfolio report directory : " + outputDirectory.getAbsolutePath());
+        }
+        final File versionsFile = new File(outputDirectory, VERSIONS_FILE_NAME);
+        final Map<String, RiskAggregate> reportedVersions = readCheckpoint(versionsFile);
+        logger.info(String.format("%d versions were already reported", reportedVersions.size()));
+
+        final ExecutorService executorService = DaemonExecutors.createPool(maximumConcurrentVersions);
+        final List<Future<RiskAggregate>> versionReports = new ArrayList<>();
+        int failedVersions = 0;
+        try (final Writer versionsWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(versionsFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8))) {
+            try {
+                // the versions of each page of projects start reporting while the next page is still being fetched
+                projectRequestService.getAllProjects(new PageListener<ProjectView>() {
+                    @Override
+                    public void itemsReceived(final List<ProjectView> projects) throws IntegrationException {
+                        for (final ProjectView project : projects) {
+                            for (final ProjectVersionView version : projectVersionRequestService.getAllProjectVersions(project)) {
+                                final String versionUrl = metaService.getHref(version);
+                                if (!reportedVersions.containsKey(versionUrl)) {
+                                    versionReports.add(executorService.submit(new VersionReportCallable(project, version, versionUrl, versionsWriter)));
+                                }
+                            }
+                        }
+                    }
+                });
+
+                for (final Future<RiskAggregate> versionReport : versionReports) {
+                    try {
+                        versionReport.get();
+                    } catch (final ExecutionException e) {
+                        failedVersions++;
+                        logger.error("A version could not be reported: " + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            } finally {
+                // versions not started yet are dropped, and the running ones write their rows before the writer is closed, so
+                // none that finishes is lost from the checkpoint
+                for (final Future<RiskAggregate> versionReport : versionReports) {
+                    versionReport.cancel(false);
+                }
+                executorService.shutdown();
+                awaitTermination(executorService);
+            }
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Could not write the portfolio report: " + e.getMessage(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("The thread waiting for the portfolio report was interrupted: " + e.getMessage(), e);
+        }
+
+        final Map<String, RiskAggregate> allReportedVersions = readCheckpoint(versionsFile);
+        final RiskAggregate portfolioRisk = RiskAggregate.combine(allReportedVersions.values());
+        writeSummary(new File(outputDirectory, SUMMARY_FILE_NAME), allReportedVersions.size(), failedVersions, portfolioRisk);
+        if (failedVersions > 0) {
+            throw new HubIntegrationException(String.format("%d versions could not be reported, run the report again to retry them", failedVersions));
+        }
+        return portfolioRisk;
+    }
+
+    /**
+     * Reads the versions already reported, then rewrites the file with only its complete rows, so that a row cut short
+     * by an interrupted run is reported again rather than corrupting the next row appended.
+     */
+    private Map<String, RiskAggregate> readCheckpoint(final File versionsFile) throws HubIntegrationException {
+        final Map<String, RiskAggregate> reportedVersions = new LinkedHashMap<>();
+        final List<String> completeRows = new ArrayList<>();
+        completeRows.add(VERSIONS_HEADER);
+        try {
+            if (versionsFile.isFile()) {
+                final String content = FileUtils.readFileToString(versionsFile, StandardCharsets.UTF_8);
+                final String[] lines = content.split("\n", -1);
+                // the last piece is either empty or a row that was never finished
+                for (int index = 1; index < lines.length - 1; index++) {
+                    final String[] pieces = lines[index].split("\t", -1);
+                    if (pieces.length == 16) {
+                        reportedVersions.put(pieces[0], parseRiskCounts(pieces));
+                        completeRows.add(lines[index]);
+                    }
+                }
+            }
+            final File rewrittenFile = new File(versionsFile.getParentFile(), versionsFile.getName() + ".tmp");
+            FileUtils.writeLines(rewrittenFile, StandardCharsets.UTF_8.name(), completeRows, "\n");
+            Files.move(rewrittenFile.toPath(), versionsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException | NumberFormatException e) {
+            throw new HubIntegrationException("Could not read the portfolio report checkpoint: " + e.getMessage(), e);
+        }
+        return reportedVersions;
+    }
+
+    private RiskAggregate parseRiskCounts(final String[] pieces) {
+        final int[] highMediumLowCounts = new int[9];
+        int countIndex = 0;
+        // total, then high, medium, low and none for each of the three risks
+        for (int pieceIndex = 4; pieceIndex < pieces.length; pieceIndex++) {
+            if ((pieceIndex - 4) % 4 != 3) {
+                highMediumLowCounts[countIndex++] = Integer.parseInt(pieces[pieceIndex]);
+            }
+        }
+        return RiskAggregate.fromCounts(Integer.parseInt(pieces[3]), highMediumLowCounts);
+    }
+
+    private String formatRiskCounts(final RiskAggregate riskAggregate) {
+        return StringUtils.join(new Object[] { riskAggregate.getTotalComponents(),
+                riskAggregate.getVulnerabilityRiskHighCount(), riskAggregate.getVulnerabilityRiskMediumCount(),
+                riskAggregate.getVulnerabilityRiskLowCount(), riskAggregate.getVulnerabilityRiskNoneCount(),
+                riskAggregate.getLicenseRiskHighCount(), riskAggregate.getLicenseRiskMediumCount(),
+                riskAggregate.getLicenseRiskLowCount(), riskAggregate.getLicenseRiskNoneCount(),
+                riskAggregate.getOperationalRiskHighCount(), riskAggregate.getOperationalRiskMediumCount(),
+                riskAggregate.getOperationalRiskLowCount(), riskAggregate.getOperationalRiskNoneCount() }, "\t");
+    }
+
+    private void writeSummary(final File summaryFile, final int versions, final int failedVersions, final RiskAggregate portfolioRisk)
+            throws HubIntegrationException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(SUMMARY_HEADER);
+        lines.add(versions + "\t" + failedVersions + "\t" + formatRiskCounts(portfolioRisk));
+        try {
+            FileUtils.writeLines(summaryFile, StandardCharsets.UTF_8.name(), lines, "\n");
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Could not write the portfolio report summary: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits even if the thread is interrupted, then restores the interrupt.
+     */
+    private void awaitTermination(final ExecutorService executorService) {
+        boolean interrupted = false;
+        while (!executorService.isTerminated()) {
+            try {
+                executorService.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String clean(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replaceAll("[\t\r\n]", " ");
+    }
+
+    private class VersionReportCallable implements Callable<RiskAggregate> {
+        private final ProjectView project;
+
+        private final ProjectVersionView version;
+
+        private final String versionUrl;
+
+        private final Writer versionsWriter;
+
+        public VersionReportCallable(final ProjectView project, final ProjectVersionView version, final String versionUrl, final Writer versionsWriter) {
+            this.project = project;
+            this.version = version;
+            this.versionUrl = versionUrl;
+            this.versionsWriter = versionsWriter;
+        }
+
+        @Override
+        public RiskAggregate call() throws IntegrationException, IOException {
+            final RiskAggregate versionRisk = riskReportDataService.getRiskAggregate(project, version);
+
+            final String row = clean(versionUrl) + "\t" + clean(project.getName()) + "\t" + clean(version.getVersionName()) + "\t"
+                    + formatRiskCounts(versionRisk) + "\n";
+            synchronized (versionsWriter) {
+                versionsWriter.write(row);
+                versionsWriter.flush();
+            }
+            return versionRisk;
+        }
+    }
+
+}
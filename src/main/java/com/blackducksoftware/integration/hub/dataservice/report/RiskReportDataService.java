@@ -24,9 +24,15 @@
 package com.blackducksoftware.integration.hub.dataservice.report;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -40,10 +46,13 @@ import com.blackducksoftware.integration.hub.api.report.AggregateBomViewEntry;
 import com.blackducksoftware.integration.hub.api.report.ReportCategoriesEnum;
 import com.blackducksoftware.integration.hub.api.report.ReportRequestService;
 import com.blackducksoftware.integration.hub.api.report.VersionReport;
+import com.blackducksoftware.integration.hub.api.report.risk.RiskAggregate;
 import com.blackducksoftware.integration.hub.capability.HubCapabilitiesEnum;
+import com.blackducksoftware.integration.hub.dataservice.report.columnar.ColumnarReportWriter;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.model.enumeration.ReportFormatEnum;
 import com.blackducksoftware.integration.hub.model.enumeration.RiskCountEnum;
+import com.blackducksoftware.integration.hub.model.enumeration.VersionBomPolicyStatusOverallStatusEnum;
 import com.blackducksoftware.integration.hub.model.view.BomComponentPolicyStatusView;
 import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
 import com.blackducksoftware.integration.hub.model.view.ProjectView;
@@ -55,9 +64,24 @@ import com.blackducksoftware.integration.hub.report.api.ReportData;
 import com.blackducksoftware.integration.hub.report.exception.RiskReportException;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.hub.service.PageListener;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
 import com.blackducksoftware.integration.log.IntLogger;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 public class RiskReportDataService extends HubResponseService {
+    /**
+     * The most policy status requests a report makes at the same time.
+     */
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * BOM entry properties that, when the Hub includes them, already hold the component's policy status.
+     */
+    private static final String[] EMBEDDED_POLICY_STATUS_PROPERTIES = { "approvalStatus", "policyStatus" };
+
+    private static final String STATE_FILE_PREFIX = "risk-report-state-";
 
     private final IntLogger logger;
 
@@ -73,6 +97,8 @@ public class RiskReportDataService extends HubResponseService {
 
     private final HubSupportHelper hubSupportHelper;
 
+    private final ThreadPoolExecutor executorService;
+
     public RiskReportDataService(final IntLogger logger, final RestConnection restConnection, final ProjectRequestService projectRequestService,
             final ProjectVersionRequestService projectVersionRequestService, final ReportRequestService reportRequestService,
             final AggregateBomRequestService bomRequestService,
@@ -86,6 +112,7 @@ public class RiskReportDataService extends HubResponseService {
         this.metaService = metaService;
         this.hubSupportHelper = hubSupportHelper;
 
+        this.executorService = DaemonExecutors.createPool(DEFAULT_MAXIMUM_CONCURRENT_REQUESTS);
     }
 
     public ReportData getRiskReportData(final String projectName, final String projectVersionName)
@@ -97,6 +124,22 @@ public class RiskReportDataService extends HubResponseService {
 
     public ReportData getRiskReportData(final ProjectView project, final ProjectVersionView version)
             throws IntegrationException {
+        return getRiskReportData(project, version, null);
+    }
+
+    /**
+     * Builds the report incrementally when stateDirectory is not null: the state saved there by the last report of the
+     * version is used for every BOM entry whose content has not changed since, so policy statuses are only requested
+     * for added and changed entries, and entries no longer in the BOM are dropped. The BOM itself is always read in
+     * full.
+     *
+     * When the Hub does not include the policy status in the BOM entry, a policy change that leaves the entry itself
+     * unchanged is only seen by a full report, which is made by passing a null stateDirectory or deleting the state
+     * file. The Report Rest Server does not request policy statuses per component and always builds the report in
+     * full.
+     */
+    public ReportData getRiskReportData(final ProjectView project, final ProjectVersionView version, final File stateDirectory)
+            throws IntegrationException {
         final String originalProjectUrl = metaService.getHref(project);
         final String originalVersionUrl = metaService.getHref(version);
         final ReportData reportData = new ReportData();
@@ -109,19 +152,32 @@ public class RiskReportDataService extends HubResponseService {
         final List<BomComponent> components = new ArrayList<>();
         if (hubSupportHelper.hasCapability(HubCapabilitiesEnum.AGGREGATE_BOM_REST_SERVER)) {
             logger.trace("Getting the Report Contents using the Aggregate Bom Rest Server");
-            final List<VersionBomComponentView> bomEntries = bomRequestService.getBomEntries(version);
-            for (final VersionBomComponentView bomEntry : bomEntries) {
-                final BomComponent component = createBomComponentFromBomComponentView(bomEntry);
-                String componentPolicyStatusURL = null;
-                if (!StringUtils.isBlank(bomEntry.getComponentVersion())) {
-                    componentPolicyStatusURL = getComponentPolicyURL(originalVersionUrl, bomEntry.getComponentVersion());
-                } else {
-                    componentPolicyStatusURL = getComponentPolicyURL(originalVersionUrl, bomEntry.getComponent());
+            File stateFile = null;
+            RiskReportState previousState = null;
+            if (stateDirectory != null) {
+                stateFile = new File(stateDirectory, STATE_FILE_PREFIX + originalVersionUrl.substring(originalVersionUrl.lastIndexOf("/") + 1) + ".json");
+                previousState = RiskReportState.read(stateFile, getGson());
+            }
+            // policy statuses are fetched concurrently while the following BOM pages are still being read, and the first
+            // one that fails stops the paging and cancels the rest
+            final ReportComponentListener listener = new ReportComponentListener(originalVersionUrl, components, previousState);
+            try {
+                bomRequestService.getBomEntries(version, listener);
+                listener.waitForPolicyStatuses();
+            } finally {
+                for (final Future<Void> policyStatusRequest : listener.policyStatusRequests) {
+                    policyStatusRequest.cancel(true);
                 }
-                final BomComponentPolicyStatusView bomPolicyStatus = getItem(componentPolicyStatusURL,
-                        BomComponentPolicyStatusView.class);
-                component.setPolicyStatus(bomPolicyStatus.getApprovalStatus().toString());
-                components.add(component);
+            }
+            if (stateFile != null) {
+                final int removedComponents = previousState == null ? 0 : previousState.getComponentCount() - listener.unchangedComponents - listener.changedComponents;
+                logger.info(String.format("Risk report for %s: %d components unchanged, %d changed, %d added, %d removed", reportData.getProjectVersion(),
+                        listener.unchangedComponents, listener.changedComponents, components.size() - listener.unchangedComponents - listener.changedComponents,
+                        removedComponents));
+                if (!stateDirectory.isDirectory() && !stateDirectory.mkdirs()) {
+                    throw new HubIntegrationException("Could not create the risk report state directory : " + stateDirectory.getAbsolutePath());
+                }
+                listener.currentState.write(stateFile, getGson());
             }
         } else {
             logger.trace("Getting the Report Contents using the Report Rest Server");
@@ -137,6 +193,30 @@ public class RiskReportDataService extends HubResponseService {
         return reportData;
     }
 
+    /**
+     * Counts the risk of the version's components without building its report. With the Aggregate Bom Rest Server the
+     * BOM is counted one page at a time and no policy statuses are requested, so only a page of the BOM is held at
+     * once. The Report Rest Server returns the whole report, which is held until it has been counted.
+     */
+    public RiskAggregate getRiskAggregate(final ProjectView project, final ProjectVersionView version) throws IntegrationException {
+        final RiskAggregate riskAggregate = new RiskAggregate();
+        if (hubSupportHelper.hasCapability(HubCapabilitiesEnum.AGGREGATE_BOM_REST_SERVER)) {
+            bomRequestService.getBomEntries(version, new PageListener<VersionBomComponentView>() {
+                @Override
+                public void itemsReceived(final List<VersionBomComponentView> bomEntries) {
+                    for (final VersionBomComponentView bomEntry : bomEntries) {
+                        riskAggregate.add(bomEntry);
+                    }
+                }
+            });
+        } else {
+            for (final BomComponent component : getRiskReportData(project, version).getComponents()) {
+                riskAggregate.add(component);
+            }
+        }
+        return riskAggregate;
+    }
+
     public void createReportFiles(final File outputDirectory, final String projectName, final String projectVersionName) throws IntegrationException {
         final ReportData reportData = getRiskReportData(projectName, projectVersionName);
         createReportFiles(outputDirectory, reportData);
@@ -147,6 +227,15 @@ public class RiskReportDataService extends HubResponseService {
         createReportFiles(outputDirectory, reportData);
     }
 
+    /**
+     * Creates the report files from a report built incrementally against the state kept in stateDirectory.
+     */
+    public void createReportFiles(final File outputDirectory, final ProjectView project, final ProjectVersionView version, final File stateDirectory)
+            throws IntegrationException {
+        final ReportData reportData = getRiskReportData(project, version, stateDirectory);
+        createReportFiles(outputDirectory, reportData);
+    }
+
     public void createReportFiles(final File outputDirectory, final ReportData reportData) throws HubIntegrationException {
         try {
             logger.trace("Creating Risk Report Files in : " + outputDirectory.getCanonicalPath());
@@ -157,6 +246,40 @@ public class RiskReportDataService extends HubResponseService {
         }
     }
 
+    /**
+     * Writes the report as a compact columnar file for loading many reports into analytics, rather than as HTML. Read
+     * it back with a ColumnarReportReader.
+     */
+    public void createColumnarReportFile(final File outputFile, final ReportData reportData) throws HubIntegrationException {
+        logger.trace("Creating Columnar Risk Report File : " + outputFile.getAbsolutePath());
+        try (FileOutputStream outputStream = new FileOutputStream(outputFile);
+                ColumnarReportWriter writer = new ColumnarReportWriter(outputStream, reportData)) {
+            writer.addAll(reportData.getComponents());
+            writer.finish();
+        } catch (final IOException e) {
+            outputFile.delete();
+            throw new HubIntegrationException("Could not write the columnar risk report " + outputFile.getAbsolutePath() + " : " + e.getMessage(), e);
+        }
+    }
+
+    private VersionBomPolicyStatusOverallStatusEnum getEmbeddedPolicyStatus(final VersionBomComponentView bomEntry) {
+        if (bomEntry.getJson() == null) {
+            return null;
+        }
+        final JsonObject json = getJsonParser().parse(bomEntry.getJson()).getAsJsonObject();
+        for (final String property : EMBEDDED_POLICY_STATUS_PROPERTIES) {
+            final JsonElement policyStatus = json.get(property);
+            if (policyStatus != null && policyStatus.isJsonPrimitive()) {
+                try {
+                    return VersionBomPolicyStatusOverallStatusEnum.valueOf(policyStatus.getAsString());
+                } catch (final IllegalArgumentException e) {
+                    // not a policy status this version of the library knows, so ask for it
+                }
+            }
+        }
+        return null;
+    }
+
     private String getComponentPolicyURL(final String versionURL, final String componentURL) {
         final String componentVersionSegments = componentURL
                 .substring(componentURL.indexOf(MetaService.COMPONENTS_LINK));
@@ -273,4 +396,117 @@ public class RiskReportDataService extends HubResponseService {
         }
         return urlBuilder.toString();
     }
+
+    private class ReportComponentListener implements PageListener<VersionBomComponentView> {
+        private final String versionUrl;
+
+        private final List<BomComponent> components;
+
+        private final RiskReportState previousState;
+
+        private final RiskReportState currentState = new RiskReportState();
+
+        private final ExecutorCompletionService<Void> policyStatusCompletionService = new ExecutorCompletionService<>(executorService);
+
+        private final List<Future<Void>> policyStatusRequests = new ArrayList<>();
+
+        private int finishedPolicyStatusRequests;
+
+        private int unchangedComponents;
+
+        private int changedComponents;
+
+        public ReportComponentListener(final String versionUrl, final List<BomComponent> components, final RiskReportState previousState) {
+            this.versionUrl = versionUrl;
+            this.components = components;
+            this.previousState = previousState;
+        }
+
+        @Override
+        public void itemsReceived(final List<VersionBomComponentView> bomEntries) throws IntegrationException {
+            Future<Void> finishedRequest;
+            while ((finishedRequest = policyStatusCompletionService.poll()) != null) {
+                checkPolicyStatus(finishedRequest);
+            }
+            for (final VersionBomComponentView bomEntry : bomEntries) {
+                final String componentKey = StringUtils.isBlank(bomEntry.getComponentVersion()) ? bomEntry.getComponent() : bomEntry.getComponentVersion();
+                final String contentHash = RiskReportState.hash(bomEntry.getJson());
+                BomComponent component = null;
+                if (previousState != null) {
+                    component = previousState.getComponent(componentKey, contentHash);
+                    if (component != null) {
+                        unchangedComponents++;
+                    } else if (previousState.containsComponent(componentKey)) {
+                        changedComponents++;
+                    }
+                }
+                if (component == null) {
+                    component = createBomComponentFromBomComponentView(bomEntry);
+                    final VersionBomPolicyStatusOverallStatusEnum embeddedPolicyStatus = getEmbeddedPolicyStatus(bomEntry);
+                    if (embeddedPolicyStatus != null) {
+                        component.setPolicyStatus(embeddedPolicyStatus.toString());
+                    } else {
+                        policyStatusRequests.add(policyStatusCompletionService.submit(new PolicyStatusCallable(versionUrl, bomEntry, component)));
+                    }
+                }
+                currentState.putComponent(componentKey, contentHash, component);
+                components.add(component);
+            }
+        }
+
+        /**
+         * Takes the policy status requests in the order they finish, so a failure is thrown as soon as it happens.
+         */
+        public void waitForPolicyStatuses() throws IntegrationException {
+            while (finishedPolicyStatusRequests < policyStatusRequests.size()) {
+                try {
+                    checkPolicyStatus(policyStatusCompletionService.take());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new HubIntegrationException("The thread waiting for the component policy statuses was interrupted: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        private void checkPolicyStatus(final Future<Void> finishedRequest) throws IntegrationException {
+            finishedPolicyStatusRequests++;
+            try {
+                finishedRequest.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HubIntegrationException("The thread waiting for the component policy statuses was interrupted: " + e.getMessage(), e);
+            } catch (final ExecutionException e) {
+                throw DaemonExecutors.getIntegrationException(e);
+            }
+        }
+    }
+
+    private class PolicyStatusCallable implements Callable<Void> {
+        private final String versionUrl;
+
+        private final VersionBomComponentView bomEntry;
+
+        private final BomComponent component;
+
+        public PolicyStatusCallable(final String versionUrl, final VersionBomComponentView bomEntry, final BomComponent component) {
+            this.versionUrl = versionUrl;
+            this.bomEntry = bomEntry;
+            this.component = component;
+        }
+
+        @Override
+        public Void call() throws IntegrationException {
+            String componentPolicyStatusURL = null;
+            if (!StringUtils.isBlank(bomEntry.getComponentVersion())) {
+                componentPolicyStatusURL = getComponentPolicyURL(versionUrl, bomEntry.getComponentVersion());
+            } else {
+                componentPolicyStatusURL = getComponentPolicyURL(versionUrl, bomEntry.getComponent());
+            }
+            final BomComponentPolicyStatusView bomPolicyStatus = getItem(componentPolicyStatusURL,
+                    BomComponentPolicyStatusView.class);
+            component.setPolicyStatus(bomPolicyStatus.getApprovalStatus().toString());
+            return null;
+        }
+    }
+
 }
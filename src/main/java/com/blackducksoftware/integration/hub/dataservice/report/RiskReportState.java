@@ -0,0 +1,141 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * What an incremental risk report keeps between runs: for every BOM entry of the version, keyed by the entry's
+ * component version url (or component url when it has no version), a hash of the entry's content and the report
+ * component built from it, policy status included.
+ */
+public class RiskReportState {
+    private Map<String, ComponentState> components = new LinkedHashMap<>();
+
+    /**
+     * @return the state saved by the last report, or null if there is none or it can not be read, in which case the
+     *         report is built in full
+     */
+    public static RiskReportState read(final File stateFile, final Gson gson) {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            final RiskReportState state = gson.fromJson(FileUtils.readFileToString(stateFile, StandardCharsets.UTF_8), RiskReportState.class);
+            if (state == null || state.components == null) {
+                return null;
+            }
+            return state;
+        } catch (final IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so an interrupted write leaves the last complete state in place.
+     */
+    public void write(final File stateFile, final Gson gson) throws HubIntegrationException {
+        final File temporaryFile = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+        try {
+            FileUtils.writeStringToFile(temporaryFile, gson.toJson(this), StandardCharsets.UTF_8);
+            Files.move(temporaryFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Could not save the risk report state to " + stateFile.getAbsolutePath() + " : " + e.getMessage(), e);
+        }
+    }
+
+    public static String hash(final String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hexHash = new StringBuilder(hash.length * 2);
+            for (final byte hashByte : hash) {
+                hexHash.append(String.format("%02x", hashByte & 0xff));
+            }
+            return hexHash.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the component saved for the key, if the entry it was built from had the same content hash, otherwise null
+     */
+    public BomComponent getComponent(final String componentKey, final String contentHash) {
+        final ComponentState componentState = components.get(componentKey);
+        if (contentHash == null || componentState == null || !contentHash.equals(componentState.contentHash)) {
+            return null;
+        }
+        return componentState.component;
+    }
+
+    public boolean containsComponent(final String componentKey) {
+        return components.containsKey(componentKey);
+    }
+
+    public void putComponent(final String componentKey, final String contentHash, final BomComponent component) {
+        components.put(componentKey, new ComponentState(contentHash, component));
+    }
+
+    public int getComponentCount() {
+        return components.size();
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+    private static class ComponentState {
+        private final String contentHash;
+
+        private final BomComponent component;
+
+        public ComponentState(final String contentHash, final BomComponent component) {
+            this.contentHash = contentHash;
+            this.component = component;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report.columnar;
+
+import java.util.List;
+
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+
+/**
+ * One block of rows read by a ColumnarReportReader. The reader reuses its columns for the next block, so a block is
+ * only valid until the next call to readBlock, and its column arrays may be longer than getRowCount.
+ */
+public class ColumnarReportBlock {
+    private final List<String> dictionary;
+
+    private final int[][] stringColumns;
+
+    private final String[][] inlineColumns;
+
+    private final int[][] intColumns;
+
+    private int rowCount;
+
+    ColumnarReportBlock(final List<String> dictionary, final int[][] stringColumns, final String[][] inlineColumns, final int[][] intColumns) {
+        this.dictionary = dictionary;
+        this.stringColumns = stringColumns;
+        this.inlineColumns = inlineColumns;
+        this.intColumns = intColumns;
+    }
+
+    void setRowCount(final int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param column
+     *            one of the risk count columns of ColumnarReportWriter, such as SECURITY_RISK_HIGH
+     */
+    public int[] getIntColumn(final int column) {
+        return intColumns[column];
+    }
+
+    /**
+     * The dictionary ids of a string column, which are equal exactly when the strings are, and -1 for null.
+     *
+     * @param column
+     *            one of the string columns of ColumnarReportWriter, such as LICENSE, other than the URL columns, which
+     *            are not in the dictionary
+     */
+    public int[] getStringIdColumn(final int column) {
+        if (ColumnarReportWriter.isInline(column)) {
+            throw new IllegalArgumentException("The URL columns are written inline and have no dictionary ids, use getString");
+        }
+        return stringColumns[column];
+    }
+
+    public String getString(final int column, final int row) {
+        if (ColumnarReportWriter.isInline(column)) {
+            return inlineColumns[column][row];
+        }
+        return getDictionaryString(stringColumns[column][row]);
+    }
+
+    public String getDictionaryString(final int id) {
+        if (id == ColumnarReportWriter.NULL_ID) {
+            return null;
+        }
+        return dictionary.get(id);
+    }
+
+    public BomComponent getComponent(final int row) {
+        final BomComponent component = new BomComponent();
+        component.setComponentName(getString(ColumnarReportWriter.COMPONENT_NAME, row));
+        component.setComponentURL(getString(ColumnarReportWriter.COMPONENT_URL, row));
+        component.setComponentVersion(getString(ColumnarReportWriter.COMPONENT_VERSION, row));
+        component.setComponentVersionURL(getString(ColumnarReportWriter.COMPONENT_VERSION_URL, row));
+        component.setLicense(getString(ColumnarReportWriter.LICENSE, row));
+        component.setPolicyStatus(getString(ColumnarReportWriter.POLICY_STATUS, row));
+        component.setSecurityRiskHighCount(intColumns[ColumnarReportWriter.SECURITY_RISK_HIGH][row]);
+        component.setSecurityRiskMediumCount(intColumns[ColumnarReportWriter.SECURITY_RISK_MEDIUM][row]);
+        component.setSecurityRiskLowCount(intColumns[ColumnarReportWriter.SECURITY_RISK_LOW][row]);
+        component.setLicenseRiskHighCount(intColumns[ColumnarReportWriter.LICENSE_RISK_HIGH][row]);
+        component.setLicenseRiskMediumCount(intColumns[ColumnarReportWriter.LICENSE_RISK_MEDIUM][row]);
+        component.setLicenseRiskLowCount(intColumns[ColumnarReportWriter.LICENSE_RISK_LOW][row]);
+        component.setOperationalRiskHighCount(intColumns[ColumnarReportWriter.OPERATIONAL_RISK_HIGH][row]);
+        component.setOperationalRiskMediumCount(intColumns[ColumnarReportWriter.OPERATIONAL_RISK_MEDIUM][row]);
+        component.setOperationalRiskLowCount(intColumns[ColumnarReportWriter.OPERATIONAL_RISK_LOW][row]);
+        return component;
+    }
+
+}
@@ -0,0 +1,166 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.blackducksoftware.integration.hub.report.api.ReportData;
+
+/**
+ * Reads a stream written by ColumnarReportWriter one block at a time. Scans that only need a few columns should read
+ * them straight from the blocks, which decodes no strings and creates no objects per row.
+ */
+public class ColumnarReportReader implements Closeable {
+    private final DataInputStream inputStream;
+
+    private final ReportData reportData = new ReportData();
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private final byte[] columnBytes = new byte[ColumnarReportWriter.BLOCK_SIZE * 4];
+
+    private final ColumnarReportBlock block;
+
+    private final int[][] stringColumns = new int[ColumnarReportWriter.STRING_COLUMN_COUNT][];
+
+    private final String[][] inlineColumns = new String[ColumnarReportWriter.STRING_COLUMN_COUNT][];
+
+    private final int[][] intColumns = new int[ColumnarReportWriter.INT_COLUMN_COUNT][ColumnarReportWriter.BLOCK_SIZE];
+
+    private boolean finished;
+
+    public ColumnarReportReader(final InputStream inputStream) throws IOException, HubIntegrationException {
+        this.inputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        if (this.inputStream.readInt() != ColumnarReportWriter.MAGIC) {
+            throw new HubIntegrationException("The stream is not a columnar report");
+        }
+        final int formatVersion = this.inputStream.readInt();
+        if (formatVersion != ColumnarReportWriter.FORMAT_VERSION) {
+            throw new HubIntegrationException("Unsupported columnar report format version : " + formatVersion);
+        }
+        reportData.setProjectName(readString());
+        reportData.setProjectURL(readString());
+        reportData.setProjectVersion(readString());
+        reportData.setProjectVersionURL(readString());
+        reportData.setPhase(readString());
+        reportData.setDistribution(readString());
+        for (int column = 0; column < ColumnarReportWriter.STRING_COLUMN_COUNT; column++) {
+            if (ColumnarReportWriter.isInline(column)) {
+                inlineColumns[column] = new String[ColumnarReportWriter.BLOCK_SIZE];
+            } else {
+                stringColumns[column] = new int[ColumnarReportWriter.BLOCK_SIZE];
+            }
+        }
+        block = new ColumnarReportBlock(dictionary, stringColumns, inlineColumns, intColumns);
+    }
+
+    /**
+     * The report's project and version, without its components.
+     */
+    public ReportData getReportData() {
+        return reportData;
+    }
+
+    /**
+     * @return the next block, which is only valid until the next call, or null at the end of the stream
+     * @throws IOException
+     *             an EOFException when the stream ends without its end marker, because its writer was never finished
+     */
+    public ColumnarReportBlock readBlock() throws IOException, HubIntegrationException {
+        if (finished) {
+            return null;
+        }
+        final int rowCount = inputStream.readInt();
+        if (rowCount == 0) {
+            finished = true;
+            return null;
+        }
+        if (rowCount < 0 || rowCount > ColumnarReportWriter.BLOCK_SIZE) {
+            throw new HubIntegrationException("Corrupt columnar report block row count : " + rowCount);
+        }
+        final int newDictionaryEntryCount = inputStream.readInt();
+        for (int index = 0; index < newDictionaryEntryCount; index++) {
+            dictionary.add(readString());
+        }
+        for (int column = 0; column < ColumnarReportWriter.STRING_COLUMN_COUNT; column++) {
+            if (ColumnarReportWriter.isInline(column)) {
+                for (int row = 0; row < rowCount; row++) {
+                    inlineColumns[column][row] = readString();
+                }
+            } else {
+                readColumn(stringColumns[column], rowCount);
+            }
+        }
+        for (final int[] intColumn : intColumns) {
+            readColumn(intColumn, rowCount);
+        }
+        block.setRowCount(rowCount);
+        return block;
+    }
+
+    /**
+     * Reads the rest of the stream into components, for callers that want the whole report rather than a scan.
+     */
+    public List<BomComponent> readComponents() throws IOException, HubIntegrationException {
+        final List<BomComponent> components = new ArrayList<>();
+        ColumnarReportBlock nextBlock;
+        while ((nextBlock = readBlock()) != null) {
+            for (int row = 0; row < nextBlock.getRowCount(); row++) {
+                components.add(nextBlock.getComponent(row));
+            }
+        }
+        return components;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private void readColumn(final int[] column, final int rowCount) throws IOException {
+        inputStream.readFully(columnBytes, 0, rowCount * 4);
+        ByteBuffer.wrap(columnBytes, 0, rowCount * 4).asIntBuffer().get(column, 0, rowCount);
+    }
+
+    private String readString() throws IOException {
+        final int length = inputStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        inputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.blackducksoftware.integration.hub.report.api.ReportData;
+
+/**
+ * Writes report components as a compact columnar stream. Components are buffered into blocks of BLOCK_SIZE rows, and
+ * each block is written column by column: the names, versions, licenses and policy statuses as ids into a dictionary
+ * shared by the whole stream, the URLs inline as strings, and the nine risk counts as plain int columns. A block
+ * carries only the dictionary strings first used in it. Nearly every component has its own URLs, so they are kept out
+ * of the dictionary; the writer and the reader hold one block plus the dictionary, which grows with the distinct
+ * names, versions, licenses and policy statuses of the report.
+ *
+ * The stream is: MAGIC, FORMAT_VERSION, the report's project and version strings, then the blocks, each made of its
+ * row count, its new dictionary strings and its columns, and finally a row count of 0. Only finish writes that end
+ * marker, so a stream whose writer was closed without finishing, because adding the components failed, is rejected by
+ * the reader rather than read as a shorter report.
+ */
+public class ColumnarReportWriter implements Closeable {
+    public static final int MAGIC = 0x48524346;
+
+    public static final int FORMAT_VERSION = 1;
+
+    public static final int BLOCK_SIZE = 4096;
+
+    public static final int COMPONENT_NAME = 0;
+
+    public static final int COMPONENT_URL = 1;
+
+    public static final int COMPONENT_VERSION = 2;
+
+    public static final int COMPONENT_VERSION_URL = 3;
+
+    public static final int LICENSE = 4;
+
+    public static final int POLICY_STATUS = 5;
+
+    static final int STRING_COLUMN_COUNT = 6;
+
+    public static final int SECURITY_RISK_HIGH = 0;
+
+    public static final int SECURITY_RISK_MEDIUM = 1;
+
+    public static final int SECURITY_RISK_LOW = 2;
+
+    public static final int LICENSE_RISK_HIGH = 3;
+
+    public static final int LICENSE_RISK_MEDIUM = 4;
+
+    public static final int LICENSE_RISK_LOW = 5;
+
+    public static final int OPERATIONAL_RISK_HIGH = 6;
+
+    public static final int OPERATIONAL_RISK_MEDIUM = 7;
+
+    public static final int OPERATIONAL_RISK_LOW = 8;
+
+    static final int INT_COLUMN_COUNT = 9;
+
+    /**
+     * The dictionary id written for a null string.
+     */
+    static final int NULL_ID = -1;
+
+    private final DataOutputStream outputStream;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private final List<String> newDictionaryEntries = new ArrayList<>();
+
+    private final int[][] stringColumns = new int[STRING_COLUMN_COUNT][];
+
+    private final String[][] inlineColumns = new String[STRING_COLUMN_COUNT][];
+
+    private final int[][] intColumns = new int[INT_COLUMN_COUNT][BLOCK_SIZE];
+
+    private final ByteBuffer columnBuffer = ByteBuffer.allocate(BLOCK_SIZE * 4);
+
+    private int rowCount;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    /**
+     * Writes the stream header for the report; its components are not written, pass them to add.
+     */
+    public ColumnarReportWriter(final OutputStream outputStream, final ReportData reportData) throws IOException {
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        this.outputStream.writeInt(MAGIC);
+        this.outputStream.writeInt(FORMAT_VERSION);
+        writeString(reportData.getProjectName());
+        writeString(reportData.getProjectURL());
+        writeString(reportData.getProjectVersion());
+        writeString(reportData.getProjectVersionURL());
+        writeString(reportData.getPhase());
+        writeString(reportData.getDistribution());
+        for (int column = 0; column < STRING_COLUMN_COUNT; column++) {
+            if (isInline(column)) {
+                inlineColumns[column] = new String[BLOCK_SIZE];
+            } else {
+                stringColumns[column] = new int[BLOCK_SIZE];
+            }
+        }
+    }
+
+    /**
+     * The URL columns, which are written as strings in each block rather than as dictionary ids.
+     */
+    static boolean isInline(final int column) {
+        return column == COMPONENT_URL || column == COMPONENT_VERSION_URL;
+    }
+
+    public void add(final BomComponent component) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The columnar report has already been finished");
+        }
+        stringColumns[COMPONENT_NAME][rowCount] = getId(component.getComponentName());
+        inlineColumns[COMPONENT_URL][rowCount] = component.getComponentURL();
+        stringColumns[COMPONENT_VERSION][rowCount] = getId(component.getComponentVersion());
+        inlineColumns[COMPONENT_VERSION_URL][rowCount] = component.getComponentVersionURL();
+        stringColumns[LICENSE][rowCount] = getId(component.getLicense());
+        stringColumns[POLICY_STATUS][rowCount] = getId(component.getPolicyStatus());
+        intColumns[SECURITY_RISK_HIGH][rowCount] = component.getSecurityRiskHighCount();
+        intColumns[SECURITY_RISK_MEDIUM][rowCount] = component.getSecurityRiskMediumCount();
+        intColumns[SECURITY_RISK_LOW][rowCount] = component.getSecurityRiskLowCount();
+        intColumns[LICENSE_RISK_HIGH][rowCount] = component.getLicenseRiskHighCount();
+        intColumns[LICENSE_RISK_MEDIUM][rowCount] = component.getLicenseRiskMediumCount();
+        intColumns[LICENSE_RISK_LOW][rowCount] = component.getLicenseRiskLowCount();
+        intColumns[OPERATIONAL_RISK_HIGH][rowCount] = component.getOperationalRiskHighCount();
+        intColumns[OPERATIONAL_RISK_MEDIUM][rowCount] = component.getOperationalRiskMediumCount();
+        intColumns[OPERATIONAL_RISK_LOW][rowCount] = component.getOperationalRiskLowCount();
+        rowCount++;
+        if (rowCount == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    public void addAll(final Iterable<BomComponent> components) throws IOException {
+        for (final BomComponent component : components) {
+            add(component);
+        }
+    }
+
+    /**
+     * Writes the last partial block and the end of the stream. Call it once every component has been added.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (rowCount > 0) {
+            writeBlock();
+        }
+        outputStream.writeInt(0);
+        outputStream.flush();
+    }
+
+    /**
+     * Closes the underlying stream. Unless finish was called first, the stream is left without its end marker.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outputStream.close();
+    }
+
+    private int getId(final String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        final Integer id = dictionary.get(value);
+        if (id != null) {
+            return id;
+        }
+        final int newId = dictionary.size();
+        dictionary.put(value, newId);
+        newDictionaryEntries.add(value);
+        return newId;
+    }
+
+    private void writeBlock() throws IOException {
+        outputStream.writeInt(rowCount);
+        outputStream.writeInt(newDictionaryEntries.size());
+        for (final String dictionaryEntry : newDictionaryEntries) {
+            writeString(dictionaryEntry);
+        }
+        newDictionaryEntries.clear();
+        for (int column = 0; column < STRING_COLUMN_COUNT; column++) {
+            if (isInline(column)) {
+                for (int row = 0; row < rowCount; row++) {
+                    writeString(inlineColumns[column][row]);
+                }
+                Arrays.fill(inlineColumns[column], 0, rowCount, null);
+            } else {
+                writeColumn(stringColumns[column]);
+            }
+        }
+        for (final int[] intColumn : intColumns) {
+            writeColumn(intColumn);
+        }
+        rowCount = 0;
+    }
+
+    private void writeColumn(final int[] column) throws IOException {
+        columnBuffer.clear();
+        columnBuffer.asIntBuffer().put(column, 0, rowCount);
+        outputStream.write(columnBuffer.array(), 0, rowCount * 4);
+    }
+
+    /**
+     * Strings are written as their UTF-8 length and bytes, so unlike writeUTF they have no 64K limit; -1 is null.
+     */
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with jitter. Polls happen at roughly geometric points in time: each delay is the time since the
+ * reference point multiplied by (multiplier - 1), kept between the initial and maximum intervals.
+ *
+ * When a ScanDurationEstimator has a duration for the wait, the backoff from the start of the wait is cut short so that
+ * one poll is made when the scans are expected to be done, and the backoff restarts from that point. Scans that finish
+ * early are still seen by the backoff polls, so the recorded durations, and the estimate, can go down as well as up.
+ */
+public class BackoffPollingStrategy implements ScanPollingStrategy {
+    public static final long DEFAULT_INITIAL_INTERVAL = 1000;
+
+    public static final double DEFAULT_MULTIPLIER = 1.5;
+
+    public static final long DEFAULT_MAXIMUM_INTERVAL = 30 * 1000;
+
+    public static final double DEFAULT_JITTER = 0.2;
+
+    private final long initialIntervalInMilliseconds;
+
+    private final double multiplier;
+
+    private final long maximumIntervalInMilliseconds;
+
+    private final double jitter;
+
+    private final ScanDurationEstimator estimator;
+
+    private final Random random;
+
+    public BackoffPollingStrategy() {
+        this(DEFAULT_INITIAL_INTERVAL, DEFAULT_MULTIPLIER, DEFAULT_MAXIMUM_INTERVAL, DEFAULT_JITTER, new ScanDurationEstimator(), new Random());
+    }
+
+    /**
+     * @param jitter
+     *            the fraction, between 0 and 1, by which each delay is randomly lengthened or shortened.
+     * @param estimator
+     *            may be null to always back off from the start of the wait.
+     */
+    public BackoffPollingStrategy(final long initialIntervalInMilliseconds, final double multiplier, final long maximumIntervalInMilliseconds,
+            final double jitter, final ScanDurationEstimator estimator, final Random random) {
+        this.initialIntervalInMilliseconds = initialIntervalInMilliseconds;
+        this.multiplier = multiplier;
+        this.maximumIntervalInMilliseconds = maximumIntervalInMilliseconds;
+        this.jitter = jitter;
+        this.estimator = estimator;
+        this.random = random;
+    }
+
+    @Override
+    public long getDelayBeforeNextPoll(final String waitKey, final long elapsedMillis) {
+        final Long estimate = getEstimate(waitKey);
+        if (estimate == null) {
+            return applyJitter(getBackoff(elapsedMillis));
+        }
+        if (elapsedMillis < estimate) {
+            return applyJitter(Math.min(getBackoff(elapsedMillis), Math.max(initialIntervalInMilliseconds, estimate - elapsedMillis)));
+        }
+        return applyJitter(getBackoff(elapsedMillis - estimate));
+    }
+
+    @Override
+    public void waitCompleted(final String waitKey, final long elapsedMillis) {
+        if (estimator != null && waitKey != null) {
+            estimator.record(waitKey, elapsedMillis);
+        }
+    }
+
+    public ScanDurationEstimator getEstimator() {
+        return estimator;
+    }
+
+    private Long getEstimate(final String waitKey) {
+        if (estimator == null || waitKey == null) {
+            return null;
+        }
+        return estimator.getEstimate(waitKey);
+    }
+
+    private long getBackoff(final long sinceReferenceMillis) {
+        final long backoff = (long) (sinceReferenceMillis * (multiplier - 1));
+        return Math.max(initialIntervalInMilliseconds, Math.min(maximumIntervalInMilliseconds, backoff));
+    }
+
+    private long applyJitter(final long delay) {
+        if (jitter <= 0) {
+            return delay;
+        }
+        final double factor = 1 + jitter * (2 * random.nextDouble() - 1);
+        return Math.max(1, Math.round(delay * factor));
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+/**
+ * Polls at a constant interval, which is how ScanStatusDataService always polled before backoff was added.
+ */
+public class FixedIntervalPollingStrategy implements ScanPollingStrategy {
+    public static final long FIVE_SECONDS = 5 * 1000;
+
+    private final long intervalInMilliseconds;
+
+    public FixedIntervalPollingStrategy() {
+        this(FIVE_SECONDS);
+    }
+
+    public FixedIntervalPollingStrategy(final long intervalInMilliseconds) {
+        this.intervalInMilliseconds = intervalInMilliseconds;
+    }
+
+    @Override
+    public long getDelayBeforeNextPoll(final String waitKey, final long elapsedMillis) {
+        return intervalInMilliseconds;
+    }
+
+    @Override
+    public void waitCompleted(final String waitKey, final long elapsedMillis) {
+        // nothing to learn
+    }
+
+}
@@ -0,0 +1,386 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.codelocation.CodeLocationRequestService;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.project.ProjectRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.scan.ScanSummaryRequestService;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubTimeoutExceededException;
+import com.blackducksoftware.integration.hub.model.enumeration.CodeLocationEnum;
+import com.blackducksoftware.integration.hub.model.view.CodeLocationView;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
+import com.blackducksoftware.integration.hub.util.SettableFuture;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Waits for the scans of many builds at once. Every registration is checked by the same periodic poll on a single
+ * thread, and each poll fetches a scan summary or a version's code locations once no matter how many registrations
+ * are waiting on it, so one watcher shared by every build on a server costs about as much as a single wait. The scan
+ * summaries of a poll are fetched concurrently through the same bounded fetch as the polls of ScanStatusDataService,
+ * at most ScanStatusDataService.DEFAULT_MAXIMUM_CONCURRENT_REQUESTS at a time unless setMaximumConcurrentRequests
+ * says otherwise.
+ *
+ * The returned futures are completed on the polling thread.
+ */
+public class ScanCompletionWatcher {
+    private final IntLogger logger;
+
+    private final ProjectRequestService projectRequestService;
+
+    private final ProjectVersionRequestService projectVersionRequestService;
+
+    private final CodeLocationRequestService codeLocationRequestService;
+
+    private final ScanSummaryRequestService scanSummaryRequestService;
+
+    private final MetaService metaService;
+
+    private final ConcurrentLinkedQueue<Registration> registrations = new ConcurrentLinkedQueue<>();
+
+    // only touched from the polling thread
+    private final Map<List<String>, ProjectVersionView> projectVersions = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ThreadPoolExecutor executorService = DaemonExecutors.createPool(ScanStatusDataService.DEFAULT_MAXIMUM_CONCURRENT_REQUESTS);
+
+    public ScanCompletionWatcher(final IntLogger logger,
+            final ProjectRequestService projectRequestService, final ProjectVersionRequestService projectVersionRequestService,
+            final CodeLocationRequestService codeLocationRequestService,
+            final ScanSummaryRequestService scanSummaryRequestService, final MetaService metaService,
+            final long pollIntervalInMilliseconds) {
+        this.logger = logger;
+        this.projectRequestService = projectRequestService;
+        this.projectVersionRequestService = projectVersionRequestService;
+        this.codeLocationRequestService = codeLocationRequestService;
+        this.scanSummaryRequestService = scanSummaryRequestService;
+        this.metaService = metaService;
+
+        long pollInterval = pollIntervalInMilliseconds;
+        if (pollIntervalInMilliseconds <= 0l) {
+            pollInterval = FixedIntervalPollingStrategy.FIVE_SECONDS;
+            logger.alwaysLog(pollIntervalInMilliseconds + "ms is not a valid poll interval, using : " + pollInterval + "ms instead");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(DaemonExecutors.createThreadFactory("hub-scan-completion-watcher"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    poll();
+                } catch (final Exception e) {
+                    // an escaped exception would cancel every later poll
+                    logger.error("Polling for scan completion failed: " + e.getMessage(), e);
+                }
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits at most timeoutInMilliseconds for a BOM import scan of the project version to start, and then at most
+     * timeoutInMilliseconds for the scans found to complete, like
+     * ScanStatusDataService.assertBomImportScanStartedThenFinished. The future completes with the finished scan
+     * summaries, or exceptionally with a HubTimeoutExceededException or a HubIntegrationException when a scan fails.
+     */
+    public Future<List<ScanSummaryView>> watchProjectVersion(final String projectName, final String projectVersionName,
+            final long timeoutInMilliseconds) {
+        return register(new Registration(projectName, projectVersionName, null, timeoutInMilliseconds));
+    }
+
+    /**
+     * Waits at most timeoutInMilliseconds for the scan summaries at the given urls to complete.
+     */
+    public Future<List<ScanSummaryView>> watchScanSummaries(final List<String> scanSummaryUrls, final long timeoutInMilliseconds) {
+        return register(new Registration(null, null, new ArrayList<>(scanSummaryUrls), timeoutInMilliseconds));
+    }
+
+    /**
+     * Waits at most timeoutInMilliseconds for the given scans to complete, like
+     * ScanStatusDataService.assertBomImportScansFinished.
+     */
+    public Future<List<ScanSummaryView>> watchScans(final List<ScanSummaryView> pendingScans, final long timeoutInMilliseconds)
+            throws HubIntegrationException {
+        final List<String> scanSummaryUrls = new ArrayList<>();
+        for (final ScanSummaryView pendingScan : pendingScans) {
+            scanSummaryUrls.add(metaService.getHref(pendingScan));
+        }
+        return watchScanSummaries(scanSummaryUrls, timeoutInMilliseconds);
+    }
+
+    /**
+     * Bounds how many scan summary requests a single poll makes at the same time.
+     */
+    public void setMaximumConcurrentRequests(final int maximumConcurrentRequests) {
+        DaemonExecutors.setPoolSize(executorService, maximumConcurrentRequests);
+    }
+
+    public int getRegistrationCount() {
+        int count = 0;
+        for (final Registration registration : registrations) {
+            if (!registration.future.isDone()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops polling. Registrations still waiting complete exceptionally.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executorService.shutdownNow();
+        Registration registration;
+        while ((registration = registrations.poll()) != null) {
+            registration.future.completeExceptionally(new HubIntegrationException("The scan completion watcher was shut down"));
+        }
+    }
+
+    private Future<List<ScanSummaryView>> register(final Registration registration) {
+        if (scheduler.isShutdown()) {
+            registration.future.completeExceptionally(new HubIntegrationException("The scan completion watcher was shut down"));
+        } else {
+            registrations.add(registration);
+        }
+        return registration.future;
+    }
+
+    void poll() throws IntegrationException {
+        final List<Registration> activeRegistrations = new ArrayList<>();
+        for (final Registration registration : registrations) {
+            if (registration.future.isDone()) {
+                registrations.remove(registration);
+            } else {
+                activeRegistrations.add(registration);
+            }
+        }
+
+        final Set<List<String>> watchedProjectVersions = new HashSet<>();
+        final Map<List<String>, List<ScanSummaryView>> pendingScansByProjectVersion = new HashMap<>();
+        for (final Registration registration : activeRegistrations) {
+            if (registration.isWaitingToStart()) {
+                final List<String> projectVersionKey = registration.getProjectVersionKey();
+                watchedProjectVersions.add(projectVersionKey);
+                if (!pendingScansByProjectVersion.containsKey(projectVersionKey)) {
+                    pendingScansByProjectVersion.put(projectVersionKey, getPendingScans(projectVersionKey));
+                }
+                registration.checkStarted(pendingScansByProjectVersion.get(projectVersionKey));
+            }
+        }
+        projectVersions.keySet().retainAll(watchedProjectVersions);
+
+        final List<Registration> startedRegistrations = new ArrayList<>();
+        final Set<String> scanSummaryUrls = new LinkedHashSet<>();
+        for (final Registration registration : activeRegistrations) {
+            if (!registration.isWaitingToStart() && !registration.future.isDone()) {
+                startedRegistrations.add(registration);
+                scanSummaryUrls.addAll(registration.scanSummaryUrls);
+            }
+        }
+
+        final List<Callable<ScanSummaryResult>> requests = new ArrayList<>();
+        for (final String scanSummaryUrl : scanSummaryUrls) {
+            requests.add(new ScanSummaryCallable(scanSummaryUrl));
+        }
+        final Map<String, ScanSummaryView> scanSummariesByUrl = new HashMap<>();
+        final Map<String, IntegrationException> failuresByUrl = new HashMap<>();
+        for (final ScanSummaryResult result : ScanStatusDataService.getConcurrently(executorService, requests)) {
+            if (result.failure != null) {
+                failuresByUrl.put(result.scanSummaryUrl, result.failure);
+            } else {
+                scanSummariesByUrl.put(result.scanSummaryUrl, result.scanSummary);
+            }
+        }
+
+        for (final Registration registration : startedRegistrations) {
+            registration.checkCompleted(scanSummariesByUrl, failuresByUrl);
+        }
+    }
+
+    private List<ScanSummaryView> getPendingScans(final List<String> projectVersionKey) {
+        final List<ScanSummaryView> pendingScans = new ArrayList<>();
+        try {
+            ProjectVersionView projectVersionItem = projectVersions.get(projectVersionKey);
+            if (projectVersionItem == null) {
+                final ProjectView projectItem = projectRequestService.getProjectByName(projectVersionKey.get(0));
+                projectVersionItem = projectVersionRequestService.getProjectVersion(projectItem, projectVersionKey.get(1));
+                projectVersions.put(projectVersionKey, projectVersionItem);
+            }
+
+            for (final CodeLocationView codeLocationItem : codeLocationRequestService.getAllCodeLocationsForProjectVersion(projectVersionItem)) {
+                if (CodeLocationEnum.BOM_IMPORT == codeLocationItem.getType()) {
+                    final String scanSummariesLink = metaService.getFirstLink(codeLocationItem, MetaService.SCANS_LINK);
+                    for (final ScanSummaryView scanSummaryItem : scanSummaryRequestService.getAllScanSummaryItems(scanSummariesLink)) {
+                        if (ScanStatusDataService.PENDING_STATES.contains(scanSummaryItem.getStatus())) {
+                            pendingScans.add(scanSummaryItem);
+                        }
+                    }
+                }
+            }
+        } catch (final Exception e) {
+            // the project or version might not exist yet, so just keep waiting until the timeout
+            pendingScans.clear();
+        }
+        return pendingScans;
+    }
+
+    private static class ScanSummaryResult {
+        private final String scanSummaryUrl;
+
+        private final ScanSummaryView scanSummary;
+
+        private final IntegrationException failure;
+
+        public ScanSummaryResult(final String scanSummaryUrl, final ScanSummaryView scanSummary, final IntegrationException failure) {
+            this.scanSummaryUrl = scanSummaryUrl;
+            this.scanSummary = scanSummary;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Keeps the failure of one scan summary from failing the registrations that are not waiting on it.
+     */
+    private class ScanSummaryCallable implements Callable<ScanSummaryResult> {
+        private final String scanSummaryUrl;
+
+        public ScanSummaryCallable(final String scanSummaryUrl) {
+            this.scanSummaryUrl = scanSummaryUrl;
+        }
+
+        @Override
+        public ScanSummaryResult call() {
+            try {
+                return new ScanSummaryResult(scanSummaryUrl, scanSummaryRequestService.getItem(scanSummaryUrl, ScanSummaryView.class), null);
+            } catch (final IntegrationException e) {
+                return new ScanSummaryResult(scanSummaryUrl, null, e);
+            }
+        }
+    }
+
+    private class Registration {
+        private final String projectName;
+
+        private final String projectVersionName;
+
+        private final long timeoutInMilliseconds;
+
+        private final SettableFuture<List<ScanSummaryView>> future = new SettableFuture<>();
+
+        private List<String> scanSummaryUrls;
+
+        private long startedTime;
+
+        public Registration(final String projectName, final String projectVersionName, final List<String> scanSummaryUrls,
+                final long timeoutInMilliseconds) {
+            this.projectName = projectName;
+            this.projectVersionName = projectVersionName;
+            this.scanSummaryUrls = scanSummaryUrls;
+            this.timeoutInMilliseconds = timeoutInMilliseconds;
+            this.startedTime = System.currentTimeMillis();
+        }
+
+        public boolean isWaitingToStart() {
+            return scanSummaryUrls == null;
+        }
+
+        public List<String> getProjectVersionKey() {
+            return Arrays.asList(projectName, projectVersionName);
+        }
+
+        public void checkStarted(final List<ScanSummaryView> pendingScans) {
+            if (!pendingScans.isEmpty()) {
+                final List<String> pendingScanUrls = new ArrayList<>();
+                try {
+                    for (final ScanSummaryView pendingScan : pendingScans) {
+                        pendingScanUrls.add(metaService.getHref(pendingScan));
+                    }
+                } catch (final HubIntegrationException e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                scanSummaryUrls = pendingScanUrls;
+                startedTime = System.currentTimeMillis();
+            } else {
+                checkTimeout("No scan has started within the specified wait time: %d minutes");
+            }
+        }
+
+        public void checkCompleted(final Map<String, ScanSummaryView> scanSummariesByUrl, final Map<String, IntegrationException> failuresByUrl) {
+            final List<ScanSummaryView> currentScanSummaries = new ArrayList<>();
+            boolean pending = false;
+            for (final String scanSummaryUrl : scanSummaryUrls) {
+                if (failuresByUrl.containsKey(scanSummaryUrl)) {
+                    future.completeExceptionally(failuresByUrl.get(scanSummaryUrl));
+                    return;
+                }
+                final ScanSummaryView currentScanSummaryItem = scanSummariesByUrl.get(scanSummaryUrl);
+                if (ScanStatusDataService.ERROR_STATES.contains(currentScanSummaryItem.getStatus())) {
+                    future.completeExceptionally(new HubIntegrationException("There was a problem in the Hub processing the scan(s). Error Status : "
+                            + currentScanSummaryItem.getStatus().toString() + ", " + currentScanSummaryItem.getStatusMessage()));
+                    return;
+                }
+                pending |= ScanStatusDataService.PENDING_STATES.contains(currentScanSummaryItem.getStatus());
+                currentScanSummaries.add(currentScanSummaryItem);
+            }
+
+            if (!pending) {
+                future.complete(currentScanSummaries);
+            } else {
+                checkTimeout("The pending scans have not completed within the specified wait time: %d minutes");
+            }
+        }
+
+        private void checkTimeout(final String timeoutMessage) {
+            if (System.currentTimeMillis() - startedTime > timeoutInMilliseconds) {
+                future.completeExceptionally(new HubTimeoutExceededException(
+                        String.format(timeoutMessage, TimeUnit.MILLISECONDS.toMinutes(timeoutInMilliseconds))));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Learns how long waits for the same key usually take, as an exponentially weighted moving average of the recent
+ * durations. Only the most recently used keys are remembered.
+ */
+public class ScanDurationEstimator {
+    public static final double DEFAULT_WEIGHT = 0.3;
+
+    public static final int DEFAULT_MAXIMUM_KEYS = 1000;
+
+    private final double weight;
+
+    private final Map<String, Long> estimates;
+
+    public ScanDurationEstimator() {
+        this(DEFAULT_WEIGHT, DEFAULT_MAXIMUM_KEYS);
+    }
+
+    /**
+     * @param weight
+     *            how much the newest duration counts, between 0 and 1.
+     */
+    public ScanDurationEstimator(final double weight, final int maximumKeys) {
+        this.weight = weight;
+        this.estimates = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+                return size() > maximumKeys;
+            }
+        };
+    }
+
+    /**
+     * @return the expected duration in milliseconds, or null if nothing has been recorded for the key.
+     */
+    public synchronized Long getEstimate(final String key) {
+        return estimates.get(key);
+    }
+
+    public synchronized void record(final String key, final long durationInMilliseconds) {
+        final Long estimate = estimates.get(key);
+        if (estimate == null) {
+            estimates.put(key, durationInMilliseconds);
+        } else {
+            estimates.put(key, Math.round(weight * durationInMilliseconds + (1 - weight) * estimate));
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+/**
+ * Decides how long ScanStatusDataService sleeps between polls of the Hub. Implementations are shared by every wait,
+ * so they must be thread safe.
+ */
+public interface ScanPollingStrategy {
+    /**
+     * @param waitKey
+     *            identifies what is being waited on, so durations can be learned per code location. Null when there
+     *            is nothing to learn from.
+     * @param elapsedMillis
+     *            how long this wait has been running.
+     * @return the milliseconds to sleep before the next poll.
+     */
+    public long getDelayBeforeNextPoll(String waitKey, long elapsedMillis);
+
+    /**
+     * Called when a wait ended because the scans finished, with how long the wait took.
+     */
+    public void waitCompleted(String waitKey, long elapsedMillis);
+
+}
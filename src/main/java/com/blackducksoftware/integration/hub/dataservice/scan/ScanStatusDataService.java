@@ -24,11 +24,20 @@
 package com.blackducksoftware.integration.hub.dataservice.scan;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.codelocation.CodeLocationRequestService;
 import com.blackducksoftware.integration.hub.api.item.MetaService;
@@ -43,13 +52,22 @@ import com.blackducksoftware.integration.hub.model.view.CodeLocationView;
 import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
 import com.blackducksoftware.integration.hub.model.view.ProjectView;
 import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.hub.util.DaemonExecutors;
 import com.blackducksoftware.integration.log.IntLogger;
 
 public class ScanStatusDataService {
-    private static final long FIVE_SECONDS = 5 * 1000;
-
     private static final long DEFAULT_TIMEOUT = 300000l;
 
+    /**
+     * The most scan summary requests one poll makes at the same time.
+     */
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * Shared so that scan durations learned by one wait inform the next wait on the same code locations.
+     */
+    private static final ScanPollingStrategy DEFAULT_POLLING_STRATEGY = new BackoffPollingStrategy();
+
     private final ProjectRequestService projectRequestService;
 
     private final ProjectVersionRequestService projectVersionRequestService;
@@ -62,6 +80,10 @@ public class ScanStatusDataService {
 
     private final long timeoutInMilliseconds;
 
+    private ScanPollingStrategy pollingStrategy = DEFAULT_POLLING_STRATEGY;
+
+    private final ThreadPoolExecutor executorService;
+
     public ScanStatusDataService(final IntLogger logger,
             final ProjectRequestService projectRequestService, final ProjectVersionRequestService projectVersionRequestService,
             final CodeLocationRequestService codeLocationRequestService,
@@ -79,6 +101,22 @@ public class ScanStatusDataService {
             logger.alwaysLog(timeoutInMilliseconds + "ms is not a valid BOM wait time, using : " + timeout + "ms instead");
         }
         this.timeoutInMilliseconds = timeout;
+
+        this.executorService = DaemonExecutors.createPool(DEFAULT_MAXIMUM_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * Bounds how many scan summary requests a single poll makes at the same time.
+     */
+    public void setMaximumConcurrentRequests(final int maximumConcurrentRequests) {
+        DaemonExecutors.setPoolSize(executorService, maximumConcurrentRequests);
+    }
+
+    /**
+     * Replaces the default exponential backoff, for example with a FixedIntervalPollingStrategy.
+     */
+    public void setPollingStrategy(final ScanPollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
     }
 
     /**
@@ -112,17 +150,14 @@ public class ScanStatusDataService {
 
     private List<ScanSummaryView> waitForPendingScansToStart(final String projectName, final String projectVersion,
             final long scanStartedTimeoutInMilliseconds) throws HubIntegrationException {
-        List<ScanSummaryView> pendingScans = getPendingScans(projectName, projectVersion);
+        final ProjectVersionLookup projectVersionLookup = new ProjectVersionLookup(projectName, projectVersion);
+        List<ScanSummaryView> pendingScans = getPendingScans(projectVersionLookup);
         final long startedTime = System.currentTimeMillis();
         boolean pendingScansOk = pendingScans.size() > 0;
         while (!done(pendingScansOk, scanStartedTimeoutInMilliseconds, startedTime,
                 "No scan has started within the specified wait time: %d minutes")) {
-            try {
-                Thread.sleep(FIVE_SECONDS);
-            } catch (final InterruptedException e) {
-                throw new HubIntegrationException("The thread waiting for the scan to start was interrupted: " + e.getMessage(), e);
-            }
-            pendingScans = getPendingScans(projectName, projectVersion);
+            waitBeforeNextPoll(null, startedTime, scanStartedTimeoutInMilliseconds, "The thread waiting for the scan to start was interrupted: ");
+            pendingScans = getPendingScans(projectVersionLookup);
             pendingScansOk = pendingScans.size() > 0;
         }
 
@@ -131,19 +166,54 @@ public class ScanStatusDataService {
 
     private void waitForScansToComplete(List<ScanSummaryView> pendingScans, final long scanStartedTimeoutInMilliseconds)
             throws HubTimeoutExceededException, IntegrationException {
+        final String waitKey = createWaitKey(pendingScans);
         pendingScans = getPendingScans(pendingScans);
         final long startedTime = System.currentTimeMillis();
         boolean pendingScansOk = pendingScans.isEmpty();
+        final boolean scansWereRunning = !pendingScansOk;
         while (!done(pendingScansOk, scanStartedTimeoutInMilliseconds, startedTime,
                 "The pending scans have not completed within the specified wait time: %d minutes")) {
-            try {
-                Thread.sleep(FIVE_SECONDS);
-            } catch (final InterruptedException e) {
-                throw new HubIntegrationException("The thread waiting for the scan to complete was interrupted: " + e.getMessage(), e);
-            }
+            waitBeforeNextPoll(waitKey, startedTime, scanStartedTimeoutInMilliseconds, "The thread waiting for the scan to complete was interrupted: ");
             pendingScans = getPendingScans(pendingScans);
             pendingScansOk = pendingScans.isEmpty();
         }
+        if (scansWereRunning) {
+            pollingStrategy.waitCompleted(waitKey, System.currentTimeMillis() - startedTime);
+        }
+    }
+
+    private void waitBeforeNextPoll(final String waitKey, final long startedTime, final long timeoutInMilliseconds, final String interruptedMessage)
+            throws HubIntegrationException {
+        final long elapsed = System.currentTimeMillis() - startedTime;
+        // never sleep much past the timeout, so the last poll happens when the wait times out
+        final long remaining = Math.max(1, timeoutInMilliseconds - elapsed + 1);
+        final long delay = Math.min(pollingStrategy.getDelayBeforeNextPoll(waitKey, elapsed), remaining);
+        try {
+            Thread.sleep(delay);
+        } catch (final InterruptedException e) {
+            throw new HubIntegrationException(interruptedMessage + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scans are identified by their code locations, so durations are learned per set of code locations.
+     */
+    private String createWaitKey(final List<ScanSummaryView> scanSummaries) {
+        final List<String> codeLocationLinks = new ArrayList<>();
+        for (final ScanSummaryView scanSummary : scanSummaries) {
+            if (scanSummary.getJson() == null) {
+                continue;
+            }
+            final String codeLocationLink = metaService.getFirstLinkSafely(scanSummary, MetaService.CODE_LOCATION_BOM_STATUS_LINK);
+            if (codeLocationLink != null && !codeLocationLinks.contains(codeLocationLink)) {
+                codeLocationLinks.add(codeLocationLink);
+            }
+        }
+        if (codeLocationLinks.isEmpty()) {
+            return null;
+        }
+        Collections.sort(codeLocationLinks);
+        return StringUtils.join(codeLocationLinks, ",");
     }
 
     private boolean done(final boolean pendingScansOk, final long timeoutInMilliseconds, final long startedTime,
@@ -165,28 +235,34 @@ public class ScanStatusDataService {
         return elapsed > timeoutInMilliseconds;
     }
 
-    private List<ScanSummaryView> getPendingScans(final String projectName, final String projectVersion) {
+    /**
+     * Only the code locations mapped to the version are fetched, through its codelocations link, rather than every
+     * BOM_IMPORT code location on the Hub.
+     */
+    private List<ScanSummaryView> getPendingScans(final ProjectVersionLookup projectVersionLookup) {
         List<ScanSummaryView> pendingScans = new ArrayList<>();
         try {
-            final ProjectView projectItem = projectRequestService.getProjectByName(projectName);
-            final ProjectVersionView projectVersionItem = projectVersionRequestService.getProjectVersion(projectItem, projectVersion);
-            final String projectVersionUrl = metaService.getHref(projectVersionItem);
-
-            final List<CodeLocationView> allCodeLocations = codeLocationRequestService
-                    .getAllCodeLocationsForCodeLocationType(CodeLocationEnum.BOM_IMPORT);
+            final ProjectVersionView projectVersionItem = projectVersionLookup.getProjectVersion();
+            if (projectVersionItem == null) {
+                return pendingScans;
+            }
+            final List<CodeLocationView> versionCodeLocations = codeLocationRequestService.getAllCodeLocationsForProjectVersion(projectVersionItem);
 
             final List<String> allScanSummariesLinks = new ArrayList<>();
-            for (final CodeLocationView codeLocationItem : allCodeLocations) {
-                final String mappedProjectVersionUrl = codeLocationItem.getMappedProjectVersion();
-                if (projectVersionUrl.equals(mappedProjectVersionUrl)) {
+            for (final CodeLocationView codeLocationItem : versionCodeLocations) {
+                if (CodeLocationEnum.BOM_IMPORT == codeLocationItem.getType()) {
                     final String scanSummariesLink = metaService.getFirstLink(codeLocationItem, MetaService.SCANS_LINK);
                     allScanSummariesLinks.add(scanSummariesLink);
                 }
             }
 
-            final List<ScanSummaryView> allScanSummaries = new ArrayList<>();
+            final List<Callable<List<ScanSummaryView>>> requests = new ArrayList<>();
             for (final String scanSummaryLink : allScanSummariesLinks) {
-                allScanSummaries.addAll(scanSummaryRequestService.getAllScanSummaryItems(scanSummaryLink));
+                requests.add(new ScanSummariesCallable(scanSummaryLink));
+            }
+            final List<ScanSummaryView> allScanSummaries = new ArrayList<>();
+            for (final List<ScanSummaryView> scanSummaries : getConcurrently(requests)) {
+                allScanSummaries.addAll(scanSummaries);
             }
 
             pendingScans = new ArrayList<>();
@@ -204,33 +280,82 @@ public class ScanStatusDataService {
         return pendingScans;
     }
 
+    /**
+     * Refreshes every scan summary concurrently. The first one found in an error state fails the poll and cancels the
+     * requests still running.
+     */
     private List<ScanSummaryView> getPendingScans(final List<ScanSummaryView> scanSummaries) throws IntegrationException {
-        final List<ScanSummaryView> pendingScans = new ArrayList<>();
+        final List<Callable<ScanSummaryView>> requests = new ArrayList<>();
         for (final ScanSummaryView scanSummaryItem : scanSummaries) {
-            final String scanSummaryLink = metaService.getHref(scanSummaryItem);
-            final ScanSummaryView currentScanSummaryItem = scanSummaryRequestService.getItem(scanSummaryLink, ScanSummaryView.class);
+            requests.add(new CurrentScanSummaryCallable(metaService.getHref(scanSummaryItem)));
+        }
+
+        final List<ScanSummaryView> pendingScans = new ArrayList<>();
+        for (final ScanSummaryView currentScanSummaryItem : getConcurrently(requests)) {
             if (isPending(currentScanSummaryItem.getStatus())) {
                 pendingScans.add(currentScanSummaryItem);
-            } else if (isError(currentScanSummaryItem.getStatus())) {
-                throw new HubIntegrationException("There was a problem in the Hub processing the scan(s). Error Status : "
-                        + currentScanSummaryItem.getStatus().toString() + ", " + currentScanSummaryItem.getStatusMessage());
             }
         }
 
         return pendingScans;
     }
 
-    private static final Set<ScanSummaryStatusEnum> PENDING_STATES = EnumSet.of(ScanSummaryStatusEnum.UNSTARTED, ScanSummaryStatusEnum.SCANNING,
+    private <T> List<T> getConcurrently(final List<Callable<T>> requests) throws IntegrationException {
+        return getConcurrently(executorService, requests);
+    }
+
+    /**
+     * Runs the requests on the executor and returns their results in request order, or throws the first failure.
+     */
+    static <T> List<T> getConcurrently(final ExecutorService executorService, final List<Callable<T>> requests) throws IntegrationException {
+        final List<T> results = new ArrayList<>(requests.size());
+        if (requests.size() == 1) {
+            try {
+                results.add(requests.get(0).call());
+                return results;
+            } catch (final IntegrationException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new HubIntegrationException(e.getMessage(), e);
+            }
+        }
+
+        final ExecutorCompletionService<T> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Future<T>> futures = new ArrayList<>(requests.size());
+        try {
+            for (final Callable<T> request : requests) {
+                futures.add(completionService.submit(request));
+            }
+            for (int index = 0; index < futures.size(); index++) {
+                completionService.take().get();
+            }
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("The thread waiting for the scan status was interrupted: " + e.getMessage(), e);
+        } catch (final ExecutionException e) {
+            throw DaemonExecutors.getIntegrationException(e);
+        } finally {
+            for (final Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    static final Set<ScanSummaryStatusEnum> PENDING_STATES = EnumSet.of(ScanSummaryStatusEnum.UNSTARTED, ScanSummaryStatusEnum.SCANNING,
             ScanSummaryStatusEnum.SAVING_SCAN_DATA,
             ScanSummaryStatusEnum.SCAN_DATA_SAVE_COMPLETE, ScanSummaryStatusEnum.REQUESTED_MATCH_JOB, ScanSummaryStatusEnum.MATCHING,
             ScanSummaryStatusEnum.BOM_VERSION_CHECK, ScanSummaryStatusEnum.BUILDING_BOM);
 
-    private static final Set<ScanSummaryStatusEnum> DONE_STATES = EnumSet.of(ScanSummaryStatusEnum.COMPLETE, ScanSummaryStatusEnum.CANCELLED,
+    static final Set<ScanSummaryStatusEnum> DONE_STATES = EnumSet.of(ScanSummaryStatusEnum.COMPLETE, ScanSummaryStatusEnum.CANCELLED,
             ScanSummaryStatusEnum.CLONED, ScanSummaryStatusEnum.ERROR_SCANNING,
             ScanSummaryStatusEnum.ERROR_SAVING_SCAN_DATA, ScanSummaryStatusEnum.ERROR_MATCHING, ScanSummaryStatusEnum.ERROR_BUILDING_BOM,
             ScanSummaryStatusEnum.ERROR);
 
-    private static final Set<ScanSummaryStatusEnum> ERROR_STATES = EnumSet.of(ScanSummaryStatusEnum.CANCELLED, ScanSummaryStatusEnum.ERROR_SCANNING,
+    static final Set<ScanSummaryStatusEnum> ERROR_STATES = EnumSet.of(ScanSummaryStatusEnum.CANCELLED, ScanSummaryStatusEnum.ERROR_SCANNING,
             ScanSummaryStatusEnum.ERROR_SAVING_SCAN_DATA,
             ScanSummaryStatusEnum.ERROR_MATCHING, ScanSummaryStatusEnum.ERROR_BUILDING_BOM, ScanSummaryStatusEnum.ERROR);
 
@@ -246,4 +371,63 @@ public class ScanStatusDataService {
         return ERROR_STATES.contains(statusEnum);
     }
 
+    /**
+     * Resolves the project version at most once per wait: polls keep trying until it exists, then reuse it.
+     */
+    private class ProjectVersionLookup {
+        private final String projectName;
+
+        private final String projectVersionName;
+
+        private ProjectVersionView projectVersion;
+
+        public ProjectVersionLookup(final String projectName, final String projectVersionName) {
+            this.projectName = projectName;
+            this.projectVersionName = projectVersionName;
+        }
+
+        public ProjectVersionView getProjectVersion() {
+            if (projectVersion == null) {
+                try {
+                    final ProjectView projectItem = projectRequestService.getProjectByName(projectName);
+                    projectVersion = projectVersionRequestService.getProjectVersion(projectItem, projectVersionName);
+                } catch (final Exception e) {
+                    // the project or version might not exist yet, so try again on the next poll
+                }
+            }
+            return projectVersion;
+        }
+    }
+
+    private class ScanSummariesCallable implements Callable<List<ScanSummaryView>> {
+        private final String scanSummariesLink;
+
+        public ScanSummariesCallable(final String scanSummariesLink) {
+            this.scanSummariesLink = scanSummariesLink;
+        }
+
+        @Override
+        public List<ScanSummaryView> call() throws IntegrationException {
+            return scanSummaryRequestService.getAllScanSummaryItems(scanSummariesLink);
+        }
+    }
+
+    private class CurrentScanSummaryCallable implements Callable<ScanSummaryView> {
+        private final String scanSummaryLink;
+
+        public CurrentScanSummaryCallable(final String scanSummaryLink) {
+            this.scanSummaryLink = scanSummaryLink;
+        }
+
+        @Override
+        public ScanSummaryView call() throws IntegrationException {
+            final ScanSummaryView currentScanSummaryItem = scanSummaryRequestService.getItem(scanSummaryLink, ScanSummaryView.class);
+            if (isError(currentScanSummaryItem.getStatus())) {
+                throw new HubIntegrationException("There was a problem in the Hub processing the scan(s). Error Status : "
+                        + currentScanSummaryItem.getStatus().toString() + ", " + currentScanSummaryItem.getStatusMessage());
+            }
+            return currentScanSummaryItem;
+        }
+    }
+
 }
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 
+import com.blackducksoftware.integration.hub.dataservice.notification.metrics.NotificationMetricsListener;
 import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.notification.processor.event.NotificationEvent;
@@ -41,10 +42,32 @@ public abstract class NotificationProcessor<T> {
 
     private final List<SubProcessorCache> cacheList = new ArrayList<>();
 
+    private volatile NotificationMetricsListener metricsListener;
+
     public T process(final SortedSet<NotificationContentItem> notifications) throws HubIntegrationException {
+        final NotificationMetricsListener listener = metricsListener;
+        if (listener == null) {
+            createEvents(notifications);
+            final Collection<NotificationEvent> events = collectEvents();
+            return processEvents(events);
+        }
+        long startNanos = System.nanoTime();
         createEvents(notifications);
+        listener.stageCompleted(NotificationMetricsListener.STAGE_CREATE_EVENTS, System.nanoTime() - startNanos, notifications.size());
+        startNanos = System.nanoTime();
         final Collection<NotificationEvent> events = collectEvents();
-        return processEvents(events);
+        listener.stageCompleted(NotificationMetricsListener.STAGE_COLLECT_EVENTS, System.nanoTime() - startNanos, events.size());
+        startNanos = System.nanoTime();
+        final T results = processEvents(events);
+        listener.stageCompleted(NotificationMetricsListener.STAGE_PROCESS_EVENTS, System.nanoTime() - startNanos, events.size());
+        return results;
+    }
+
+    /**
+     * A null listener (the default) turns off the stage timings.
+     */
+    public void setMetricsListener(final NotificationMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
     }
 
     private void createEvents(final SortedSet<NotificationContentItem> notifications) throws HubIntegrationException {
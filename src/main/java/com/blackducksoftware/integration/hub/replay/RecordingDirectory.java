@@ -0,0 +1,142 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import okhttp3.HttpUrl;
+
+/**
+ * The on disk format shared by RecordingRestConnection and ReplayRestConnection. Every recorded GET is stored as a
+ * body file named by the SHA-1 of its URL path and sorted query, and listed in a tab separated index file. The host
+ * is not part of the key, so a recording can be replayed against any base URL.
+ */
+public class RecordingDirectory {
+    public static final String INDEX_FILE_NAME = "recordings.txt";
+
+    public static final String BODY_FILE_EXTENSION = ".body";
+
+    private final File directory;
+
+    private final File indexFile;
+
+    private final Map<String, RecordedResponse> recordings = new ConcurrentHashMap<>();
+
+    public RecordingDirectory(final File directory) throws IOException {
+        this.directory = directory;
+        this.indexFile = new File(directory, INDEX_FILE_NAME);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create the recording directory : " + directory.getCanonicalPath());
+        }
+        if (indexFile.exists()) {
+            for (final String line : FileUtils.readLines(indexFile, StandardCharsets.UTF_8)) {
+                final String[] pieces = line.split("\t", 4);
+                if (pieces.length == 4) {
+                    recordings.put(pieces[0], new RecordedResponse(pieces[0], Integer.parseInt(pieces[1]), pieces[2], pieces[3]));
+                }
+            }
+        }
+    }
+
+    public static String createRelativeUrl(final HttpUrl url) {
+        final StringBuilder relativeUrl = new StringBuilder(url.encodedPath());
+        final List<String> queryParameters = new ArrayList<>();
+        for (final String name : url.queryParameterNames()) {
+            for (final String value : url.queryParameterValues(name)) {
+                queryParameters.add(name + "=" + value);
+            }
+        }
+        if (!queryParameters.isEmpty()) {
+            Collections.sort(queryParameters);
+            relativeUrl.append("?");
+            relativeUrl.append(StringUtils.join(queryParameters, "&"));
+        }
+        return relativeUrl.toString();
+    }
+
+    public static String createKey(final HttpUrl url) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] hash = digest.digest(createRelativeUrl(url).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder key = new StringBuilder(hash.length * 2);
+            for (final byte hashByte : hash) {
+                key.append(String.format("%02x", hashByte & 0xff));
+            }
+            return key.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public synchronized RecordedResponse record(final HttpUrl url, final int statusCode, final String statusMessage, final byte[] body)
+            throws IOException {
+        final String key = createKey(url);
+        final RecordedResponse recordedResponse = new RecordedResponse(key, statusCode, clean(statusMessage), createRelativeUrl(url));
+        FileUtils.writeByteArrayToFile(getBodyFile(key), body);
+        final String line = StringUtils.join(new Object[] { key, statusCode, recordedResponse.getStatusMessage(), recordedResponse.getRelativeUrl() }, "\t");
+        FileUtils.writeStringToFile(indexFile, line + "\n", StandardCharsets.UTF_8, true);
+        recordings.put(key, recordedResponse);
+        return recordedResponse;
+    }
+
+    public RecordedResponse getRecording(final HttpUrl url) {
+        return recordings.get(createKey(url));
+    }
+
+    public byte[] readBody(final RecordedResponse recordedResponse) throws IOException {
+        return FileUtils.readFileToByteArray(getBodyFile(recordedResponse.getKey()));
+    }
+
+    public int size() {
+        return recordings.size();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private File getBodyFile(final String key) {
+        return new File(directory, key + BODY_FILE_EXTENSION);
+    }
+
+    private String clean(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replaceAll("[\t\r\n]", " ");
+    }
+
+}
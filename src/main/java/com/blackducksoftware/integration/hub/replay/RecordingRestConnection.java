@@ -0,0 +1,116 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.replay;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Wraps a connected RestConnection and records every JSON GET made through it, including the notification pages
+ * and every entity the transformers request, into a RecordingDirectory. Failed GETs are recorded too, so a replay
+ * reproduces them (for example a Forbidden project version). All other requests are passed through unrecorded.
+ */
+public class RecordingRestConnection extends RestConnection {
+    private final RestConnection delegate;
+
+    private final RecordingDirectory recordingDirectory;
+
+    public RecordingRestConnection(final RestConnection delegate, final RecordingDirectory recordingDirectory) {
+        super(delegate.logger, delegate.hubBaseUrl, delegate.timeout);
+        this.delegate = delegate;
+        this.recordingDirectory = recordingDirectory;
+        commonRequestHeaders.putAll(delegate.commonRequestHeaders);
+    }
+
+    @Override
+    public void connect() throws IntegrationException {
+        delegate.connect();
+        commonRequestHeaders.putAll(delegate.commonRequestHeaders);
+    }
+
+    @Override
+    public void addBuilderAuthentication() throws IntegrationException {
+        // the delegate authenticates
+    }
+
+    @Override
+    public void clientAuthenticate() throws IntegrationException {
+        // the delegate authenticates
+    }
+
+    @Override
+    public Response handleExecuteClientCall(final Request request) throws IntegrationException {
+        if (!"GET".equals(request.method())) {
+            return delegate.handleExecuteClientCall(request);
+        }
+        final Response response;
+        try {
+            response = delegate.handleExecuteClientCall(request);
+        } catch (final IntegrationRestException e) {
+            record(request, e.getHttpStatusCode(), e.getHttpStatusMessage(), e.getMessage().getBytes(StandardCharsets.UTF_8));
+            throw e;
+        }
+
+        final ResponseBody body = response.body();
+        final MediaType contentType = body.contentType();
+        if (contentType != null && !isJson(contentType)) {
+            return response;
+        }
+        try {
+            final byte[] bytes = body.bytes();
+            record(request, response.code(), response.message(), bytes);
+            return response.newBuilder().body(ResponseBody.create(contentType, bytes)).build();
+        } catch (final IOException e) {
+            response.close();
+            throw new HubIntegrationException("Could not record the response from " + request.url(), e);
+        }
+    }
+
+    public RecordingDirectory getRecordingDirectory() {
+        return recordingDirectory;
+    }
+
+    private boolean isJson(final MediaType contentType) {
+        return contentType.subtype().contains("json");
+    }
+
+    private void record(final Request request, final int statusCode, final String statusMessage, final byte[] body) throws HubIntegrationException {
+        try {
+            recordingDirectory.record(request.url(), statusCode, statusMessage, body);
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Could not record the response from " + request.url(), e);
+        }
+    }
+
+}
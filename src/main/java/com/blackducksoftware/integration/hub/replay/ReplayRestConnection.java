@@ -0,0 +1,147 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+import com.blackducksoftware.integration.log.IntLogger;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * A RestConnection that never contacts a Hub: every GET is answered from a RecordingDirectory written by
+ * RecordingRestConnection. Use it in place of a real connection with HubServicesFactory to run NotificationDataService
+ * and a NotificationProcessor offline.
+ *
+ * Each request can be delayed by a fixed latency plus a random jitter to simulate a remote Hub. The jitter of a request
+ * is drawn from the seed and the request's url, so a run with the same seed sees the same delay for each request,
+ * whatever order concurrent requests are made in.
+ */
+public class ReplayRestConnection extends RestConnection {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final RecordingDirectory recordingDirectory;
+
+    private final long latencyMillis;
+
+    private final long jitterMillis;
+
+    private final long seed;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public ReplayRestConnection(final IntLogger logger, final URL hubBaseUrl, final File recordingDirectory) throws IOException {
+        this(logger, hubBaseUrl, new RecordingDirectory(recordingDirectory), 0, 0, 0);
+    }
+
+    public ReplayRestConnection(final IntLogger logger, final URL hubBaseUrl, final RecordingDirectory recordingDirectory, final long latencyMillis,
+            final long jitterMillis, final long seed) {
+        super(logger, hubBaseUrl, 120);
+        this.recordingDirectory = recordingDirectory;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.seed = seed;
+    }
+
+    @Override
+    public void connect() throws IntegrationException {
+        // nothing to connect to
+    }
+
+    @Override
+    public void addBuilderAuthentication() throws IntegrationException {
+        // nothing to authenticate
+    }
+
+    @Override
+    public void clientAuthenticate() throws IntegrationException {
+        // nothing to authenticate
+    }
+
+    @Override
+    public Response handleExecuteClientCall(final Request request) throws IntegrationException {
+        requestCount.incrementAndGet();
+        simulateLatency(RecordingDirectory.createRelativeUrl(request.url()));
+        if (!"GET".equals(request.method())) {
+            throw new HubIntegrationException("Only GET requests can be replayed, not : " + request.method() + " " + request.url());
+        }
+        final RecordedResponse recordedResponse = recordingDirectory.getRecording(request.url());
+        if (recordedResponse == null) {
+            missCount.incrementAndGet();
+            throw new IntegrationRestException(404, "Not Found", "There is no recording for : " + RecordingDirectory.createRelativeUrl(request.url()));
+        }
+
+        final byte[] body;
+        try {
+            body = recordingDirectory.readBody(recordedResponse);
+        } catch (final IOException e) {
+            throw new HubIntegrationException("Could not read the recording for : " + recordedResponse.getRelativeUrl(), e);
+        }
+        if (!recordedResponse.isSuccessful()) {
+            throw new IntegrationRestException(recordedResponse.getStatusCode(), recordedResponse.getStatusMessage(),
+                    new String(body, StandardCharsets.UTF_8));
+        }
+        return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(recordedResponse.getStatusCode())
+                .message(recordedResponse.getStatusMessage()).body(ResponseBody.create(JSON, body)).build();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void simulateLatency(final String relativeUrl) throws HubIntegrationException {
+        long delay = latencyMillis;
+        if (jitterMillis > 0) {
+            delay += (long) (new Random(seed * 31 + relativeUrl.hashCode()).nextDouble() * jitterMillis);
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HubIntegrationException("The thread replaying the request was interrupted", e);
+            }
+        }
+    }
+
+}
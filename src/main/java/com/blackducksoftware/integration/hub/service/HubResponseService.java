@@ -145,6 +145,21 @@ public class HubResponseService {
      */
     public <T extends HubResponse> List<T> getAllItems(final HubPagedRequest hubPagedRequest, final Class<T> clazz) throws IntegrationException {
         final List<T> allItems = new LinkedList<>();
+        getAllItems(hubPagedRequest, clazz, new PageListener<T>() {
+            @Override
+            public void itemsReceived(final List<T> items) {
+                allItems.addAll(items);
+            }
+        });
+        return allItems;
+    }
+
+    /**
+     * Will make further paged requests like getAllItems, handing each page to the listener as soon as it arrives
+     */
+    public <T extends HubResponse> void getAllItems(final HubPagedRequest hubPagedRequest, final Class<T> clazz, final PageListener<T> listener)
+            throws IntegrationException {
+        int receivedCount = 0;
         int totalCount = 0;
         int currentOffset = hubPagedRequest.offset;
         try (Response response = hubPagedRequest.executeGet()) {
@@ -152,16 +167,34 @@ public class HubResponseService {
 
             final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
             totalCount = jsonObject.get("totalCount").getAsInt();
-            allItems.addAll(getItems(jsonObject, clazz));
-            while (allItems.size() < totalCount && currentOffset < totalCount) {
+            final List<T> firstPage = getItems(jsonObject, clazz);
+            receivedCount += firstPage.size();
+            listener.itemsReceived(firstPage);
+            while (receivedCount < totalCount && currentOffset < totalCount) {
                 currentOffset += hubPagedRequest.limit;
                 hubPagedRequest.offset = currentOffset;
-                allItems.addAll(getItems(hubPagedRequest, clazz));
+                final List<T> page = getItems(hubPagedRequest, clazz);
+                receivedCount += page.size();
+                listener.itemsReceived(page);
             }
         } catch (final IOException e) {
             throw new HubIntegrationException(e);
         }
-        return allItems;
+    }
+
+    /**
+     * Requests a single item, to read how many items all the pages hold
+     */
+    public int getTotalCount(final String url) throws IntegrationException {
+        final HubPagedRequest hubPagedRequest = hubRequestFactory.createPagedRequest(1, url);
+        try (Response response = hubPagedRequest.executeGet()) {
+            final String jsonResponse = response.body().string();
+
+            final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
+            return jsonObject.get("totalCount").getAsInt();
+        } catch (final IOException e) {
+            throw new HubIntegrationException(e);
+        }
     }
 
     /**
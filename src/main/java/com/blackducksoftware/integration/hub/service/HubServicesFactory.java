@@ -53,6 +53,7 @@ import com.blackducksoftware.integration.hub.api.vulnerability.VulnerabilityRequ
 import com.blackducksoftware.integration.hub.api.vulnerablebomcomponent.VulnerableBomComponentRequestService;
 import com.blackducksoftware.integration.hub.cli.CLIDownloadService;
 import com.blackducksoftware.integration.hub.cli.SimpleScanService;
+import com.blackducksoftware.integration.hub.dataservice.bom.BomDiffDataService;
 import com.blackducksoftware.integration.hub.dataservice.cli.CLIDataService;
 import com.blackducksoftware.integration.hub.dataservice.component.ComponentDataService;
 import com.blackducksoftware.integration.hub.dataservice.extension.ExtensionConfigDataService;
@@ -61,7 +62,9 @@ import com.blackducksoftware.integration.hub.dataservice.notification.Notificati
 import com.blackducksoftware.integration.hub.dataservice.notification.model.PolicyNotificationFilter;
 import com.blackducksoftware.integration.hub.dataservice.phonehome.PhoneHomeDataService;
 import com.blackducksoftware.integration.hub.dataservice.policystatus.PolicyStatusDataService;
+import com.blackducksoftware.integration.hub.dataservice.report.PortfolioRiskReportService;
 import com.blackducksoftware.integration.hub.dataservice.report.RiskReportDataService;
+import com.blackducksoftware.integration.hub.dataservice.scan.ScanCompletionWatcher;
 import com.blackducksoftware.integration.hub.dataservice.scan.ScanStatusDataService;
 import com.blackducksoftware.integration.hub.dataservice.vulnerability.VulnerabilityDataService;
 import com.blackducksoftware.integration.hub.global.HubServerConfig;
@@ -107,6 +110,16 @@ public class HubServicesFactory {
                 createMetaService(logger), createCheckedHubSupport(logger));
     }
 
+    public PortfolioRiskReportService createPortfolioRiskReportService(final IntLogger logger,
+            final long timeoutInMilliseconds, final int maximumConcurrentVersions) throws IntegrationException {
+        return new PortfolioRiskReportService(logger, createProjectRequestService(logger), createProjectVersionRequestService(logger),
+                createRiskReportDataService(logger, timeoutInMilliseconds), createMetaService(logger), maximumConcurrentVersions);
+    }
+
+    public BomDiffDataService createBomDiffDataService(final IntLogger logger) {
+        return new BomDiffDataService(logger, createAggregateBomRequestService(logger));
+    }
+
     public PolicyStatusDataService createPolicyStatusDataService(final IntLogger logger) {
         return new PolicyStatusDataService(restConnection, createProjectRequestService(logger),
                 createProjectVersionRequestService(logger), createMetaService(logger));
@@ -119,6 +132,15 @@ public class HubServicesFactory {
                 timeoutInMilliseconds);
     }
 
+    /**
+     * The watcher polls for every registered wait on its own thread, so create one per Hub and share it.
+     */
+    public ScanCompletionWatcher createScanCompletionWatcher(final IntLogger logger, final long pollIntervalInMilliseconds) {
+        return new ScanCompletionWatcher(logger, createProjectRequestService(logger), createProjectVersionRequestService(logger),
+                createCodeLocationRequestService(logger), createScanSummaryRequestService(), createMetaService(logger),
+                pollIntervalInMilliseconds);
+    }
+
     public NotificationDataService createNotificationDataService(final IntLogger logger) {
         return new NotificationDataService(logger, createHubResponseService(), createNotificationRequestService(logger),
                 createProjectVersionRequestService(logger),
@@ -0,0 +1,137 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.util;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+
+/**
+ * The thread pools behind the concurrent requests of the services. Their threads are daemon threads, so they never
+ * keep the JVM of a build alive, and the pools from createPool let every thread exit after IDLE_SECONDS without work,
+ * so a service that is dropped without being shut down leaves no threads behind.
+ */
+public final class DaemonExecutors {
+    public static final long IDLE_SECONDS = 30;
+
+    private DaemonExecutors() {
+    }
+
+    public static ThreadFactory createThreadFactory() {
+        return createThreadFactory(null);
+    }
+
+    /**
+     * @param threadName
+     *            the name of every thread, or null for the default pool-N-thread-M names
+     */
+    public static ThreadFactory createThreadFactory(final String threadName) {
+        final ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = defaultThreadFactory.newThread(runnable);
+                if (threadName != null) {
+                    thread.setName(threadName);
+                }
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * A pool of up to maximumThreads daemon threads that exit when idle, queueing the tasks submitted while all are
+     * busy.
+     */
+    public static ThreadPoolExecutor createPool(final int maximumThreads) {
+        validatePoolSize(maximumThreads);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maximumThreads, maximumThreads, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), createThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A single daemon thread for delayed tasks, that exits once no task has been scheduled for IDLE_SECONDS. It stays
+     * alive while a task is waiting for its delay, and a new one is started by the next schedule call.
+     */
+    public static ScheduledThreadPoolExecutor createScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, createThreadFactory());
+        scheduler.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        return scheduler;
+    }
+
+    /**
+     * Resizes a pool from createPool, in the order ThreadPoolExecutor requires for growing and for shrinking it.
+     */
+    public static void setPoolSize(final ThreadPoolExecutor executor, final int maximumThreads) {
+        validatePoolSize(maximumThreads);
+        if (maximumThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maximumThreads);
+            executor.setCorePoolSize(maximumThreads);
+        } else {
+            executor.setCorePoolSize(maximumThreads);
+            executor.setMaximumPoolSize(maximumThreads);
+        }
+    }
+
+    /**
+     * The IntegrationException a task failed with, or the failure wrapped in a HubIntegrationException.
+     */
+    public static IntegrationException getIntegrationException(final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IntegrationException) {
+            return (IntegrationException) cause;
+        }
+        return new HubIntegrationException(cause.getMessage(), cause);
+    }
+
+    /**
+     * The IOException a task failed with, or the failure wrapped in an IOException.
+     */
+    public static IOException getIOException(final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause.getMessage(), cause);
+    }
+
+    private static void validatePoolSize(final int maximumThreads) {
+        if (maximumThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1, but was " + maximumThreads);
+        }
+    }
+
+}
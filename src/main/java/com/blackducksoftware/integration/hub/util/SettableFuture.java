@@ -0,0 +1,70 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A Future that is completed by calling complete or completeExceptionally rather than by running a task, for the
+ * asynchronous waits that finish on a polling thread. The first completion wins, later ones are ignored.
+ */
+public class SettableFuture<V> extends FutureTask<V> {
+    public SettableFuture() {
+        super(new Callable<V>() {
+            @Override
+            public V call() {
+                throw new UnsupportedOperationException("A SettableFuture is completed with complete or completeExceptionally");
+            }
+        });
+    }
+
+    /**
+     * @return true if this call completed the future, false if it was already done
+     */
+    public synchronized boolean complete(final V value) {
+        if (isDone()) {
+            return false;
+        }
+        set(value);
+        return true;
+    }
+
+    /**
+     * @return true if this call completed the future, false if it was already done
+     */
+    public synchronized boolean completeExceptionally(final Throwable throwable) {
+        if (isDone()) {
+            return false;
+        }
+        setException(throwable);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        throw new UnsupportedOperationException("A SettableFuture is completed with complete or completeExceptionally");
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.blackducksoftware.integration.log.LogLevel;
+
+public class ScannerSplitStreamTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private static final String CLI_OUTPUT = "INFO: Scanning /projects/café – 日本\r\n"
+            + "DEBUG: Walking /projects/café\n"
+            + "  skipped .git\n"
+            + "warn: Could not read a file\r"
+            + "ERROR: Upload failed\n"
+            + "java.io.IOException: Connection reset\n"
+            + "\tat Upload.send(Upload.java:12)\n"
+            + "Finished in 12 seconds\n"
+            + "trace: done";
+
+    @Test
+    public void testMessagesAreTheSameWhateverTheWritesAreSplitInto() throws Exception {
+        final byte[] bytes = CLI_OUTPUT.getBytes(StandardCharsets.UTF_8);
+        for (final int chunkSize : new int[] { 1, 2, 3, 7, bytes.length }) {
+            final IntBufferedLogger logger = new IntBufferedLogger();
+            final ByteArrayOutputStream logFile = new ByteArrayOutputStream();
+            final ScannerSplitStream splitStream = new ScannerSplitStream(logger, logFile);
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                if (chunkSize == 1) {
+                    splitStream.write(bytes[offset]);
+                } else {
+                    splitStream.write(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+                }
+            }
+            splitStream.flush();
+
+            Assert.assertArrayEquals(bytes, logFile.toByteArray());
+            Assert.assertEquals(Arrays.asList("INFO: Scanning /projects/café – 日本", "Finished in 12 seconds"),
+                    logger.getOutputList(LogLevel.INFO));
+            Assert.assertEquals(Arrays.asList("warn: Could not read a file"), logger.getOutputList(LogLevel.WARN));
+            Assert.assertEquals(Arrays.asList("ERROR: Upload failed", "java.io.IOException: Connection reset" + LINE_SEPARATOR + "\tat Upload.send(Upload.java:12)"),
+                    logger.getOutputList(LogLevel.ERROR));
+            Assert.assertTrue(logger.getOutputList(LogLevel.DEBUG).isEmpty());
+            Assert.assertTrue(splitStream.hasOutput());
+            Assert.assertFalse(splitStream.getOutput().contains("Walking"));
+        }
+    }
+
+    @Test
+    public void testMarkersAreFoundIgnoringCase() {
+        Assert.assertEquals(0, findMarkers("Scanning 120 files"));
+        Assert.assertEquals(0, findMarkers("INFO without a colon"));
+        Assert.assertNotEquals(0, findMarkers("2018-01-01 12:00:00 iNfO: started"));
+        Assert.assertNotEquals(0, findMarkers("Exception: in thread main"));
+        Assert.assertNotEquals(0, findMarkers("FINISHED IN 3 seconds"));
+        Assert.assertEquals(findMarkers("DEBUG: x"), findMarkers("debug: x"));
+    }
+
+    private int findMarkers(final String line) {
+        final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return ScannerSplitStream.findMarkers(bytes, bytes.length);
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.item;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.meta.MetaAllowEnum;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class HubViewFilterTest {
+    private final MetaService metaService = new MetaService(new IntBufferedLogger(), new JsonParser());
+
+    private final HubViewFilter<ProjectView> filter = new HubViewFilter<>();
+
+    @Test
+    public void testGetAccessibleItems() throws Exception {
+        final List<ProjectView> items = createItems(8);
+        final List<ProjectView> accessibleItems = filter.getAccessibleItems(metaService, items);
+        assertEquals(2, accessibleItems.size());
+        assertEquals(items.get(3), accessibleItems.get(0));
+        assertEquals(items.get(7), accessibleItems.get(1));
+    }
+
+    @Test
+    public void testFilterByAllowedMethodsIsLazy() {
+        final List<ProjectView> items = createItems(4000);
+        final Iterable<ProjectView> deletable = filter.filterByAllowedMethods(metaService, items, HubViewFilter.allowing(EnumSet.of(MetaAllowEnum.DELETE)));
+        final List<ProjectView> deletableItems = new ArrayList<>();
+        for (final ProjectView item : deletable) {
+            deletableItems.add(item);
+        }
+        assertEquals(1000, deletableItems.size());
+        assertEquals(items.get(2), deletableItems.get(0));
+
+        // items added after the filter was created are seen by the next iteration
+        items.addAll(createItems(4));
+        final List<ProjectView> laterDeletableItems = new ArrayList<>();
+        for (final ProjectView item : deletable) {
+            laterDeletableItems.add(item);
+        }
+        assertEquals(1001, laterDeletableItems.size());
+        assertEquals(items.get(4002), laterDeletableItems.get(1000));
+    }
+
+    private List<ProjectView> createItems(final int count) {
+        final List<ProjectView> items = new ArrayList<>(count);
+        final String[] allows = { "[]", "[\"GET\"]", "[\"GET\",\"DELETE\"]", "[\"GET\",\"PUT\"]" };
+        for (int index = 0; index < count; index++) {
+            final ProjectView item = new ProjectView();
+            item.setName("project" + index);
+            item.setJson("{\"name\":\"project" + index + "\",\"_meta\":{\"allow\":" + allows[index % allows.length] + ",\"href\":\"http://a.hub.server/api/projects/"
+                    + index + "\",\"links\":[]}}");
+            items.add(item);
+        }
+        return items;
+    }
+
+}
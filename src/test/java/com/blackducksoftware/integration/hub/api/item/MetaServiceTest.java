@@ -0,0 +1,107 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.item;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.meta.MetaAllowEnum;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class MetaServiceTest {
+    private static final String HREF = "http://a.hub.server/api/projects/1/versions/1";
+
+    private final MetaService metaService = new MetaService(new IntBufferedLogger(), new JsonParser());
+
+    @Test
+    public void testLinkLookups() throws Exception {
+        final ProjectVersionView item = createItem("{\"rel\":\"components\",\"href\":\"" + HREF + "/components\"},"
+                + "{\"rel\":\"codelocations\",\"href\":\"" + HREF + "/codelocations/1\"},"
+                + "{\"rel\":\"codelocations\",\"href\":\"" + HREF + "/codelocations/2\"}");
+
+        assertEquals(HREF, metaService.getHref(item));
+        assertEquals(Arrays.asList(MetaAllowEnum.GET, MetaAllowEnum.PUT), metaService.getAllowedMethods(item));
+        assertTrue(metaService.hasLink(item, MetaService.COMPONENTS_LINK));
+        assertFalse(metaService.hasLink(item, MetaService.RISK_PROFILE_LINK));
+        assertEquals(HREF + "/codelocations/1", metaService.getFirstLink(item, MetaService.CODE_LOCATION_LINK));
+        assertEquals(Arrays.asList(HREF + "/codelocations/1", HREF + "/codelocations/2"), metaService.getLinks(item, MetaService.CODE_LOCATION_LINK));
+        assertEquals(null, metaService.getFirstLinkSafely(item, MetaService.RISK_PROFILE_LINK));
+
+        try {
+            metaService.getFirstLink(item, MetaService.RISK_PROFILE_LINK);
+            fail("Expected a missing link to fail");
+        } catch (final HubIntegrationException e) {
+            assertEquals("Could not find the link 'riskProfile', these are the available links : 'components', 'codelocations'. For Item : " + HREF,
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReplacedJsonIsReparsed() throws Exception {
+        final ProjectVersionView item = createItem("{\"rel\":\"components\",\"href\":\"" + HREF + "/components\"}");
+        assertEquals(HREF + "/components", metaService.getFirstLink(item, MetaService.COMPONENTS_LINK));
+
+        item.setJson(createItem("{\"rel\":\"components\",\"href\":\"" + HREF + "/other-components\"}").getJson());
+        assertEquals(HREF + "/other-components", metaService.getFirstLink(item, MetaService.COMPONENTS_LINK));
+    }
+
+    @Test
+    public void testSafeLookupWithoutLinks() {
+        final ProjectVersionView noLinks = new ProjectVersionView();
+        noLinks.setJson("{\"_meta\":{\"href\":\"" + HREF + "\"}}");
+        assertEquals(null, metaService.getFirstLinkSafely(noLinks, MetaService.COMPONENTS_LINK));
+
+        final ProjectVersionView noMeta = new ProjectVersionView();
+        noMeta.setJson("{\"versionName\":\"1.0\"}");
+        assertEquals(null, metaService.getFirstLinkSafely(noMeta, MetaService.COMPONENTS_LINK));
+    }
+
+    @Test
+    public void testMissingMeta() {
+        final ProjectVersionView item = new ProjectVersionView();
+        item.setJson("{\"versionName\":\"1.0\"}");
+        try {
+            metaService.getHref(item);
+            fail("Expected an item without meta to fail");
+        } catch (final HubIntegrationException e) {
+            assertEquals("This Hub item does not have meta information.", e.getMessage());
+        }
+    }
+
+    private ProjectVersionView createItem(final String links) {
+        final ProjectVersionView item = new ProjectVersionView();
+        item.setJson("{\"versionName\":\"1.0\",\"_meta\":{\"allow\":[\"GET\",\"PUT\"],\"href\":\"" + HREF + "\",\"links\":[" + links + "]}}");
+        return item;
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.dataservice.scan.FixedIntervalPollingStrategy;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.enumeration.ReportFormatEnum;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ReportView;
+import com.blackducksoftware.integration.hub.replay.ReplayRestConnection;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class ReportRequestServiceTest {
+    private static final String HUB_URL = "http://a.hub.server";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReportsForManyVersionsAreTrackedTogetherAndCleanedUp() throws Exception {
+        final FakeReportRequestService reportRequestService = createReportRequestService(60000);
+        final List<ProjectVersionView> versions = new ArrayList<>();
+        for (int index = 0; index < 20; index++) {
+            versions.add(createVersion(index));
+        }
+
+        final List<Future<VersionReport>> reports = reportRequestService.generateHubReportsAsync(versions, ReportFormatEnum.JSON, null);
+        Assert.assertEquals(versions.size(), reports.size());
+        for (int index = 0; index < reports.size(); index++) {
+            final VersionReport report = reports.get(index).get(10, TimeUnit.SECONDS);
+            Assert.assertSame(reportRequestService.reportsByUrl.get(HUB_URL + "/reports/" + index), report);
+        }
+        Assert.assertTrue(reportRequestService.deleted.tryAcquire(versions.size(), 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReportThatNeverFinishesTimesOut() throws Exception {
+        final FakeReportRequestService reportRequestService = createReportRequestService(20);
+        reportRequestService.pollsBeforeFinished = Integer.MAX_VALUE;
+
+        final Future<VersionReport> report = reportRequestService.generateHubReportAsync(createVersion(0), ReportFormatEnum.JSON, null);
+        try {
+            report.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected the report to time out");
+        } catch (final ExecutionException e) {
+            Assert.assertEquals(HubIntegrationException.class, e.getCause().getClass());
+            Assert.assertTrue(e.getCause().getMessage().startsWith("The Report has not finished generating"));
+        }
+        Assert.assertTrue(reportRequestService.deleted.tryAcquire(10, TimeUnit.SECONDS));
+        Assert.assertEquals(HUB_URL + "/reports/0", reportRequestService.deletedUrls.get(0));
+    }
+
+    private FakeReportRequestService createReportRequestService(final long timeoutInMilliseconds) throws Exception {
+        final IntBufferedLogger logger = new IntBufferedLogger();
+        final ReplayRestConnection restConnection = new ReplayRestConnection(logger, new URL(HUB_URL), temporaryFolder.getRoot());
+        final FakeReportRequestService reportRequestService = new FakeReportRequestService(restConnection, logger,
+                new MetaService(logger, new JsonParser()), timeoutInMilliseconds);
+        reportRequestService.setPollingStrategy(new FixedIntervalPollingStrategy(1));
+        return reportRequestService;
+    }
+
+    private ProjectVersionView createVersion(final int index) {
+        final ProjectVersionView version = new ProjectVersionView();
+        version.setJson("{\"_meta\":{\"href\":\"" + HUB_URL + "/versions/" + index + "\",\"links\":[]}}");
+        return version;
+    }
+
+    private static class FakeReportRequestService extends ReportRequestService {
+        private final ConcurrentMap<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, VersionReport> reportsByUrl = new ConcurrentHashMap<>();
+
+        private final List<String> deletedUrls = new CopyOnWriteArrayList<>();
+
+        private final Semaphore deleted = new Semaphore(0);
+
+        private volatile int pollsBeforeFinished = 3;
+
+        public FakeReportRequestService(final ReplayRestConnection restConnection, final IntBufferedLogger logger, final MetaService metaService,
+                final long timeoutInMilliseconds) {
+            super(restConnection, logger, metaService, timeoutInMilliseconds);
+        }
+
+        @Override
+        public String startGeneratingHubReport(final ProjectVersionView version, final ReportFormatEnum reportFormat,
+                final ReportCategoriesEnum[] categories) {
+            return version.getJson().replaceAll(".*/versions/(\\d+).*", HUB_URL + "/reports/$1");
+        }
+
+        @Override
+        public ReportView getReportView(final String reportUrl) {
+            polls.putIfAbsent(reportUrl, new AtomicInteger());
+            final ReportView reportView = new ReportView();
+            reportView.setJson("{\"_meta\":{\"href\":\"" + reportUrl + "\",\"links\":[{\"rel\":\"content\",\"href\":\"" + reportUrl + "\"}]}}");
+            if (polls.get(reportUrl).incrementAndGet() >= pollsBeforeFinished) {
+                reportView.setFinishedAt(new Date());
+            }
+            return reportView;
+        }
+
+        @Override
+        public VersionReport getReportContent(final String reportContentUrl) {
+            final VersionReport report = new VersionReport(null, null);
+            reportsByUrl.put(reportContentUrl, report);
+            return report;
+        }
+
+        @Override
+        public void deleteHubReport(final String reportUrl) throws IntegrationException {
+            deletedUrls.add(reportUrl);
+            deleted.release();
+        }
+    }
+
+}
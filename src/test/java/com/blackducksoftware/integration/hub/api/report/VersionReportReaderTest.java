@@ -0,0 +1,109 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class VersionReportReaderTest {
+    private static final String REPORT = "{\"totalCount\":1,\"reportContent\":[{\"fileName\":\"version.json\",\"fileContent\":{"
+            + "\"aggregateBomViewEntries\":["
+            + createBomEntry("a", "\"VULNERABILITY\":{\"HIGH\":2,\"MEDIUM\":0,\"LOW\":0},\"LICENSE\":{\"HIGH\":0,\"MEDIUM\":1,\"LOW\":0}")
+            + "," + createBomEntry("b", "\"VULNERABILITY\":{\"HIGH\":0,\"MEDIUM\":0,\"LOW\":3}")
+            + "," + createBomEntry("c", "")
+            + "],\"ignored\":{\"nested\":[1,2,3]},"
+            + "\"detailedReleaseSummary\":{\"projectName\":\"project\",\"version\":\"1.0\"}}},{\"fileContent\":{}}]}";
+
+    private static String createBomEntry(final String name, final String categories) {
+        return "{\"producerProject\":{\"name\":\"" + name + "\"},\"policyApprovalStatus\":\"NOT_IN_VIOLATION\","
+                + "\"riskProfile\":{\"numberOfItems\":1,\"categories\":{" + categories + "}}}";
+    }
+
+    @Test
+    public void testEntriesAreStreamedInOrderWithTheSummary() throws Exception {
+        final List<String> names = new ArrayList<>();
+        final DetailedReleaseSummary[] summary = new DetailedReleaseSummary[1];
+        final boolean found = new VersionReportReader(new Gson()).readReportContent(new StringReader(REPORT), new VersionReportListener() {
+            @Override
+            public void detailedReleaseSummaryReceived(final DetailedReleaseSummary detailedReleaseSummary) {
+                summary[0] = detailedReleaseSummary;
+            }
+
+            @Override
+            public void bomEntryReceived(final AggregateBomViewEntry bomEntry) {
+                names.add(bomEntry.getProducerProject().getName());
+            }
+        });
+
+        Assert.assertTrue(found);
+        Assert.assertEquals("[a, b, c]", names.toString());
+        Assert.assertEquals("project", summary[0].getProjectName());
+    }
+
+    @Test
+    public void testStreamedCountsMatchTheWholeReport() throws Exception {
+        final Gson gson = new Gson();
+        final HubRiskReportData streamed = new HubRiskReportData();
+        new VersionReportReader(gson).readReportContent(new StringReader(REPORT), streamed);
+
+        final List<AggregateBomViewEntry> bomEntries = new ArrayList<>();
+        final DetailedReleaseSummary[] summary = new DetailedReleaseSummary[1];
+        new VersionReportReader(gson).readReportContent(new StringReader(REPORT), new VersionReportListener() {
+            @Override
+            public void detailedReleaseSummaryReceived(final DetailedReleaseSummary detailedReleaseSummary) {
+                summary[0] = detailedReleaseSummary;
+            }
+
+            @Override
+            public void bomEntryReceived(final AggregateBomViewEntry bomEntry) {
+                bomEntries.add(bomEntry);
+            }
+        });
+        final HubRiskReportData whole = new HubRiskReportData();
+        whole.setReport(new VersionReport(summary[0], bomEntries));
+
+        Assert.assertNull(streamed.getReport());
+        Assert.assertEquals(3, streamed.getTotalBomEntries());
+        Assert.assertEquals(whole.getTotalBomEntries(), streamed.getTotalBomEntries());
+        Assert.assertEquals(1, streamed.getVulnerabilityRiskHighCount());
+        Assert.assertEquals(whole.getVulnerabilityRiskHighCount(), streamed.getVulnerabilityRiskHighCount());
+        Assert.assertEquals(1, streamed.getVulnerabilityRiskLowCount());
+        Assert.assertEquals(whole.getVulnerabilityRiskNoneCount(), streamed.getVulnerabilityRiskNoneCount());
+        Assert.assertEquals(1, streamed.getLicenseRiskMediumCount());
+        Assert.assertEquals(2, streamed.getLicenseRiskNoneCount());
+        Assert.assertEquals("1.0", streamed.getDetailedReleaseSummary().getVersion());
+    }
+
+    @Test
+    public void testMissingContentIsReported() throws Exception {
+        Assert.assertFalse(new VersionReportReader(new Gson()).readReportContent(new StringReader("{\"reportContent\":[]}"), new HubRiskReportData()));
+    }
+
+}
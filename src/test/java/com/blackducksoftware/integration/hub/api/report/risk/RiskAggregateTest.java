@@ -0,0 +1,99 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.report.risk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.report.AggregateBomViewEntry;
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.google.gson.Gson;
+
+public class RiskAggregateTest {
+    @Test
+    public void testMergedSplitsMatchSequential() {
+        final List<AggregateBomViewEntry> bomEntries = new ArrayList<>();
+        for (int index = 0; index < 10000; index++) {
+            bomEntries.add(createBomEntry(index % 4, index % 3, index % 5));
+        }
+
+        final RiskAggregate sequential = new RiskAggregate();
+        for (final AggregateBomViewEntry bomEntry : bomEntries) {
+            sequential.add(bomEntry);
+        }
+        final List<RiskAggregate> splits = new ArrayList<>();
+        for (int offset = 0; offset < bomEntries.size(); offset += 3000) {
+            final RiskAggregate split = new RiskAggregate();
+            for (final AggregateBomViewEntry bomEntry : bomEntries.subList(offset, Math.min(offset + 3000, bomEntries.size()))) {
+                split.add(bomEntry);
+            }
+            splits.add(split);
+        }
+        final RiskAggregate merged = RiskAggregate.combine(splits);
+
+        Assert.assertEquals(10000, merged.getTotalComponents());
+        Assert.assertEquals(sequential.toString(), merged.toString());
+        Assert.assertEquals(2500, merged.getVulnerabilityRiskHighCount());
+        Assert.assertEquals(2500, merged.getVulnerabilityRiskNoneCount());
+    }
+
+    @Test
+    public void testHighestRiskWinsAcrossSources() {
+        final VersionBomComponentView bomComponent = new Gson().fromJson("{\"securityRiskProfile\":{\"counts\":["
+                + "{\"countType\":\"LOW\",\"count\":4},{\"countType\":\"MEDIUM\",\"count\":1},{\"countType\":\"HIGH\",\"count\":0}]},"
+                + "\"licenseRiskProfile\":{\"counts\":[{\"countType\":\"OK\",\"count\":1}]}}", VersionBomComponentView.class);
+        final BomComponent component = new BomComponent();
+        component.setOperationalRiskLowCount(2);
+
+        final RiskAggregate version = new RiskAggregate().add(bomComponent).add(component);
+        Assert.assertEquals(2, version.getTotalComponents());
+        Assert.assertEquals(1, version.getVulnerabilityRiskMediumCount());
+        Assert.assertEquals(1, version.getVulnerabilityRiskNoneCount());
+        Assert.assertEquals(2, version.getLicenseRiskNoneCount());
+        Assert.assertEquals(1, version.getOperationalRiskLowCount());
+
+        final RiskAggregate otherVersion = new RiskAggregate().add(component).add(component);
+        final RiskAggregate combined = RiskAggregate.combine(Arrays.asList(version, otherVersion));
+        Assert.assertEquals(4, combined.getTotalComponents());
+        Assert.assertEquals(3, combined.getOperationalRiskLowCount());
+        Assert.assertEquals(2, version.getTotalComponents());
+    }
+
+    private AggregateBomViewEntry createBomEntry(final int vulnerability, final int license, final int operational) {
+        final RiskCategories categories = new RiskCategories(createRiskCounts(vulnerability), null, null, createRiskCounts(license),
+                createRiskCounts(operational));
+        return new AggregateBomViewEntry(null, null, null, null, null, null, null, null, null, null, null, null, new RiskProfile(1, categories), null);
+    }
+
+    private RiskCounts createRiskCounts(final int highestRisk) {
+        // 0 high, 1 medium, 2 low, anything else none
+        return new RiskCounts(highestRisk == 0 ? 1 : 0, highestRisk <= 1 ? 1 : 0, highestRisk <= 2 ? 1 : 0, 1, 0);
+    }
+
+}
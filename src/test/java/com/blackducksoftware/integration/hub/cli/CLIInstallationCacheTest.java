@@ -0,0 +1,161 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+public class CLIInstallationCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentInstallsOfTheSameArchiveInstallOnce() throws Exception {
+        final CLIInstallationCache cache = new CLIInstallationCache(new IntBufferedLogger(), temporaryFolder.newFolder());
+        final String key = CLIInstallationCache.createKey("http://hub/download/scan.cli.zip", "Mon, 01 Jan 2018 00:00:00 GMT");
+        final AtomicInteger installCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<File>> installations = new ArrayList<>();
+            for (int index = 0; index < 4; index++) {
+                installations.add(executorService.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        start.await();
+                        return cache.install(key, new CLIInstallationCache.Installer() {
+                            @Override
+                            public void install(final File stagingDirectory) throws IOException {
+                                installCount.incrementAndGet();
+                                FileUtils.writeStringToFile(new File(stagingDirectory, "scan.cli-1.0/bin/scan.cli.sh"), "#!/bin/sh", StandardCharsets.UTF_8);
+                            }
+                        });
+                    }
+                }));
+            }
+            start.countDown();
+            for (final Future<File> installation : installations) {
+                final File installed = installation.get();
+                Assert.assertEquals(cache.getInstallation(key), installed);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(1, installCount.get());
+        Assert.assertTrue(new File(cache.getInstallation(key), "scan.cli-1.0/bin/scan.cli.sh").isFile());
+    }
+
+    @Test
+    public void testFailedInstallLeavesNoInstallation() throws Exception {
+        final File cacheDirectory = temporaryFolder.newFolder();
+        final CLIInstallationCache cache = new CLIInstallationCache(new IntBufferedLogger(), cacheDirectory);
+        try {
+            cache.install("key", new CLIInstallationCache.Installer() {
+                @Override
+                public void install(final File stagingDirectory) throws IOException {
+                    FileUtils.writeStringToFile(new File(stagingDirectory, "partial"), "partial", StandardCharsets.UTF_8);
+                    throw new IOException("connection reset");
+                }
+            });
+            Assert.fail("The failed install should have been rethrown");
+        } catch (final IOException e) {
+            Assert.assertEquals("connection reset", e.getMessage());
+        }
+        Assert.assertNull(cache.getInstallation("key"));
+        Assert.assertArrayEquals(new String[] { "key.lock" }, cacheDirectory.list());
+    }
+
+    @Test
+    public void testWorkspaceLinkIsSwappedToTheNewInstallation() throws Exception {
+        final CLIInstallationCache cache = new CLIInstallationCache(new IntBufferedLogger(), temporaryFolder.newFolder());
+        final File firstInstallation = cache.install("first", createInstaller("1.0"));
+        final File secondInstallation = cache.install("second", createInstaller("2.0"));
+        final File workspaceInstallDirectory = new File(temporaryFolder.newFolder(), CLILocation.CLI_UNZIP_DIR);
+        FileUtils.writeStringToFile(new File(workspaceInstallDirectory, "scan.cli-0.9/version"), "0.9", StandardCharsets.UTF_8);
+
+        cache.link(firstInstallation, workspaceInstallDirectory);
+        Assert.assertEquals("1.0", FileUtils.readFileToString(new File(workspaceInstallDirectory, "version"), StandardCharsets.UTF_8));
+        cache.link(secondInstallation, workspaceInstallDirectory);
+        Assert.assertEquals("2.0", FileUtils.readFileToString(new File(workspaceInstallDirectory, "version"), StandardCharsets.UTF_8));
+
+        Assert.assertTrue(Files.isSymbolicLink(workspaceInstallDirectory.toPath()));
+        Assert.assertEquals(1, workspaceInstallDirectory.getParentFile().list().length);
+        Assert.assertEquals("1.0", FileUtils.readFileToString(new File(firstInstallation, "version"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPruneDeletesTheInstallationsNoWorkspaceLinksTo() throws Exception {
+        final File cacheDirectory = temporaryFolder.newFolder();
+        final CLIInstallationCache cache = new CLIInstallationCache(new IntBufferedLogger(), cacheDirectory);
+        final String firstKey = CLIInstallationCache.createKey("http://hub/download/scan.cli.zip", "1.0");
+        final String secondKey = CLIInstallationCache.createKey("http://hub/download/scan.cli.zip", "2.0");
+        final String recentKey = CLIInstallationCache.createKey("http://hub/download/scan.cli.zip", "3.0");
+        final File firstInstallation = cache.install(firstKey, createInstaller("1.0"));
+        final File secondInstallation = cache.install(secondKey, createInstaller("2.0"));
+        final File recentInstallation = cache.install(recentKey, createInstaller("3.0"));
+        FileUtils.writeStringToFile(new File(cacheDirectory, firstKey + "-scan.cli.zip.part"), "partial", StandardCharsets.UTF_8);
+        final File workspaceInstallDirectory = new File(temporaryFolder.newFolder(), CLILocation.CLI_UNZIP_DIR);
+        cache.link(firstInstallation, workspaceInstallDirectory);
+        cache.link(secondInstallation, workspaceInstallDirectory);
+        final long pastGracePeriod = System.currentTimeMillis() - 2 * CLIInstallationCache.PRUNE_GRACE_PERIOD;
+        firstInstallation.setLastModified(pastGracePeriod);
+        secondInstallation.setLastModified(pastGracePeriod);
+
+        cache.prune();
+
+        Assert.assertFalse(firstInstallation.exists());
+        Assert.assertFalse(new File(cacheDirectory, firstKey + "-scan.cli.zip.part").exists());
+        Assert.assertTrue(secondInstallation.isDirectory());
+        Assert.assertTrue(recentInstallation.isDirectory());
+        Assert.assertEquals("2.0", FileUtils.readFileToString(new File(workspaceInstallDirectory, "version"), StandardCharsets.UTF_8));
+    }
+
+    private CLIInstallationCache.Installer createInstaller(final String version) {
+        return new CLIInstallationCache.Installer() {
+            @Override
+            public void install(final File stagingDirectory) throws IOException {
+                FileUtils.writeStringToFile(new File(stagingDirectory, "version"), version, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+}
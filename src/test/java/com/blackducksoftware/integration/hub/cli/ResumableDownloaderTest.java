@@ -0,0 +1,200 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnection;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ResumableDownloaderTest {
+    private static final String LAST_MODIFIED = "Mon, 01 Jan 2018 00:00:00 GMT";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final byte[] content = createContent(2 * 1024 * 1024 + 13);
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger truncatedResponses = new AtomicInteger();
+
+    private HttpServer server;
+
+    private URL archiveUrl;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/download/scan.cli.zip", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+                exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                    return;
+                }
+                int start = 0;
+                int end = content.length - 1;
+                int code = 200;
+                final String range = exchange.getRequestHeaders().getFirst("Range");
+                final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                if (range != null && (ifRange == null || LAST_MODIFIED.equals(ifRange))) {
+                    ranges.add(range);
+                    final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                    start = Integer.parseInt(bounds[0]);
+                    if (!bounds[1].isEmpty()) {
+                        end = Integer.parseInt(bounds[1]);
+                    }
+                    code = 206;
+                    exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+                }
+                final int length = end - start + 1;
+                exchange.sendResponseHeaders(code, length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    if (truncatedResponses.getAndDecrement() > 0) {
+                        // the connection drops part way through the body
+                        body.write(content, start, length / 3);
+                        body.flush();
+                        throw new IOException("connection dropped");
+                    }
+                    body.write(content, start, length);
+                }
+            }
+        });
+        server.start();
+        archiveUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/download/scan.cli.zip");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testInterruptedDownloadResumesWhereItStopped() throws Exception {
+        truncatedResponses.set(1);
+        final File target = new File(temporaryFolder.newFolder(), "scan.cli.zip");
+
+        createDownloader(1).download(archiveUrl, target, LAST_MODIFIED, null);
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        Assert.assertEquals(2, ranges.size());
+        Assert.assertEquals("bytes=0-" + (content.length - 1), ranges.get(0));
+        Assert.assertNotEquals(ranges.get(0), ranges.get(1));
+        Assert.assertArrayEquals(new String[] { "scan.cli.zip" }, target.getParentFile().list());
+    }
+
+    @Test
+    public void testRelativeTargetResumesItsOwnPartialFile() throws Exception {
+        truncatedResponses.set(1);
+        final File directory = temporaryFolder.newFolder();
+        final File target = Paths.get("").toAbsolutePath().relativize(new File(directory, "scan.cli.zip").toPath()).toFile();
+
+        createDownloader(1).download(archiveUrl, target, LAST_MODIFIED, null);
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        Assert.assertEquals(2, ranges.size());
+        Assert.assertNotEquals(ranges.get(0), ranges.get(1));
+        Assert.assertArrayEquals(new String[] { "scan.cli.zip" }, directory.list());
+    }
+
+    @Test
+    public void testRetryWithoutValidatorResumesThePartialFile() throws Exception {
+        truncatedResponses.set(1);
+        final File target = new File(temporaryFolder.newFolder(), "scan.cli.zip");
+
+        createDownloader(1).download(archiveUrl, target, null, null);
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        Assert.assertEquals(2, ranges.size());
+        Assert.assertEquals("bytes=0-" + (content.length - 1), ranges.get(0));
+        Assert.assertNotEquals(ranges.get(0), ranges.get(1));
+    }
+
+    @Test
+    public void testRangesAreDownloadedConcurrentlyAndJoined() throws Exception {
+        final File target = new File(temporaryFolder.newFolder(), "scan.cli.zip");
+
+        createDownloader(4).download(archiveUrl, target, LAST_MODIFIED, null);
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        Assert.assertEquals(4, ranges.size());
+        Assert.assertArrayEquals(new String[] { "scan.cli.zip" }, target.getParentFile().list());
+    }
+
+    @Test
+    public void testDownloadWithTheWrongChecksumIsRejected() throws Exception {
+        final File target = new File(temporaryFolder.newFolder(), "scan.cli.zip");
+        final ResumableDownloader downloader = createDownloader(2);
+        downloader.setMaximumAttempts(1);
+        try {
+            downloader.download(archiveUrl, target, LAST_MODIFIED, "0000000000000000000000000000000000000000000000000000000000000000");
+            Assert.fail("The download should have failed its checksum");
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("SHA-256"));
+        }
+        Assert.assertFalse(target.exists());
+    }
+
+    private ResumableDownloader createDownloader(final int concurrentRanges) throws Exception {
+        final RestConnection restConnection = new UnauthenticatedRestConnection(new IntBufferedLogger(), archiveUrl, 30);
+        restConnection.connect();
+        final ResumableDownloader downloader = new ResumableDownloader(new IntBufferedLogger(), restConnection);
+        downloader.setConcurrentRanges(concurrentRanges);
+        return downloader;
+    }
+
+    private static byte[] createContent(final int length) {
+        final byte[] content = new byte[length];
+        for (int index = 0; index < length; index++) {
+            content[index] = (byte) (index * 31 + index / 7);
+        }
+        return content;
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.hub.model.enumeration.ScanSummaryStatusEnum;
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.Gson;
+
+public class ScanStatusDirectoryMonitorTest {
+    private static final String SCAN_URL = "http://a.hub.server/api/codelocations/1/scan-summaries/1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStatusFilesAreReportedWhileTheScanRuns() throws Exception {
+        final File statusDirectory = new File(temporaryFolder.getRoot(), "status");
+        final List<ScanSummaryView> reported = new CopyOnWriteArrayList<>();
+        final ScanStatusDirectoryMonitor monitor = new ScanStatusDirectoryMonitor(new IntBufferedLogger(), new Gson(), statusDirectory,
+                new ScanStatusListener() {
+                    @Override
+                    public void scanStatusChanged(final File statusFile, final ScanSummaryView scanSummary) {
+                        reported.add(scanSummary);
+                    }
+                });
+        monitor.start();
+        try {
+            Assert.assertTrue(statusDirectory.mkdir());
+            final File statusFile = new File(statusDirectory, "scan1.json");
+            // half written content is ignored until the rest arrives
+            FileUtils.writeStringToFile(statusFile, "{\"status\":\"BUILDING_BOM\",\"_meta\":{\"href\":", "UTF8");
+            FileUtils.writeStringToFile(statusFile, "{\"status\":\"BUILDING_BOM\",\"_meta\":{\"href\":\"" + SCAN_URL + "\"}}", "UTF8");
+
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (reported.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, reported.size());
+        } finally {
+            monitor.stop();
+        }
+
+        final ScanSummaryView scanSummary = reported.get(0);
+        Assert.assertEquals(ScanSummaryStatusEnum.BUILDING_BOM, scanSummary.getStatus());
+        Assert.assertTrue(scanSummary.getJson().contains(SCAN_URL));
+        Assert.assertEquals(1, monitor.getScanSummaryItems().size());
+    }
+
+    @Test
+    public void testStopReadsFilesTheWatchMissed() throws Exception {
+        final File statusDirectory = temporaryFolder.newFolder("status");
+        FileUtils.writeStringToFile(new File(statusDirectory, "scan1.json"), "{\"status\":\"COMPLETE\"}", "UTF8");
+        final ScanStatusDirectoryMonitor monitor = new ScanStatusDirectoryMonitor(new IntBufferedLogger(), new Gson(), statusDirectory,
+                new ScanStatusListener() {
+                    @Override
+                    public void scanStatusChanged(final File statusFile, final ScanSummaryView scanSummary) {
+                    }
+                });
+        monitor.start();
+        monitor.stop();
+
+        Assert.assertEquals(1, monitor.getScanSummaryItems().size());
+        Assert.assertEquals(ScanSummaryStatusEnum.COMPLETE, monitor.getScanSummaryItems().get(0).getStatus());
+    }
+
+}
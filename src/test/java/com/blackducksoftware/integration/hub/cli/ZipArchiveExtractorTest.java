@@ -0,0 +1,104 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.cli;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+public class ZipArchiveExtractorTest {
+    private static final long ENTRY_TIME = 1262304000000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStreamingAndParallelExtractionWriteTheSameFiles() throws Exception {
+        final File zipFile = temporaryFolder.newFile("scan.cli.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            zipOutputStream.putNextEntry(new ZipEntry("scan.cli-1.0/"));
+            addEntry(zipOutputStream, "scan.cli-1.0/bin/scan.cli.sh", "#!/bin/sh");
+            addEntry(zipOutputStream, "scan.cli-1.0/lib/cache/scan.cli.jar", createContent(3 * ZipArchiveExtractor.COPY_BUFFER_SIZE + 7));
+            addEntry(zipOutputStream, "scan.cli-1.0/jre/lib/security/cacerts", "certificates");
+        }
+
+        final File streamedDirectory = temporaryFolder.newFolder();
+        try (FileInputStream zipStream = new FileInputStream(zipFile)) {
+            new ZipArchiveExtractor(new IntBufferedLogger()).extract(zipStream, streamedDirectory);
+        }
+        final File parallelDirectory = temporaryFolder.newFolder();
+        new ZipArchiveExtractor(new IntBufferedLogger()).extract(zipFile, parallelDirectory, 4);
+
+        for (final File directory : new File[] { streamedDirectory, parallelDirectory }) {
+            final File script = new File(directory, "scan.cli-1.0/bin/scan.cli.sh");
+            Assert.assertEquals("#!/bin/sh", FileUtils.readFileToString(script, StandardCharsets.UTF_8));
+            Assert.assertTrue(script.canExecute());
+            Assert.assertEquals(ENTRY_TIME, script.lastModified());
+            final File jar = new File(directory, "scan.cli-1.0/lib/cache/scan.cli.jar");
+            Assert.assertEquals(createContent(3 * ZipArchiveExtractor.COPY_BUFFER_SIZE + 7), FileUtils.readFileToString(jar, StandardCharsets.UTF_8));
+            Assert.assertFalse(jar.canExecute());
+            Assert.assertEquals("certificates", FileUtils.readFileToString(new File(directory, "scan.cli-1.0/jre/lib/security/cacerts"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testEntriesOutsideTheDirectoryAreRejected() throws Exception {
+        final ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipBytes)) {
+            addEntry(zipOutputStream, "../escaped.txt", "outside");
+        }
+        new ZipArchiveExtractor(new IntBufferedLogger()).extract(new ByteArrayInputStream(zipBytes.toByteArray()), temporaryFolder.newFolder());
+    }
+
+    private void addEntry(final ZipOutputStream zipOutputStream, final String name, final String content) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        zipOutputStream.putNextEntry(entry);
+        zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        zipOutputStream.closeEntry();
+    }
+
+    private String createContent(final int length) {
+        final StringBuilder content = new StringBuilder(length);
+        for (int index = 0; index < length; index++) {
+            content.append((char) ('a' + index % 26));
+        }
+        return content.toString();
+    }
+
+}
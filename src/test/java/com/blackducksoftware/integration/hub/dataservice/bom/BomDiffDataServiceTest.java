@@ -0,0 +1,143 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.bom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.blackducksoftware.integration.hub.api.aggregate.bom.AggregateBomRequestService;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskCountView;
+import com.blackducksoftware.integration.hub.model.view.components.RiskProfileView;
+import com.blackducksoftware.integration.hub.service.PageListener;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.Gson;
+
+public class BomDiffDataServiceTest {
+    @Test
+    public void testAddedRemovedUpgradedAndRiskChangedComponents() throws Exception {
+        final ProjectVersionView fromVersion = new ProjectVersionView();
+        final ProjectVersionView toVersion = new ProjectVersionView();
+        final AggregateBomRequestService bomRequestService = Mockito.mock(AggregateBomRequestService.class);
+        answerWithPages(bomRequestService, fromVersion, Arrays.asList(createBomComponent("a", "1", 0), createBomComponent("b", "1", 0)),
+                Arrays.asList(createBomComponent("c", "1", 0), createBomComponent("d", "1", 0)));
+        answerWithPages(bomRequestService, toVersion, Arrays.asList(createBomComponent("d", "1", 2), createBomComponent("c", "2", 0)),
+                Arrays.asList(createBomComponent("a", "1", 0), createBomComponent("e", "1", 0)));
+
+        final BomDiff bomDiff = new BomDiffDataService(new IntBufferedLogger(), bomRequestService).getBomDiff(fromVersion, toVersion);
+
+        Assert.assertEquals(1, bomDiff.getUnchangedComponentCount());
+        Assert.assertEquals(1, bomDiff.getRiskChangedComponents().size());
+        Assert.assertEquals("d", bomDiff.getRiskChangedComponents().get(0).getToBomComponent().getComponentName());
+        Assert.assertEquals(1, bomDiff.getUpgradedComponents().size());
+        final BomComponentChange upgrade = bomDiff.getUpgradedComponents().get(0);
+        Assert.assertEquals("1", upgrade.getFromBomComponent().getComponentVersionName());
+        Assert.assertEquals("2", upgrade.getToBomComponent().getComponentVersionName());
+        Assert.assertFalse(upgrade.isRiskChanged());
+        Assert.assertEquals(1, bomDiff.getAddedComponents().size());
+        Assert.assertEquals("e", bomDiff.getAddedComponents().get(0).getComponentName());
+        Assert.assertEquals(1, bomDiff.getRemovedComponents().size());
+        Assert.assertEquals("b", bomDiff.getRemovedComponents().get(0).getComponentName());
+        Assert.assertTrue(bomDiff.hasChanges());
+    }
+
+    @Test
+    public void testSmallerBomIsPagedFirst() throws Exception {
+        final ProjectVersionView fromVersion = new ProjectVersionView();
+        fromVersion.setVersionName("1.0");
+        final ProjectVersionView toVersion = new ProjectVersionView();
+        toVersion.setVersionName("2.0");
+        final AggregateBomRequestService bomRequestService = Mockito.mock(AggregateBomRequestService.class);
+        answerWithPages(bomRequestService, fromVersion, Arrays.asList(createBomComponent("a", "1", 0), createBomComponent("b", "1", 0)),
+                Arrays.asList(createBomComponent("c", "1", 0)));
+        answerWithPages(bomRequestService, toVersion, Arrays.asList(createBomComponent("a", "1", 0)));
+
+        final BomDiff bomDiff = new BomDiffDataService(new IntBufferedLogger(), bomRequestService).getBomDiff(fromVersion, toVersion);
+
+        final InOrder inOrder = Mockito.inOrder(bomRequestService);
+        inOrder.verify(bomRequestService).getBomEntries(Matchers.same(toVersion), Matchers.<PageListener<VersionBomComponentView>> any());
+        inOrder.verify(bomRequestService).getBomEntries(Matchers.same(fromVersion), Matchers.<PageListener<VersionBomComponentView>> any());
+        Assert.assertEquals(1, bomDiff.getUnchangedComponentCount());
+        Assert.assertEquals(2, bomDiff.getRemovedComponents().size());
+        Assert.assertTrue(bomDiff.getAddedComponents().isEmpty());
+    }
+
+    @Test(expected = HubIntegrationException.class)
+    public void testFailureReadingTheFirstBomFailsTheDiff() throws Exception {
+        final ProjectVersionView fromVersion = new ProjectVersionView();
+        final ProjectVersionView toVersion = new ProjectVersionView();
+        final AggregateBomRequestService bomRequestService = Mockito.mock(AggregateBomRequestService.class);
+        Mockito.doThrow(new HubIntegrationException("unavailable")).when(bomRequestService).getBomEntries(Matchers.same(fromVersion),
+                Matchers.<PageListener<VersionBomComponentView>> any());
+        answerWithPages(bomRequestService, toVersion, Arrays.asList(createBomComponent("a", "1", 0)));
+
+        new BomDiffDataService(new IntBufferedLogger(), bomRequestService).getBomDiff(fromVersion, toVersion);
+    }
+
+    @SafeVarargs
+    private final void answerWithPages(final AggregateBomRequestService bomRequestService, final ProjectVersionView version,
+            final List<VersionBomComponentView>... pages) throws Exception {
+        int bomEntryCount = 0;
+        for (final List<VersionBomComponentView> page : pages) {
+            bomEntryCount += page.size();
+        }
+        Mockito.when(bomRequestService.getBomEntryCount(version)).thenReturn(bomEntryCount);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final PageListener<VersionBomComponentView> listener = (PageListener<VersionBomComponentView>) invocation.getArguments()[1];
+                for (final List<VersionBomComponentView> page : pages) {
+                    listener.itemsReceived(new ArrayList<>(page));
+                }
+                return null;
+            }
+        }).when(bomRequestService).getBomEntries(Matchers.same(version), Matchers.<PageListener<VersionBomComponentView>> any());
+    }
+
+    private VersionBomComponentView createBomComponent(final String name, final String versionName, final int highVulnerabilities) {
+        final VersionBomComponentView bomComponent = new VersionBomComponentView();
+        bomComponent.setComponentName(name);
+        bomComponent.setComponent("http://hub/api/components/" + name);
+        bomComponent.setComponentVersionName(versionName);
+        bomComponent.setComponentVersion("http://hub/api/components/" + name + "/versions/" + versionName);
+        final RiskCountView highCount = new Gson().fromJson("{\"countType\":\"HIGH\",\"count\":" + highVulnerabilities + "}", RiskCountView.class);
+        final RiskProfileView securityRiskProfile = new RiskProfileView();
+        securityRiskProfile.setCounts(Arrays.asList(highCount));
+        bomComponent.setSecurityRiskProfile(securityRiskProfile);
+        return bomComponent;
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.vulnerability.VulnerabilityRequestService;
+import com.blackducksoftware.integration.hub.dataservice.model.ProjectVersionModel;
+import com.blackducksoftware.integration.hub.dataservice.notification.model.NotificationContentItem;
+import com.blackducksoftware.integration.hub.dataservice.notification.model.VulnerabilityContentItem;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.view.ComponentVersionView;
+import com.blackducksoftware.integration.hub.model.view.VulnerabilityView;
+import com.blackducksoftware.integration.hub.model.view.components.VulnerabilitySourceQualifiedId;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class VulnerabilityContentItemEnricherTest {
+    private static final String VULNERABILITIES_URL = "http://a.hub.server/components/component/version/vulnerabilities";
+
+    @Test
+    public void testEnrich() throws Exception {
+        final VulnerabilityRequestService vulnerabilityRequestService = Mockito.mock(VulnerabilityRequestService.class);
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(VULNERABILITIES_URL))
+                .thenReturn(Arrays.asList(createVulnerability("CVE-1", "HIGH"), createVulnerability("CVE-2", "LOW"), createVulnerability("CVE-3", "LOW")));
+        final MetaService metaService = new MetaService(new IntBufferedLogger(), new JsonParser());
+
+        final ComponentVersionView componentVersion = new ComponentVersionView();
+        componentVersion.setJson("{ \"_meta\": { \"href\": \"http://a.hub.server/components/component/version\","
+                + "\"links\": [ { \"rel\": \"vulnerabilities\", \"href\": \"" + VULNERABILITIES_URL + "\" } ] } }");
+
+        final List<NotificationContentItem> contentItems = new ArrayList<>();
+        final VulnerabilityContentItem first = createContentItem(componentVersion, "Project1", Arrays.asList(createId("CVE-1")),
+                Arrays.asList(createId("CVE-4")));
+        final VulnerabilityContentItem second = createContentItem(componentVersion, "Project2", Arrays.asList(createId("CVE-1"), createId("CVE-2")),
+                Collections.<VulnerabilitySourceQualifiedId> emptyList());
+        contentItems.add(first);
+        contentItems.add(second);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final VulnerabilityContentItemEnricher enricher = new VulnerabilityContentItemEnricher(new IntBufferedLogger(), vulnerabilityRequestService,
+                    metaService, executorService);
+            assertEquals(2, enricher.enrich(contentItems));
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Mockito.verify(vulnerabilityRequestService, Mockito.times(1)).getComponentVersionVulnerabilities(VULNERABILITIES_URL);
+        assertEquals(1, first.getVulnerabilities().size());
+        assertEquals("HIGH", first.getVulnerability(createId("CVE-1")).getSeverity());
+        assertNull(first.getVulnerability(createId("CVE-4")));
+        assertEquals(2, second.getVulnerabilities().size());
+        assertEquals("LOW", second.getVulnerability(createId("CVE-2")).getSeverity());
+    }
+
+    @Test
+    public void testLaterBatchesUseTheCachedVulnerabilities() throws Exception {
+        final VulnerabilityRequestService vulnerabilityRequestService = Mockito.mock(VulnerabilityRequestService.class);
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(VULNERABILITIES_URL))
+                .thenReturn(Arrays.asList(createVulnerability("CVE-1", "HIGH")));
+        final VulnerabilityContentItemEnricher enricher = new VulnerabilityContentItemEnricher(new IntBufferedLogger(), vulnerabilityRequestService,
+                new MetaService(new IntBufferedLogger(), new JsonParser()), null);
+        final ComponentVersionView componentVersion = createComponentVersion(VULNERABILITIES_URL);
+
+        for (int batch = 0; batch < 3; batch++) {
+            final VulnerabilityContentItem contentItem = createContentItem(componentVersion, "Project" + batch, Arrays.asList(createId("CVE-1")),
+                    Collections.<VulnerabilitySourceQualifiedId> emptyList());
+            assertEquals(1, enricher.enrich(Collections.<NotificationContentItem> singletonList(contentItem)));
+            assertEquals("HIGH", contentItem.getVulnerability(createId("CVE-1")).getSeverity());
+        }
+        Mockito.verify(vulnerabilityRequestService, Mockito.times(1)).getComponentVersionVulnerabilities(VULNERABILITIES_URL);
+    }
+
+    @Test
+    public void testCoveredLinkIsRequestedWhenTheCoveringLinkFails() throws Exception {
+        final String otherVulnerabilitiesUrl = "http://a.hub.server/components/component/other-version/vulnerabilities";
+        final VulnerabilityRequestService vulnerabilityRequestService = Mockito.mock(VulnerabilityRequestService.class);
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(VULNERABILITIES_URL))
+                .thenThrow(new HubIntegrationException("Service Unavailable"));
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(otherVulnerabilitiesUrl))
+                .thenReturn(Arrays.asList(createVulnerability("CVE-1", "HIGH")));
+        final VulnerabilityContentItemEnricher enricher = new VulnerabilityContentItemEnricher(new IntBufferedLogger(), vulnerabilityRequestService,
+                new MetaService(new IntBufferedLogger(), new JsonParser()), null);
+
+        final VulnerabilityContentItem covering = createContentItem(createComponentVersion(VULNERABILITIES_URL), "Project1",
+                Arrays.asList(createId("CVE-1"), createId("CVE-2")), Collections.<VulnerabilitySourceQualifiedId> emptyList());
+        final VulnerabilityContentItem covered = createContentItem(createComponentVersion(otherVulnerabilitiesUrl), "Project2",
+                Arrays.asList(createId("CVE-1")), Collections.<VulnerabilitySourceQualifiedId> emptyList());
+        assertEquals(1, enricher.enrich(Arrays.<NotificationContentItem> asList(covering, covered)));
+
+        assertEquals("HIGH", covered.getVulnerability(createId("CVE-1")).getSeverity());
+        assertEquals("HIGH", covering.getVulnerability(createId("CVE-1")).getSeverity());
+    }
+
+    @Test
+    public void testCoveredLinkIsRequestedForTheVulnerabilitiesTheCoveringLinkNoLongerLists() throws Exception {
+        final String otherVulnerabilitiesUrl = "http://a.hub.server/components/component/other-version/vulnerabilities";
+        final VulnerabilityRequestService vulnerabilityRequestService = Mockito.mock(VulnerabilityRequestService.class);
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(VULNERABILITIES_URL))
+                .thenReturn(Arrays.asList(createVulnerability("CVE-2", "LOW")));
+        Mockito.when(vulnerabilityRequestService.getComponentVersionVulnerabilities(otherVulnerabilitiesUrl))
+                .thenReturn(Arrays.asList(createVulnerability("CVE-1", "HIGH")));
+        final VulnerabilityContentItemEnricher enricher = new VulnerabilityContentItemEnricher(new IntBufferedLogger(), vulnerabilityRequestService,
+                new MetaService(new IntBufferedLogger(), new JsonParser()), null);
+
+        final VulnerabilityContentItem covering = createContentItem(createComponentVersion(VULNERABILITIES_URL), "Project1",
+                Arrays.asList(createId("CVE-1"), createId("CVE-2")), Collections.<VulnerabilitySourceQualifiedId> emptyList());
+        final VulnerabilityContentItem covered = createContentItem(createComponentVersion(otherVulnerabilitiesUrl), "Project2",
+                Arrays.asList(createId("CVE-1")), Collections.<VulnerabilitySourceQualifiedId> emptyList());
+        assertEquals(2, enricher.enrich(Arrays.<NotificationContentItem> asList(covering, covered)));
+
+        assertEquals("HIGH", covered.getVulnerability(createId("CVE-1")).getSeverity());
+        assertEquals("LOW", covering.getVulnerability(createId("CVE-2")).getSeverity());
+    }
+
+    private ComponentVersionView createComponentVersion(final String vulnerabilitiesUrl) {
+        final ComponentVersionView componentVersion = new ComponentVersionView();
+        componentVersion.setJson("{ \"_meta\": { \"href\": \"" + vulnerabilitiesUrl.replace("/vulnerabilities", "") + "\","
+                + "\"links\": [ { \"rel\": \"vulnerabilities\", \"href\": \"" + vulnerabilitiesUrl + "\" } ] } }");
+        return componentVersion;
+    }
+
+    private VulnerabilityContentItem createContentItem(final ComponentVersionView componentVersion, final String projectName,
+            final List<VulnerabilitySourceQualifiedId> added, final List<VulnerabilitySourceQualifiedId> deleted) throws Exception {
+        final ProjectVersionModel projectVersion = new ProjectVersionModel();
+        projectVersion.setProjectName(projectName);
+        projectVersion.setProjectVersionName("1.0");
+        return new VulnerabilityContentItem(new Date(), projectVersion, "Component", componentVersion, "http://a.hub.server/components/component/version",
+                added, Collections.<VulnerabilitySourceQualifiedId> emptyList(), deleted, null);
+    }
+
+    private VulnerabilitySourceQualifiedId createId(final String vulnerabilityId) {
+        final VulnerabilitySourceQualifiedId id = new VulnerabilitySourceQualifiedId();
+        id.setSource("NVD");
+        id.setVulnerabilityId(vulnerabilityId);
+        return id;
+    }
+
+    private VulnerabilityView createVulnerability(final String name, final String severity) {
+        final VulnerabilityView vulnerability = new VulnerabilityView();
+        vulnerability.setVulnerabilityName(name);
+        vulnerability.setSeverity(severity);
+        return vulnerability;
+    }
+
+}
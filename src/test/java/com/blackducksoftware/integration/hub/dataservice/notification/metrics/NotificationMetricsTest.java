@@ -0,0 +1,82 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.notification.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.dataservice.notification.transformer.VulnerabilityTransformer;
+import com.blackducksoftware.integration.hub.model.view.RuleViolationNotificationView;
+import com.blackducksoftware.integration.hub.model.view.VulnerabilityNotificationView;
+
+public class NotificationMetricsTest {
+
+    @Test
+    public void testSnapshot() {
+        final NotificationMetrics metrics = new NotificationMetrics();
+        metrics.notificationPageFetched(1000, 100, 4096);
+        metrics.notificationPageFetched(3000, 50, 2048);
+        metrics.itemDequeued(VulnerabilityNotificationView.class, 500);
+        metrics.itemTransformed(VulnerabilityNotificationView.class, 2000, 3);
+        metrics.itemTransformed(VulnerabilityNotificationView.class, 4000, 2);
+        metrics.itemTransformFailed(RuleViolationNotificationView.class, 100, new IOException("Forbidden"));
+        metrics.hubRequestMade(VulnerabilityTransformer.class);
+        metrics.hubRequestMade(VulnerabilityTransformer.class);
+        metrics.stageCompleted(NotificationMetricsListener.STAGE_FETCH, 4000, 150);
+
+        final NotificationMetricsSnapshot snapshot = metrics.getSnapshot();
+        assertEquals(2, snapshot.getPagesFetched());
+        assertEquals(150, snapshot.getNotificationsFetched());
+        assertEquals(6144, snapshot.getBytesDecoded());
+        assertEquals(1, snapshot.getQueueWait().getCount());
+        assertEquals(2, snapshot.getTransformLatencies().get("VulnerabilityNotificationView").getCount());
+        assertEquals(3000, snapshot.getTransformLatencies().get("VulnerabilityNotificationView").getMeanNanos());
+        assertEquals(Long.valueOf(5), snapshot.getContentItemCounts().get("VulnerabilityNotificationView"));
+        assertEquals(Long.valueOf(1), snapshot.getTransformErrorCounts().get("RuleViolationNotificationView"));
+        assertEquals(1, snapshot.getTotalTransformErrors());
+        assertEquals(Long.valueOf(2), snapshot.getHubRequestCounts().get("VulnerabilityTransformer"));
+        assertEquals(Long.valueOf(150), snapshot.getStageItemCounts().get(NotificationMetricsListener.STAGE_FETCH));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1000000, snapshot.getMaxNanos());
+        assertTrue(snapshot.getP50Nanos() >= 1000 && snapshot.getP50Nanos() < 2048);
+        assertTrue(snapshot.getP99Nanos() < 2048);
+        assertEquals(0, new LatencyHistogram().getSnapshot().getP99Nanos());
+    }
+
+}
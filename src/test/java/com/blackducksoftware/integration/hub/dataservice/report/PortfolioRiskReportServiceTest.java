@@ -0,0 +1,212 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.project.ProjectRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.report.risk.RiskAggregate;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.blackducksoftware.integration.hub.service.PageListener;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+public class PortfolioRiskReportServiceTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRerunReportsOnlyTheVersionsThatFailed() throws Exception {
+        final ProjectView project = new ProjectView();
+        project.setName("project");
+        final ProjectVersionView first = createVersion("1.0");
+        final ProjectVersionView second = createVersion("2.0");
+        final ProjectVersionView third = createVersion("3.0");
+
+        final ProjectRequestService projectRequestService = Mockito.mock(ProjectRequestService.class);
+        listProjects(projectRequestService, project);
+        final ProjectVersionRequestService projectVersionRequestService = Mockito.mock(ProjectVersionRequestService.class);
+        Mockito.when(projectVersionRequestService.getAllProjectVersions(project)).thenReturn(Arrays.asList(first, second, third));
+        final MetaService metaService = Mockito.mock(MetaService.class);
+        Mockito.when(metaService.getHref(first)).thenReturn("http://hub/versions/1");
+        Mockito.when(metaService.getHref(second)).thenReturn("http://hub/versions/2");
+        Mockito.when(metaService.getHref(third)).thenReturn("http://hub/versions/3");
+
+        final RiskReportDataService riskReportDataService = Mockito.mock(RiskReportDataService.class);
+        Mockito.when(riskReportDataService.getRiskAggregate(project, first)).thenReturn(createRiskAggregate(createComponent(1, 0, 0), createComponent(0, 0, 0)));
+        Mockito.when(riskReportDataService.getRiskAggregate(project, second)).thenThrow(new HubIntegrationException("timed out"))
+                .thenReturn(createRiskAggregate(createComponent(0, 2, 0)));
+        Mockito.when(riskReportDataService.getRiskAggregate(project, third)).thenReturn(createRiskAggregate(createComponent(0, 0, 3)));
+
+        final File outputDirectory = temporaryFolder.newFolder();
+        final PortfolioRiskReportService portfolioRiskReportService = new PortfolioRiskReportService(new IntBufferedLogger(), projectRequestService,
+                projectVersionRequestService, riskReportDataService, metaService, 2);
+        try {
+            portfolioRiskReportService.createPortfolioReport(outputDirectory);
+            Assert.fail("The failed version should have failed the report");
+        } catch (final HubIntegrationException e) {
+            Assert.assertTrue(e.getMessage().startsWith("1 versions"));
+        }
+        final List<String> summary = FileUtils.readLines(new File(outputDirectory, PortfolioRiskReportService.SUMMARY_FILE_NAME), StandardCharsets.UTF_8);
+        Assert.assertTrue(summary.get(1).startsWith("2\t1\t3\t"));
+
+        final RiskAggregate portfolioRisk = portfolioRiskReportService.createPortfolioReport(outputDirectory);
+        Mockito.verify(riskReportDataService, Mockito.times(1)).getRiskAggregate(project, first);
+        Mockito.verify(riskReportDataService, Mockito.times(2)).getRiskAggregate(project, second);
+        Mockito.verify(riskReportDataService, Mockito.times(1)).getRiskAggregate(project, third);
+
+        Assert.assertEquals(4, portfolioRisk.getTotalComponents());
+        Assert.assertEquals(1, portfolioRisk.getVulnerabilityRiskHighCount());
+        Assert.assertEquals(1, portfolioRisk.getVulnerabilityRiskMediumCount());
+        Assert.assertEquals(1, portfolioRisk.getVulnerabilityRiskLowCount());
+        Assert.assertEquals(1, portfolioRisk.getVulnerabilityRiskNoneCount());
+        Assert.assertEquals(4, FileUtils.readLines(new File(outputDirectory, PortfolioRiskReportService.VERSIONS_FILE_NAME), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    public void testPartialRowFromAnInterruptedRunIsReportedAgain() throws Exception {
+        final ProjectView project = new ProjectView();
+        project.setName("project");
+        final ProjectVersionView version = createVersion("1.0");
+
+        final ProjectRequestService projectRequestService = Mockito.mock(ProjectRequestService.class);
+        listProjects(projectRequestService, project);
+        final ProjectVersionRequestService projectVersionRequestService = Mockito.mock(ProjectVersionRequestService.class);
+        Mockito.when(projectVersionRequestService.getAllProjectVersions(project)).thenReturn(Arrays.asList(version));
+        final MetaService metaService = Mockito.mock(MetaService.class);
+        Mockito.when(metaService.getHref(version)).thenReturn("http://hub/versions/1");
+        final RiskReportDataService riskReportDataService = Mockito.mock(RiskReportDataService.class);
+        Mockito.when(riskReportDataService.getRiskAggregate(project, version)).thenReturn(createRiskAggregate(createComponent(1, 0, 0)));
+
+        final File outputDirectory = temporaryFolder.newFolder();
+        FileUtils.write(new File(outputDirectory, PortfolioRiskReportService.VERSIONS_FILE_NAME), "header\nhttp://hub/versions/1\tproject\t1.0\t1\t1",
+                StandardCharsets.UTF_8);
+
+        final RiskAggregate portfolioRisk = new PortfolioRiskReportService(new IntBufferedLogger(), projectRequestService, projectVersionRequestService,
+                riskReportDataService, metaService, 1).createPortfolioReport(outputDirectory);
+        Mockito.verify(riskReportDataService).getRiskAggregate(project, version);
+        Assert.assertEquals(1, portfolioRisk.getTotalComponents());
+        Assert.assertEquals(1, portfolioRisk.getVulnerabilityRiskHighCount());
+    }
+
+    @Test
+    public void testRunningVersionIsCheckpointedWhenTheListingFails() throws Exception {
+        final ProjectView project = new ProjectView();
+        project.setName("project");
+        final ProjectView brokenProject = new ProjectView();
+        final ProjectVersionView version = createVersion("1.0");
+
+        final ProjectRequestService projectRequestService = Mockito.mock(ProjectRequestService.class);
+        listProjects(projectRequestService, project, brokenProject);
+        final ProjectVersionRequestService projectVersionRequestService = Mockito.mock(ProjectVersionRequestService.class);
+        Mockito.when(projectVersionRequestService.getAllProjectVersions(project)).thenReturn(Arrays.asList(version));
+        final CountDownLatch versionStarted = new CountDownLatch(1);
+        Mockito.when(projectVersionRequestService.getAllProjectVersions(brokenProject)).thenAnswer(new Answer<List<ProjectVersionView>>() {
+            @Override
+            public List<ProjectVersionView> answer(final InvocationOnMock invocation) throws Throwable {
+                versionStarted.await();
+                throw new HubIntegrationException("unavailable");
+            }
+        });
+        final MetaService metaService = Mockito.mock(MetaService.class);
+        Mockito.when(metaService.getHref(version)).thenReturn("http://hub/versions/1");
+        final RiskReportDataService riskReportDataService = Mockito.mock(RiskReportDataService.class);
+        Mockito.when(riskReportDataService.getRiskAggregate(project, version)).thenAnswer(new Answer<RiskAggregate>() {
+            @Override
+            public RiskAggregate answer(final InvocationOnMock invocation) throws Throwable {
+                versionStarted.countDown();
+                // still running when the listing fails
+                Thread.sleep(200);
+                return createRiskAggregate(createComponent(1, 0, 0));
+            }
+        });
+
+        final File outputDirectory = temporaryFolder.newFolder();
+        try {
+            new PortfolioRiskReportService(new IntBufferedLogger(), projectRequestService, projectVersionRequestService, riskReportDataService,
+                    metaService, 1).createPortfolioReport(outputDirectory);
+            Assert.fail("The failed listing should have failed the report");
+        } catch (final HubIntegrationException e) {
+            Assert.assertEquals("unavailable", e.getMessage());
+        }
+        final List<String> rows = FileUtils.readLines(new File(outputDirectory, PortfolioRiskReportService.VERSIONS_FILE_NAME), StandardCharsets.UTF_8);
+        Assert.assertEquals(2, rows.size());
+        Assert.assertTrue(rows.get(1).startsWith("http://hub/versions/1\tproject\t1.0\t1\t1\t"));
+    }
+
+    private ProjectVersionView createVersion(final String versionName) {
+        final ProjectVersionView version = new ProjectVersionView();
+        version.setVersionName(versionName);
+        return version;
+    }
+
+    private void listProjects(final ProjectRequestService projectRequestService, final ProjectView... projects) throws Exception {
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final PageListener<ProjectView> listener = (PageListener<ProjectView>) invocation.getArguments()[0];
+                for (final ProjectView project : projects) {
+                    listener.itemsReceived(Arrays.asList(project));
+                }
+                return null;
+            }
+        }).when(projectRequestService).getAllProjects(Matchers.<PageListener<ProjectView>> any());
+    }
+
+    private RiskAggregate createRiskAggregate(final BomComponent... components) {
+        final RiskAggregate riskAggregate = new RiskAggregate();
+        for (final BomComponent component : components) {
+            riskAggregate.add(component);
+        }
+        return riskAggregate;
+    }
+
+    private BomComponent createComponent(final int high, final int medium, final int low) {
+        final BomComponent component = new BomComponent();
+        component.setSecurityRiskHighCount(high);
+        component.setSecurityRiskMediumCount(medium);
+        component.setSecurityRiskLowCount(low);
+        return component;
+    }
+
+}
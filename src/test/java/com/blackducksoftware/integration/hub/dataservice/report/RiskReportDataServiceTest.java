@@ -0,0 +1,226 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.HubSupportHelper;
+import com.blackducksoftware.integration.hub.api.aggregate.bom.AggregateBomRequestService;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.report.risk.RiskAggregate;
+import com.blackducksoftware.integration.hub.capability.HubCapabilitiesEnum;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.replay.RecordingDirectory;
+import com.blackducksoftware.integration.hub.replay.ReplayRestConnection;
+import com.blackducksoftware.integration.hub.report.api.ReportData;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import okhttp3.HttpUrl;
+
+public class RiskReportDataServiceTest {
+    private static final String HUB_URL = "http://replay.hub";
+
+    private static final String VERSION_URL = HUB_URL + "/api/projects/1/versions/1";
+
+    private static final int COMPONENT_COUNT = 250;
+
+    private static final int PAGE_SIZE = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPolicyStatusesAreFetchedOnlyWhenNotEmbedded() throws Exception {
+        final RecordingDirectory recordingDirectory = new RecordingDirectory(temporaryFolder.getRoot());
+        for (int offset = 0; offset < COMPONENT_COUNT; offset += PAGE_SIZE) {
+            final StringBuilder page = new StringBuilder("{\"totalCount\":" + COMPONENT_COUNT + ",\"items\":[");
+            for (int index = offset; index < Math.min(offset + PAGE_SIZE, COMPONENT_COUNT); index++) {
+                if (index > offset) {
+                    page.append(",");
+                }
+                page.append(createBomEntry(index));
+                if (index % 2 == 1) {
+                    record(recordingDirectory, VERSION_URL + "/components/c" + index + "/versions/v" + index + "/policy-status",
+                            "{\"approvalStatus\":\"IN_VIOLATION\"}");
+                }
+            }
+            page.append("]}");
+            record(recordingDirectory, VERSION_URL + "/components?limit=" + PAGE_SIZE + "&offset=" + offset, page.toString());
+        }
+
+        final IntBufferedLogger logger = new IntBufferedLogger();
+        final ReplayRestConnection restConnection = new ReplayRestConnection(logger, new URL(HUB_URL), recordingDirectory, 5, 0, 0);
+        final MetaService metaService = new MetaService(logger, new JsonParser());
+        final HubSupportHelper hubSupportHelper = Mockito.mock(HubSupportHelper.class);
+        Mockito.when(hubSupportHelper.hasCapability(HubCapabilitiesEnum.AGGREGATE_BOM_REST_SERVER)).thenReturn(true);
+        final RiskReportDataService riskReportDataService = new RiskReportDataService(logger, restConnection, null, null, null,
+                new AggregateBomRequestService(restConnection, metaService), metaService, hubSupportHelper);
+
+        final Gson gson = new Gson();
+        final ProjectView project = gson.fromJson("{\"name\":\"project\"}", ProjectView.class);
+        project.setJson("{\"_meta\":{\"href\":\"" + HUB_URL + "/api/projects/1\"}}");
+        final ProjectVersionView version = gson.fromJson("{\"versionName\":\"1.0\",\"phase\":\"DEVELOPMENT\",\"distribution\":\"INTERNAL\"}",
+                ProjectVersionView.class);
+        version.setJson("{\"_meta\":{\"href\":\"" + VERSION_URL + "\",\"links\":[{\"rel\":\"components\",\"href\":\"" + VERSION_URL + "/components\"}]}}");
+
+        final ReportData reportData = riskReportDataService.getRiskReportData(project, version);
+
+        Assert.assertEquals(COMPONENT_COUNT, reportData.getComponents().size());
+        for (int index = 0; index < COMPONENT_COUNT; index++) {
+            Assert.assertEquals("component" + index, reportData.getComponents().get(index).getComponentName());
+            Assert.assertEquals(index % 2 == 1 ? "IN_VIOLATION" : "NOT_IN_VIOLATION", reportData.getComponents().get(index).getPolicyStatus());
+        }
+        Assert.assertEquals(COMPONENT_COUNT / PAGE_SIZE + 1 + COMPONENT_COUNT / 2, restConnection.getRequestCount());
+        Assert.assertEquals(0, restConnection.getMissCount());
+    }
+
+    @Test
+    public void testIncrementalReportRequestsPolicyStatusesOnlyForChangedEntries() throws Exception {
+        final File stateDirectory = temporaryFolder.newFolder();
+        final RecordingDirectory firstRecordingDirectory = new RecordingDirectory(temporaryFolder.newFolder());
+        recordSinglePageBom(firstRecordingDirectory, createBomEntry(0), createBomEntry(1), createBomEntry(2), createBomEntry(3), createBomEntry(4),
+                createBomEntry(5));
+        final ReplayRestConnection firstRestConnection = createRestConnection(firstRecordingDirectory);
+        final ReportData firstReportData = createRiskReportDataService(firstRestConnection).getRiskReportData(createProject(), createVersion(), stateDirectory);
+        Assert.assertEquals(6, firstReportData.getComponents().size());
+        Assert.assertEquals(1 + 3, firstRestConnection.getRequestCount());
+
+        // component1 changed, component3 was removed and component7 was added
+        final RecordingDirectory secondRecordingDirectory = new RecordingDirectory(temporaryFolder.newFolder());
+        recordSinglePageBom(secondRecordingDirectory, createBomEntry(0), createBomEntry(1, "renamed"), createBomEntry(2), createBomEntry(4), createBomEntry(5),
+                createBomEntry(7));
+        final ReplayRestConnection secondRestConnection = createRestConnection(secondRecordingDirectory);
+        final ReportData secondReportData = createRiskReportDataService(secondRestConnection).getRiskReportData(createProject(), createVersion(), stateDirectory);
+
+        Assert.assertEquals(1 + 2, secondRestConnection.getRequestCount());
+        Assert.assertEquals(0, secondRestConnection.getMissCount());
+        final String[] expectedNames = { "component0", "renamed", "component2", "component4", "component5", "component7" };
+        Assert.assertEquals(expectedNames.length, secondReportData.getComponents().size());
+        for (int index = 0; index < expectedNames.length; index++) {
+            Assert.assertEquals(expectedNames[index], secondReportData.getComponents().get(index).getComponentName());
+        }
+        Assert.assertEquals("IN_VIOLATION", secondReportData.getComponents().get(4).getPolicyStatus());
+        Assert.assertEquals("IN_VIOLATION", secondReportData.getComponents().get(5).getPolicyStatus());
+    }
+
+    @Test
+    public void testRiskAggregateRequestsNoPolicyStatuses() throws Exception {
+        final RecordingDirectory recordingDirectory = new RecordingDirectory(temporaryFolder.getRoot());
+        recordSinglePageBom(recordingDirectory, createBomEntry(0), createBomEntry(1), createBomEntry(2));
+        final ReplayRestConnection restConnection = createRestConnection(recordingDirectory);
+
+        final RiskAggregate riskAggregate = createRiskReportDataService(restConnection).getRiskAggregate(createProject(), createVersion());
+
+        Assert.assertEquals(3, riskAggregate.getTotalComponents());
+        Assert.assertEquals(3, riskAggregate.getVulnerabilityRiskNoneCount());
+        Assert.assertEquals(1, restConnection.getRequestCount());
+    }
+
+    @Test
+    public void testFailedPolicyStatusFailsTheReport() throws Exception {
+        final RecordingDirectory recordingDirectory = new RecordingDirectory(temporaryFolder.getRoot());
+        // no policy status is recorded for component3
+        record(recordingDirectory, VERSION_URL + "/components/c1/versions/v1/policy-status", "{\"approvalStatus\":\"IN_VIOLATION\"}");
+        record(recordingDirectory, VERSION_URL + "/components?limit=" + PAGE_SIZE + "&offset=0",
+                "{\"totalCount\":4,\"items\":[" + StringUtils.join(new String[] { createBomEntry(0), createBomEntry(1), createBomEntry(2), createBomEntry(3) }, ",")
+                        + "]}");
+        final ReplayRestConnection restConnection = createRestConnection(recordingDirectory);
+
+        try {
+            createRiskReportDataService(restConnection).getRiskReportData(createProject(), createVersion());
+            Assert.fail("Expected the missing policy status to fail the report");
+        } catch (final IntegrationException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("c3/versions/v3/policy-status"));
+        }
+        Assert.assertEquals(1, restConnection.getMissCount());
+    }
+
+    private void recordSinglePageBom(final RecordingDirectory recordingDirectory, final String... bomEntries) throws Exception {
+        for (final String bomEntry : bomEntries) {
+            final String componentVersion = new JsonParser().parse(bomEntry).getAsJsonObject().get("componentVersion").getAsString();
+            if (!bomEntry.contains("approvalStatus")) {
+                record(recordingDirectory, VERSION_URL + "/components/" + componentVersion.substring(componentVersion.indexOf("/api/components/") + 16)
+                        + "/policy-status", "{\"approvalStatus\":\"IN_VIOLATION\"}");
+            }
+        }
+        record(recordingDirectory, VERSION_URL + "/components?limit=" + PAGE_SIZE + "&offset=0",
+                "{\"totalCount\":" + bomEntries.length + ",\"items\":[" + StringUtils.join(bomEntries, ",") + "]}");
+    }
+
+    private ReplayRestConnection createRestConnection(final RecordingDirectory recordingDirectory) throws Exception {
+        return new ReplayRestConnection(new IntBufferedLogger(), new URL(HUB_URL), recordingDirectory, 0, 0, 0);
+    }
+
+    private RiskReportDataService createRiskReportDataService(final ReplayRestConnection restConnection) {
+        final IntBufferedLogger logger = new IntBufferedLogger();
+        final MetaService metaService = new MetaService(logger, new JsonParser());
+        final HubSupportHelper hubSupportHelper = Mockito.mock(HubSupportHelper.class);
+        Mockito.when(hubSupportHelper.hasCapability(HubCapabilitiesEnum.AGGREGATE_BOM_REST_SERVER)).thenReturn(true);
+        return new RiskReportDataService(logger, restConnection, null, null, null, new AggregateBomRequestService(restConnection, metaService), metaService,
+                hubSupportHelper);
+    }
+
+    private ProjectView createProject() {
+        final ProjectView project = new Gson().fromJson("{\"name\":\"project\"}", ProjectView.class);
+        project.setJson("{\"_meta\":{\"href\":\"" + HUB_URL + "/api/projects/1\"}}");
+        return project;
+    }
+
+    private ProjectVersionView createVersion() {
+        final ProjectVersionView version = new Gson().fromJson("{\"versionName\":\"1.0\",\"phase\":\"DEVELOPMENT\",\"distribution\":\"INTERNAL\"}",
+                ProjectVersionView.class);
+        version.setJson("{\"_meta\":{\"href\":\"" + VERSION_URL + "\",\"links\":[{\"rel\":\"components\",\"href\":\"" + VERSION_URL + "/components\"}]}}");
+        return version;
+    }
+
+    private String createBomEntry(final int index) {
+        return createBomEntry(index, "component" + index);
+    }
+
+    private String createBomEntry(final int index, final String componentName) {
+        final String embeddedPolicyStatus = index % 2 == 1 ? "" : "\"approvalStatus\":\"NOT_IN_VIOLATION\",";
+        return "{\"componentName\":\"" + componentName + "\"," + embeddedPolicyStatus
+                + "\"component\":\"" + HUB_URL + "/api/components/c" + index + "\","
+                + "\"componentVersion\":\"" + HUB_URL + "/api/components/c" + index + "/versions/v" + index + "\","
+                + "\"licenses\":[{\"licenseDisplay\":\"MIT\"}]}";
+    }
+
+    private void record(final RecordingDirectory recordingDirectory, final String url, final String body) throws Exception {
+        recordingDirectory.record(HttpUrl.parse(url), 200, "OK", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.report.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.report.api.BomComponent;
+import com.blackducksoftware.integration.hub.report.api.ReportData;
+
+public class ColumnarReportWriterTest {
+    @Test
+    public void testComponentsSpanningBlocksReadBackUnchanged() throws Exception {
+        final ReportData reportData = new ReportData();
+        reportData.setProjectName("project");
+        reportData.setProjectVersion("1.0");
+        reportData.setPhase("DEVELOPMENT");
+        final List<BomComponent> components = new ArrayList<>();
+        final int componentCount = ColumnarReportWriter.BLOCK_SIZE * 2 + 10;
+        for (int index = 0; index < componentCount; index++) {
+            final BomComponent component = new BomComponent();
+            component.setComponentName("component" + index);
+            component.setComponentURL("http://hub/#projects/id:" + index);
+            component.setComponentVersionURL(index % 3 == 0 ? null : "http://hub/#versions/id:" + index);
+            component.setComponentVersion(index % 3 == 0 ? null : "1." + index);
+            component.setLicense(index % 2 == 0 ? "Apache License 2.0" : "MIT License");
+            component.setPolicyStatus("NOT_IN_VIOLATION");
+            component.setSecurityRiskHighCount(index % 5);
+            component.setOperationalRiskLowCount(index);
+            components.add(component);
+        }
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(outputStream, reportData)) {
+            writer.addAll(components);
+            writer.finish();
+        }
+
+        try (ColumnarReportReader reader = new ColumnarReportReader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Assert.assertEquals("project", reader.getReportData().getProjectName());
+            Assert.assertEquals("1.0", reader.getReportData().getProjectVersion());
+            Assert.assertNull(reader.getReportData().getProjectURL());
+            final List<BomComponent> readComponents = reader.readComponents();
+            Assert.assertEquals(componentCount, readComponents.size());
+            for (int index = 0; index < componentCount; index++) {
+                final BomComponent expected = components.get(index);
+                final BomComponent actual = readComponents.get(index);
+                Assert.assertEquals(expected.getComponentName(), actual.getComponentName());
+                Assert.assertEquals(expected.getComponentURL(), actual.getComponentURL());
+                Assert.assertEquals(expected.getComponentVersionURL(), actual.getComponentVersionURL());
+                Assert.assertEquals(expected.getComponentVersion(), actual.getComponentVersion());
+                Assert.assertEquals(expected.getLicense(), actual.getLicense());
+                Assert.assertEquals(expected.getPolicyStatus(), actual.getPolicyStatus());
+                Assert.assertEquals(expected.getSecurityRiskHighCount(), actual.getSecurityRiskHighCount());
+                Assert.assertEquals(expected.getOperationalRiskLowCount(), actual.getOperationalRiskLowCount());
+            }
+            Assert.assertNull(reader.readBlock());
+        }
+    }
+
+    @Test
+    public void testColumnScanUsesDictionaryIds() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(outputStream, new ReportData())) {
+            for (int index = 0; index < 100; index++) {
+                final BomComponent component = new BomComponent();
+                component.setLicense(index < 30 ? "GPL" : "MIT");
+                component.setSecurityRiskHighCount(1);
+                writer.add(component);
+            }
+            writer.finish();
+        }
+
+        try (ColumnarReportReader reader = new ColumnarReportReader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            final ColumnarReportBlock block = reader.readBlock();
+            final int[] licenseIds = block.getStringIdColumn(ColumnarReportWriter.LICENSE);
+            final int[] securityRiskHighCounts = block.getIntColumn(ColumnarReportWriter.SECURITY_RISK_HIGH);
+            int gplHighCount = 0;
+            for (int row = 0; row < block.getRowCount(); row++) {
+                if ("GPL".equals(block.getDictionaryString(licenseIds[row]))) {
+                    gplHighCount += securityRiskHighCounts[row];
+                }
+            }
+            Assert.assertEquals(30, gplHighCount);
+            Assert.assertNull(reader.readBlock());
+        }
+    }
+
+    @Test
+    public void testUnfinishedStreamIsRejected() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(outputStream, new ReportData())) {
+            writer.add(new BomComponent());
+            writer.add(new BomComponent());
+            // adding the rest of the components failed, so the writer is closed without finish
+        }
+
+        try (ColumnarReportReader reader = new ColumnarReportReader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            reader.readComponents();
+            Assert.fail("The unfinished stream should have been rejected");
+        } catch (final EOFException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = HubIntegrationException.class)
+    public void testOtherStreamsAreRejected() throws Exception {
+        new ColumnarReportReader(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 })).close();
+    }
+
+}
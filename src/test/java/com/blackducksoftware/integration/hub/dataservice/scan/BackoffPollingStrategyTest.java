@@ -0,0 +1,83 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BackoffPollingStrategyTest {
+    private static final String CODE_LOCATION = "http://a.hub.server/api/codelocations/1";
+
+    @Test
+    public void testBackoffWithoutEstimate() {
+        final BackoffPollingStrategy strategy = new BackoffPollingStrategy(1000, 1.5, 30000, 0, null, new Random(0));
+        assertEquals(1000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 0));
+        assertEquals(1000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 1500));
+        assertEquals(5000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 10000));
+        assertEquals(30000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 600000));
+    }
+
+    @Test
+    public void testBackoffIsCutShortAtEstimate() {
+        final BackoffPollingStrategy strategy = new BackoffPollingStrategy(1000, 1.5, 30000, 0, new ScanDurationEstimator(), new Random(0));
+        strategy.waitCompleted(CODE_LOCATION, 20000);
+
+        // scans that finish early are still polled for
+        assertEquals(1000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 0));
+        assertEquals(4000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 8000));
+        assertEquals(5000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 15000));
+        // past the estimate the backoff starts over
+        assertEquals(1000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 20500));
+        assertEquals(5000, strategy.getDelayBeforeNextPoll(CODE_LOCATION, 30000));
+        // other code locations have no estimate
+        assertEquals(5000, strategy.getDelayBeforeNextPoll("other", 10000));
+        assertEquals(1000, strategy.getDelayBeforeNextPoll(null, 0));
+    }
+
+    @Test
+    public void testJitterStaysInRange() {
+        final BackoffPollingStrategy strategy = new BackoffPollingStrategy(1000, 1.5, 30000, 0.2, null, new Random(42));
+        for (int poll = 0; poll < 100; poll++) {
+            final long delay = strategy.getDelayBeforeNextPoll(null, 10000);
+            assertTrue(delay >= 4000 && delay <= 6000);
+        }
+    }
+
+    @Test
+    public void testEstimatorMovingAverage() {
+        final ScanDurationEstimator estimator = new ScanDurationEstimator(0.5, 2);
+        estimator.record("a", 10000);
+        estimator.record("a", 20000);
+        assertEquals(Long.valueOf(15000), estimator.getEstimate("a"));
+
+        estimator.record("b", 1000);
+        estimator.record("c", 1000);
+        assertEquals(null, estimator.getEstimate("a"));
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.codelocation.CodeLocationRequestService;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.project.ProjectRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.scan.ScanSummaryRequestService;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubTimeoutExceededException;
+import com.blackducksoftware.integration.hub.model.enumeration.CodeLocationEnum;
+import com.blackducksoftware.integration.hub.model.enumeration.ScanSummaryStatusEnum;
+import com.blackducksoftware.integration.hub.model.view.CodeLocationView;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class ScanCompletionWatcherTest {
+    private static final String SCANS_URL = "http://a.hub.server/api/codelocations/1/scan-summaries";
+
+    private static final String SCAN_URL = SCANS_URL + "/1";
+
+    private static final String OTHER_SCAN_URL = SCANS_URL + "/2";
+
+    private ProjectRequestService projectRequestService;
+
+    private ProjectVersionRequestService projectVersionRequestService;
+
+    private CodeLocationRequestService codeLocationRequestService;
+
+    private ScanSummaryRequestService scanSummaryRequestService;
+
+    private ScanCompletionWatcher watcher;
+
+    @Before
+    public void setUp() {
+        projectRequestService = Mockito.mock(ProjectRequestService.class);
+        projectVersionRequestService = Mockito.mock(ProjectVersionRequestService.class);
+        codeLocationRequestService = Mockito.mock(CodeLocationRequestService.class);
+        scanSummaryRequestService = Mockito.mock(ScanSummaryRequestService.class);
+        // polls are driven by the test, the scheduled poll never comes within the test
+        watcher = new ScanCompletionWatcher(new IntBufferedLogger(), projectRequestService, projectVersionRequestService, codeLocationRequestService,
+                scanSummaryRequestService, new MetaService(new IntBufferedLogger(), new JsonParser()), 3600000);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.shutdown();
+    }
+
+    @Test
+    public void testWaitsOnTheSameScanShareOneRequestPerPoll() throws Exception {
+        Mockito.when(scanSummaryRequestService.getItem(SCAN_URL, ScanSummaryView.class)).thenReturn(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, SCAN_URL),
+                createScanSummary(ScanSummaryStatusEnum.COMPLETE, SCAN_URL));
+        Mockito.when(scanSummaryRequestService.getItem(OTHER_SCAN_URL, ScanSummaryView.class))
+                .thenReturn(createScanSummary(ScanSummaryStatusEnum.COMPLETE, OTHER_SCAN_URL));
+
+        final Future<List<ScanSummaryView>> first = watcher.watchScanSummaries(Arrays.asList(SCAN_URL), 60000);
+        final Future<List<ScanSummaryView>> second = watcher.watchScanSummaries(Arrays.asList(SCAN_URL, OTHER_SCAN_URL), 60000);
+        Assert.assertEquals(2, watcher.getRegistrationCount());
+
+        watcher.poll();
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+
+        watcher.poll();
+        Assert.assertEquals(ScanSummaryStatusEnum.COMPLETE, first.get().get(0).getStatus());
+        Assert.assertEquals(2, second.get().size());
+        Assert.assertEquals(0, watcher.getRegistrationCount());
+        Mockito.verify(scanSummaryRequestService, Mockito.times(2)).getItem(SCAN_URL, ScanSummaryView.class);
+        Mockito.verify(scanSummaryRequestService, Mockito.times(2)).getItem(OTHER_SCAN_URL, ScanSummaryView.class);
+    }
+
+    @Test
+    public void testProjectVersionWaitsForTheScanToStartThenFinish() throws Exception {
+        final ProjectView project = new ProjectView();
+        final ProjectVersionView version = new ProjectVersionView();
+        Mockito.when(projectRequestService.getProjectByName("project")).thenReturn(project);
+        Mockito.when(projectVersionRequestService.getProjectVersion(project, "version")).thenReturn(version);
+        final CodeLocationView codeLocation = new CodeLocationView();
+        codeLocation.setType(CodeLocationEnum.BOM_IMPORT);
+        codeLocation.setJson("{\"_meta\":{\"href\":\"http://a.hub.server/api/codelocations/1\",\"links\":[{\"rel\":\"scans\",\"href\":\"" + SCANS_URL + "\"}]}}");
+        Mockito.when(codeLocationRequestService.getAllCodeLocationsForProjectVersion(version)).thenReturn(Arrays.asList(codeLocation));
+        final List<ScanSummaryView> notStarted = Collections.emptyList();
+        Mockito.when(scanSummaryRequestService.getAllScanSummaryItems(SCANS_URL)).thenReturn(notStarted)
+                .thenReturn(Arrays.asList(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, SCAN_URL)));
+        Mockito.when(scanSummaryRequestService.getItem(SCAN_URL, ScanSummaryView.class)).thenReturn(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, SCAN_URL),
+                createScanSummary(ScanSummaryStatusEnum.COMPLETE, SCAN_URL));
+
+        final Future<List<ScanSummaryView>> first = watcher.watchProjectVersion("project", "version", 60000);
+        final Future<List<ScanSummaryView>> second = watcher.watchProjectVersion("project", "version", 60000);
+        watcher.poll();
+        watcher.poll();
+        Assert.assertFalse(first.isDone());
+        watcher.poll();
+        Assert.assertEquals(1, first.get().size());
+        Assert.assertEquals(1, second.get().size());
+
+        Mockito.verify(projectRequestService, Mockito.times(1)).getProjectByName("project");
+        Mockito.verify(codeLocationRequestService, Mockito.times(2)).getAllCodeLocationsForProjectVersion(version);
+    }
+
+    @Test
+    public void testErrorStatusAndTimeoutCompleteExceptionally() throws Exception {
+        Mockito.when(scanSummaryRequestService.getItem(SCAN_URL, ScanSummaryView.class))
+                .thenReturn(createScanSummary(ScanSummaryStatusEnum.ERROR_BUILDING_BOM, SCAN_URL));
+        Mockito.when(scanSummaryRequestService.getItem(OTHER_SCAN_URL, ScanSummaryView.class))
+                .thenReturn(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, OTHER_SCAN_URL));
+
+        final Future<List<ScanSummaryView>> failed = watcher.watchScanSummaries(Arrays.asList(SCAN_URL), 60000);
+        final Future<List<ScanSummaryView>> timedOut = watcher.watchScanSummaries(Arrays.asList(OTHER_SCAN_URL), 0);
+        Thread.sleep(5);
+        watcher.poll();
+
+        assertCompletedWith(failed, HubIntegrationException.class);
+        assertCompletedWith(timedOut, HubTimeoutExceededException.class);
+    }
+
+    private void assertCompletedWith(final Future<List<ScanSummaryView>> future, final Class<? extends Exception> exceptionClass) throws Exception {
+        try {
+            future.get();
+            Assert.fail("Expected the wait to fail");
+        } catch (final ExecutionException e) {
+            Assert.assertEquals(exceptionClass, e.getCause().getClass());
+        }
+    }
+
+    private ScanSummaryView createScanSummary(final ScanSummaryStatusEnum status, final String scanUrl) {
+        final ScanSummaryView scanSummary = new ScanSummaryView();
+        scanSummary.setStatus(status);
+        scanSummary.setJson("{\"_meta\":{\"href\":\"" + scanUrl + "\",\"links\":[]}}");
+        return scanSummary;
+    }
+
+}
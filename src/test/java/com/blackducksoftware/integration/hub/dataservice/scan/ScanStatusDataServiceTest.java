@@ -0,0 +1,151 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.dataservice.scan;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.blackducksoftware.integration.hub.api.codelocation.CodeLocationRequestService;
+import com.blackducksoftware.integration.hub.api.item.MetaService;
+import com.blackducksoftware.integration.hub.api.project.ProjectRequestService;
+import com.blackducksoftware.integration.hub.api.project.version.ProjectVersionRequestService;
+import com.blackducksoftware.integration.hub.api.scan.ScanSummaryRequestService;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.model.enumeration.CodeLocationEnum;
+import com.blackducksoftware.integration.hub.model.enumeration.ScanSummaryStatusEnum;
+import com.blackducksoftware.integration.hub.model.view.CodeLocationView;
+import com.blackducksoftware.integration.hub.model.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.model.view.ScanSummaryView;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+import com.google.gson.JsonParser;
+
+public class ScanStatusDataServiceTest {
+    private static final String SCANS_URL = "http://a.hub.server/api/codelocations/1/scan-summaries";
+
+    private static final String SCAN_URL = SCANS_URL + "/1";
+
+    @Test
+    public void testProjectVersionResolvedOnceAndOnlyItsCodeLocationsFetched() throws Exception {
+        final ProjectRequestService projectRequestService = Mockito.mock(ProjectRequestService.class);
+        final ProjectVersionRequestService projectVersionRequestService = Mockito.mock(ProjectVersionRequestService.class);
+        final CodeLocationRequestService codeLocationRequestService = Mockito.mock(CodeLocationRequestService.class);
+        final ScanSummaryRequestService scanSummaryRequestService = Mockito.mock(ScanSummaryRequestService.class);
+        final MetaService metaService = new MetaService(new IntBufferedLogger(), new JsonParser());
+
+        final ProjectView project = new ProjectView();
+        final ProjectVersionView version = new ProjectVersionView();
+        Mockito.when(projectRequestService.getProjectByName("project")).thenReturn(project);
+        Mockito.when(projectVersionRequestService.getProjectVersion(project, "version")).thenReturn(version);
+
+        final CodeLocationView bomImport = createCodeLocation(CodeLocationEnum.BOM_IMPORT, SCANS_URL);
+        final CodeLocationView signatureScan = createCodeLocation(CodeLocationEnum.FS, "http://a.hub.server/api/codelocations/2/scan-summaries");
+        Mockito.when(codeLocationRequestService.getAllCodeLocationsForProjectVersion(version)).thenReturn(Arrays.asList(bomImport, signatureScan));
+
+        final List<ScanSummaryView> notStarted = Collections.emptyList();
+        Mockito.when(scanSummaryRequestService.getAllScanSummaryItems(SCANS_URL)).thenReturn(notStarted).thenReturn(notStarted)
+                .thenReturn(Arrays.asList(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM)));
+        Mockito.when(scanSummaryRequestService.getItem(SCAN_URL, ScanSummaryView.class)).thenReturn(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM),
+                createScanSummary(ScanSummaryStatusEnum.COMPLETE));
+
+        final ScanStatusDataService scanStatusDataService = new ScanStatusDataService(new IntBufferedLogger(), projectRequestService,
+                projectVersionRequestService, codeLocationRequestService, scanSummaryRequestService, metaService, 10000);
+        scanStatusDataService.setPollingStrategy(new FixedIntervalPollingStrategy(1));
+        scanStatusDataService.assertBomImportScanStartedThenFinished("project", "version");
+
+        Mockito.verify(projectRequestService, Mockito.times(1)).getProjectByName("project");
+        Mockito.verify(codeLocationRequestService, Mockito.times(3)).getAllCodeLocationsForProjectVersion(version);
+        Mockito.verify(codeLocationRequestService, Mockito.never()).getAllCodeLocationsForCodeLocationType(Mockito.any(CodeLocationEnum.class));
+        Mockito.verify(scanSummaryRequestService, Mockito.never()).getAllScanSummaryItems("http://a.hub.server/api/codelocations/2/scan-summaries");
+    }
+
+    @Test
+    public void testFirstErrorStatusFailsThePollWithoutWaitingForSlowerScans() throws Exception {
+        final ScanSummaryRequestService scanSummaryRequestService = Mockito.mock(ScanSummaryRequestService.class);
+        final MetaService metaService = new MetaService(new IntBufferedLogger(), new JsonParser());
+        final String slowScanUrl = SCANS_URL + "/2";
+
+        final CountDownLatch slowScanInterrupted = new CountDownLatch(1);
+        Mockito.when(scanSummaryRequestService.getItem(slowScanUrl, ScanSummaryView.class)).thenAnswer(new Answer<ScanSummaryView>() {
+            @Override
+            public ScanSummaryView answer(final InvocationOnMock invocation) throws Throwable {
+                try {
+                    Thread.sleep(60000);
+                } catch (final InterruptedException e) {
+                    slowScanInterrupted.countDown();
+                }
+                return createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, slowScanUrl);
+            }
+        });
+        Mockito.when(scanSummaryRequestService.getItem(SCAN_URL, ScanSummaryView.class)).thenReturn(createScanSummary(ScanSummaryStatusEnum.ERROR_BUILDING_BOM));
+
+        final ScanStatusDataService scanStatusDataService = new ScanStatusDataService(new IntBufferedLogger(), null, null, null, scanSummaryRequestService,
+                metaService, 120000);
+        final long start = System.currentTimeMillis();
+        try {
+            scanStatusDataService.assertBomImportScansFinished(Arrays.asList(createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM, slowScanUrl),
+                    createScanSummary(ScanSummaryStatusEnum.BUILDING_BOM)));
+            Assert.fail("Expected the error status to fail the poll");
+        } catch (final HubIntegrationException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("ERROR_BUILDING_BOM"));
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 30000);
+        Assert.assertTrue(slowScanInterrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumConcurrentRequestsMustBePositive() {
+        final ScanStatusDataService scanStatusDataService = new ScanStatusDataService(new IntBufferedLogger(), null, null, null, null, null, 120000);
+        scanStatusDataService.setMaximumConcurrentRequests(0);
+    }
+
+    private CodeLocationView createCodeLocation(final CodeLocationEnum type, final String scansUrl) {
+        final CodeLocationView codeLocation = new CodeLocationView();
+        codeLocation.setType(type);
+        codeLocation.setJson("{\"_meta\":{\"href\":\"http://a.hub.server/api/codelocations/x\",\"links\":[{\"rel\":\"scans\",\"href\":\"" + scansUrl
+                + "\"}]}}");
+        return codeLocation;
+    }
+
+    private ScanSummaryView createScanSummary(final ScanSummaryStatusEnum status) {
+        return createScanSummary(status, SCAN_URL);
+    }
+
+    private ScanSummaryView createScanSummary(final ScanSummaryStatusEnum status, final String scanUrl) {
+        final ScanSummaryView scanSummary = new ScanSummaryView();
+        scanSummary.setStatus(status);
+        scanSummary.setJson("{\"_meta\":{\"href\":\"" + scanUrl + "\",\"links\":[{\"rel\":\"codelocation\",\"href\":\"http://a.hub.server/api/codelocations/1\"}]}}");
+        return scanSummary;
+    }
+
+}
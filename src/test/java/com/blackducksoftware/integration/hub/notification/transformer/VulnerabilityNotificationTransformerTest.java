@@ -29,6 +29,8 @@ import static org.junit.Assert.fail;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -72,6 +74,52 @@ public class VulnerabilityNotificationTransformerTest {
         }
     }
 
+    @Test
+    public void testConcurrentAffectedProjectVersions() throws IntegrationException {
+        final NotificationRequestService notificationService = Mockito.mock(NotificationRequestService.class);
+        final ProjectVersionRequestService projectVersionService = Mockito.mock(ProjectVersionRequestService.class);
+        final PolicyRequestService policyService = Mockito.mock(PolicyRequestService.class);
+        final HubResponseService hubResponseService = Mockito.mock(HubResponseService.class);
+        final MetaService metaService = Mockito.mock(MetaService.class);
+        final IntLogger logger = new TestLogger();
+
+        final String forbiddenUrl = PROJECT_VERSION_URL + "/forbidden";
+        final HubIntegrationException wrappedForbiddenException = new HubIntegrationException(
+                "There was a problem getting this item : " + forbiddenUrl + ". Error : Forbidden", new IOException("Forbidden"));
+        Mockito.when(hubResponseService.getItem(forbiddenUrl, ProjectVersionView.class)).thenThrow(wrappedForbiddenException);
+        Mockito.when(hubResponseService.getItem(Mockito.startsWith(PROJECT_VERSION_URL + "/ok"), Mockito.eq(ProjectVersionView.class)))
+                .thenReturn(new ProjectVersionView());
+        Mockito.when(hubResponseService.getItem(Mockito.any(String.class), Mockito.eq(ComponentVersionView.class))).thenReturn(new ComponentVersionView());
+
+        final List<AffectedProjectVersion> affectedProjectVersions = new ArrayList<>();
+        for (int index = 0; index < 20; index++) {
+            final AffectedProjectVersion affectedProjectVersion = new AffectedProjectVersion();
+            affectedProjectVersion.setProjectName("testProjectName" + index);
+            affectedProjectVersion.setProjectVersionName("testProjectVersionName");
+            affectedProjectVersion.setProjectVersion(index % 5 == 0 ? forbiddenUrl : PROJECT_VERSION_URL + "/ok" + index);
+            affectedProjectVersions.add(affectedProjectVersion);
+        }
+
+        final VulnerabilityNotificationContent vulnerabilityNotificationContent = new VulnerabilityNotificationContent();
+        vulnerabilityNotificationContent.setComponentName("testComponent");
+        vulnerabilityNotificationContent.setComponentVersionLink("http://my.hub.com/api/components/x/versions/y");
+        vulnerabilityNotificationContent.setAffectedProjectVersions(affectedProjectVersions);
+        final VulnerabilityNotificationView item = new VulnerabilityNotificationView();
+        item.setContent(vulnerabilityNotificationContent);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final VulnerabilityTransformer vulnerabilityTransformer = new VulnerabilityTransformer(hubResponseService, notificationService,
+                    projectVersionService, policyService, metaService, logger, executorService);
+            final List<NotificationContentItem> items = vulnerabilityTransformer.transform(item);
+            assertEquals(16, items.size());
+            assertEquals("testProjectName1", items.get(0).getProjectVersion().getProjectName());
+            assertEquals("testProjectName19", items.get(15).getProjectVersion().getProjectName());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     private List<NotificationContentItem> testException(final Exception exceptionThrownByGet) throws IntegrationException {
         final NotificationRequestService notificationService = Mockito.mock(NotificationRequestService.class);
         final ProjectVersionRequestService projectVersionService = Mockito.mock(ProjectVersionRequestService.class);
@@ -0,0 +1,87 @@
+/**
+ * Hub Common
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blackducksoftware.integration.hub.model.view.ProjectView;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+import com.blackducksoftware.integration.hub.service.HubResponseService;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+import okhttp3.HttpUrl;
+
+public class ReplayRestConnectionTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeyIgnoresHostAndQueryOrder() {
+        final String first = RecordingDirectory.createKey(HttpUrl.parse("https://one.hub/api/projects?q=name:a&limit=10"));
+        final String second = RecordingDirectory.createKey(HttpUrl.parse("http://two.hub:8080/api/projects?limit=10&q=name:a"));
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        final File directory = folder.newFolder();
+        final RecordingDirectory recordingDirectory = new RecordingDirectory(directory);
+        recordingDirectory.record(HttpUrl.parse("https://recorded.hub/api/projects/1"), 200, "OK",
+                "{\"name\":\"replayed\",\"_meta\":{\"href\":\"https://recorded.hub/api/projects/1\"}}".getBytes(StandardCharsets.UTF_8));
+        recordingDirectory.record(HttpUrl.parse("https://recorded.hub/api/projects/2"), 403, "Forbidden",
+                "Error: 403 Forbidden".getBytes(StandardCharsets.UTF_8));
+
+        final ReplayRestConnection restConnection = new ReplayRestConnection(new IntBufferedLogger(), new URL("http://replay.hub"), directory);
+        final HubResponseService hubResponseService = new HubResponseService(restConnection);
+
+        final ProjectView projectView = hubResponseService.getItem("http://replay.hub/api/projects/1", ProjectView.class);
+        assertEquals("replayed", projectView.getName());
+
+        try {
+            hubResponseService.getItem("http://replay.hub/api/projects/2", ProjectView.class);
+            fail("Expected the recorded failure to be replayed");
+        } catch (final IntegrationRestException e) {
+            assertEquals(403, e.getHttpStatusCode());
+        }
+
+        try {
+            hubResponseService.getItem("http://replay.hub/api/projects/3", ProjectView.class);
+            fail("Expected a missing recording to fail");
+        } catch (final IntegrationRestException e) {
+            assertEquals(404, e.getHttpStatusCode());
+        }
+        assertEquals(3, restConnection.getRequestCount());
+        assertEquals(1, restConnection.getMissCount());
+    }
+
+}